@@ -0,0 +1,89 @@
+/**
+ * The BestFitStrategy class assigns the free room where the stay leaves the fewest and shortest gaps
+ * between reservations. A gap between two stays can only be sold to a stay short enough to fit it, so a
+ * stay is placed flush against the stays before and after it when it can be. The cost of a room is first
+ * the number of sides of the stay that are not flush against a reservation, and then the number of free
+ * nights left between the stay and its neighbours. A side with no later or earlier reservation leaves no
+ * gap, so an empty room is not preferred over a room with one flush side.
+ * A request for any type of room gets a room of the first type with a free room, as first-fit does
+ * with the room list, so the rooms of the dearer types stay free for the guests who ask for them.
+ * Ties go to the first room in the room list.
+ */
+public class BestFitStrategy implements RoomAssignmentStrategy {
+
+    private static final long SIDE_COST = 1L << 32;
+
+    @Override
+    public Room selectRoom(Hotel hotel, RoomType roomType, int checkInDate, int checkOutDate) {
+        Room room;
+
+        if (roomType != null) {
+            return hotel.findBestRoom(roomType, checkInDate, checkOutDate, candidate -> getCost(candidate, checkInDate, checkOutDate));
+        }
+        for (RoomType type : RoomType.values()) {
+            room = hotel.findBestRoom(type, checkInDate, checkOutDate, candidate -> getCost(candidate, checkInDate, checkOutDate));
+            if (room != null) {
+                return room;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Scores a free room for a stay. A cost of 0 means the stay fills a gap exactly.
+     */
+    private static long getCost(Room room, int checkInDate, int checkOutDate) {
+        return getSideCost(getGapBefore(room, checkInDate)) + getSideCost(getGapAfter(room, checkOutDate));
+    }
+
+    /**
+     * Scores one side of a stay from the free nights left on that side, where -1 means there is no reservation on it.
+     */
+    private static long getSideCost(int gap) {
+        if (gap == 0) {
+            return 0;
+        }
+        return gap < 0 ? SIDE_COST : SIDE_COST + gap;
+    }
+
+    /**
+     * Counts the free nights between the previous stay of a room and the check-in date.
+     * Inside the bitmap window the previous booked night is the highest bit below the check-in date.
+     *
+     * @return the number of free nights, or -1 if no stay ends before the check-in date
+     */
+    private static int getGapBefore(Room room, int checkInDate) {
+        long bookedBefore;
+        int previousCheckOutDate;
+
+        if (checkInDate < RoomPool.NIGHTS) {
+            bookedBefore = room.getOccupiedNights() & ((1L << checkInDate) - 1);
+            if (bookedBefore == 0) {
+                return -1;
+            }
+            return checkInDate - 1 - (63 - Long.numberOfLeadingZeros(bookedBefore));
+        }
+        previousCheckOutDate = room.getPreviousCheckOutDate(checkInDate);
+        return previousCheckOutDate < 0 ? -1 : checkInDate - previousCheckOutDate;
+    }
+
+    /**
+     * Counts the free nights between the check-out date and the next stay of a room.
+     * Inside the bitmap window the next booked night is the lowest bit from the check-out date.
+     *
+     * @return the number of free nights, or -1 if no stay starts on or after the check-out date
+     */
+    private static int getGapAfter(Room room, int checkOutDate) {
+        long bookedAfter;
+        int nextCheckInDate;
+
+        if (checkOutDate < RoomPool.NIGHTS) {
+            bookedAfter = room.getOccupiedNights() & (-1L << checkOutDate);
+            if (bookedAfter != 0) {
+                return Long.numberOfTrailingZeros(bookedAfter) - checkOutDate;
+            }
+        }
+        nextCheckInDate = room.getNextCheckInDate(checkOutDate);
+        return nextCheckInDate < 0 ? -1 : nextCheckInDate - checkOutDate;
+    }
+}
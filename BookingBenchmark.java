@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * The BookingBenchmark class times the booking engine on generated requests, so the speed of a bulk import
+ * and the packing of the room assignment strategies can be measured again on any machine. The requests come
+ * from a fixed seed, so every run books the same stays.
+ * Run it with: java BookingBenchmark [number of requests] [number of rooms]
+ */
+public class BookingBenchmark {
+
+    private static final long SEED = 20240101L;
+    private static final int DEFAULT_REQUESTS = 100000;
+    private static final int DEFAULT_ROOMS = 150;
+    private static final int DAYS = 3650;
+    private static final int MAX_NIGHTS = 7;
+    private static final int LONG_STAYS = 2000;
+    private static final int LONG_STAY_NIGHTS = 14;
+    private static final int ROUNDS = 3;
+
+    /**
+     * Runs the benchmark and prints one line per measurement.
+     *
+     * @param args the number of requests and the number of rooms, both optional
+     */
+    public static void main(String[] args) {
+        int requestCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_REQUESTS;
+        int roomCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROOMS;
+        ArrayList<BookingRequest> requestList = createRequests(requestCount, new Random(SEED));
+        ArrayList<BookingRequest> longStayList = createLongStays(new Random(SEED + 1));
+        BookingService service = new BookingService();
+        ImportReport report;
+        Hotel hotel;
+        long startTime;
+        int round;
+
+        System.out.printf("%d requests, %d rooms, %d days%n", requestCount, roomCount, DAYS);
+        for (round = 1; round <= ROUNDS; round++) {
+            hotel = createHotel(roomCount);
+            startTime = System.nanoTime();
+            report = service.importReservations(hotel, requestList);
+            System.out.printf("round %d: importReservations %.3f s, %d booked, %d rejected%n", round,
+                    (System.nanoTime() - startTime) / 1e9, report.getAcceptedList().size(), report.getRejectedList().size());
+
+            bookOneByOne(service, new FirstFitStrategy(), roomCount, requestList, longStayList, round);
+            bookOneByOne(service, new BestFitStrategy(), roomCount, requestList, longStayList, round);
+        }
+    }
+
+    /**
+     * Books the requests one at a time with a strategy, then tries the long stays, and prints the time and
+     * how many long stays still found a room.
+     */
+    private static void bookOneByOne(BookingService service, RoomAssignmentStrategy strategy, int roomCount,
+            ArrayList<BookingRequest> requestList, ArrayList<BookingRequest> longStayList, int round) {
+        Hotel hotel = createHotel(roomCount);
+        long startTime;
+        int bookedCount = 0, longStayCount = 0;
+        double seconds;
+
+        service.setAssignmentStrategy(strategy);
+        startTime = System.nanoTime();
+        for (BookingRequest request : requestList) {
+            if (service.book(hotel, request).isSuccessful()) {
+                bookedCount++;
+            }
+        }
+        seconds = (System.nanoTime() - startTime) / 1e9;
+        for (BookingRequest request : longStayList) {
+            if (service.book(hotel, request).isSuccessful()) {
+                longStayCount++;
+            }
+        }
+        System.out.printf("round %d: book one by one with %s %.3f s, %d booked, %d of %d long stays fit afterwards%n", round,
+                strategy.getClass().getSimpleName(), seconds, bookedCount, longStayCount, longStayList.size());
+    }
+
+    /**
+     * Creates a hotel with a mix of room types.
+     */
+    private static Hotel createHotel(int roomCount) {
+        Hotel hotel = new Hotel("Benchmark");
+
+        hotel.createRooms(roomCount - roomCount / 5 - roomCount / 10, roomCount / 5, roomCount / 10, "B");
+        return hotel;
+    }
+
+    /**
+     * Creates short stays of one to MAX_NIGHTS nights spread over DAYS days, a fifth of them for a given room type.
+     */
+    private static ArrayList<BookingRequest> createRequests(int requestCount, Random random) {
+        ArrayList<BookingRequest> requestList = new ArrayList<BookingRequest>(requestCount);
+        RoomType roomType;
+        int checkInDate, i;
+
+        for (i = 0; i < requestCount; i++) {
+            checkInDate = 1 + random.nextInt(DAYS);
+            roomType = random.nextInt(5) == 0 ? RoomType.values()[random.nextInt(RoomType.values().length)] : null;
+            requestList.add(new BookingRequest("guest " + random.nextInt(requestCount), checkInDate,
+                    checkInDate + 1 + random.nextInt(MAX_NIGHTS), roomType, null, null));
+        }
+        return requestList;
+    }
+
+    /**
+     * Creates stays of LONG_STAY_NIGHTS nights, which need a long run of free nights in one room.
+     */
+    private static ArrayList<BookingRequest> createLongStays(Random random) {
+        ArrayList<BookingRequest> requestList = new ArrayList<BookingRequest>(LONG_STAYS);
+        int checkInDate, i;
+
+        for (i = 0; i < LONG_STAYS; i++) {
+            checkInDate = 1 + random.nextInt(DAYS);
+            requestList.add(new BookingRequest("long stay " + i, checkInDate, checkInDate + LONG_STAY_NIGHTS));
+        }
+        return requestList;
+    }
+}
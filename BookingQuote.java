@@ -0,0 +1,162 @@
+import java.util.ArrayList;
+
+/**
+ * The BookingQuote class represents the price of a stay in a room, after the date price
+ * modifiers and the discount code are applied. A quote with an invalid discount code
+ * carries the reasons why the code was refused.
+ */
+public class BookingQuote {
+
+    private Room room;
+    private int checkInDate;
+    private int checkOutDate;
+    private long basePriceCents;
+    private long totalPriceCents;
+    private long roomPriceCents;
+    private long priceVersion;
+    private String discountStatus;
+    private boolean valid;
+    private ArrayList<String> messageList = new ArrayList<String>();
+
+    /**
+     * Constructs a new BookingQuote.
+     * 
+     * @param room is the quoted room.
+     * @param checkInDate is the check-in date.
+     * @param checkOutDate is the check-out date.
+     * @param basePriceCents is the price of the stay before the discount, in cents.
+     * @param totalPriceCents is the price of the stay after the discount, in cents.
+     * @param roomPriceCents is the price per night of the room used, in cents.
+     * @param priceVersion is the price version of the hotel used.
+     * @param discountStatus is the applied discount code, or "No Discount".
+     * @param valid is false when the discount code cannot be used for the stay.
+     */
+    public BookingQuote(Room room, int checkInDate, int checkOutDate, long basePriceCents, long totalPriceCents, long roomPriceCents, long priceVersion, String discountStatus, boolean valid) {
+        this.room = room;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.basePriceCents = basePriceCents;
+        this.totalPriceCents = totalPriceCents;
+        this.roomPriceCents = roomPriceCents;
+        this.priceVersion = priceVersion;
+        this.discountStatus = discountStatus;
+        this.valid = valid;
+    }
+
+    /**
+     * Gets the quoted room.
+     * 
+     * @return the room
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * Gets the check-in date.
+     * 
+     * @return the check-in date
+     */
+    public int getCheckInDate() {
+        return checkInDate;
+    }
+
+    /**
+     * Gets the check-out date.
+     * 
+     * @return the check-out date
+     */
+    public int getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    /**
+     * Gets the price of the stay before the discount.
+     * 
+     * @return the base price
+     */
+    public double getBasePrice() {
+        return Money.toAmount(basePriceCents);
+    }
+
+    /**
+     * Gets the price of the stay before the discount in cents.
+     * 
+     * @return the base price in cents
+     */
+    public long getBasePriceCents() {
+        return basePriceCents;
+    }
+
+    /**
+     * Gets the price of the stay after the discount.
+     * 
+     * @return the total price
+     */
+    public double getTotalPrice() {
+        return Money.toAmount(totalPriceCents);
+    }
+
+    /**
+     * Gets the price of the stay after the discount in cents.
+     * 
+     * @return the total price in cents
+     */
+    public long getTotalPriceCents() {
+        return totalPriceCents;
+    }
+
+    /**
+     * Gets the price per night of the room that the quote was computed from.
+     * 
+     * @return the room price in cents
+     */
+    public long getRoomPriceCents() {
+        return roomPriceCents;
+    }
+
+    /**
+     * Gets the price version of the hotel that the quote was computed from.
+     * 
+     * @return the price version
+     */
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    /**
+     * Gets the applied discount code.
+     * 
+     * @return the discount code, or "No Discount"
+     */
+    public String getDiscountStatus() {
+        return discountStatus;
+    }
+
+    /**
+     * Checks if the discount code can be used for the stay.
+     * 
+     * @return true if the quote can be booked, false otherwise
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Gets the messages explaining the discount or the reasons it was refused.
+     * 
+     * @return the list of messages
+     */
+    public ArrayList<String> getMessageList() {
+        return messageList;
+    }
+
+    /**
+     * Adds a message explaining the discount or the reason it was refused.
+     * 
+     * @param message is the message to add.
+     */
+    public void addMessage(String message) {
+        messageList.add(message);
+    }
+}
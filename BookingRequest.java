@@ -0,0 +1,98 @@
+/**
+ * The BookingRequest class holds the details of a booking that a guest wants to make.
+ * The room type, the room, and the discount code are optional. When no room is given,
+ * the booking service picks one of the requested type, or of any type when no type is given.
+ */
+public class BookingRequest {
+
+    private String guestName;
+    private int checkInDate;
+    private int checkOutDate;
+    private RoomType roomType;
+    private Room room;
+    private String discountCode;
+
+    /**
+     * Constructs a new BookingRequest for any available room without a discount code.
+     * 
+     * @param guestName is the name of the guest.
+     * @param checkInDate is the check-in date.
+     * @param checkOutDate is the check-out date.
+     */
+    public BookingRequest(String guestName, int checkInDate, int checkOutDate) {
+        this(guestName, checkInDate, checkOutDate, null, null, null);
+    }
+
+    /**
+     * Constructs a new BookingRequest with every detail of the booking.
+     * 
+     * @param guestName is the name of the guest.
+     * @param checkInDate is the check-in date.
+     * @param checkOutDate is the check-out date.
+     * @param roomType is the requested type of room, or null for any type.
+     * @param room is the requested room, or null to let the booking service pick one.
+     * @param discountCode is the discount code to apply, or null for no discount.
+     */
+    public BookingRequest(String guestName, int checkInDate, int checkOutDate, RoomType roomType, Room room, String discountCode) {
+        this.guestName = guestName;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.roomType = roomType;
+        this.room = room;
+        this.discountCode = discountCode;
+    }
+
+    /**
+     * Gets the name of the guest.
+     * 
+     * @return the guest name
+     */
+    public String getGuestName() {
+        return guestName;
+    }
+
+    /**
+     * Gets the check-in date.
+     * 
+     * @return the check-in date
+     */
+    public int getCheckInDate() {
+        return checkInDate;
+    }
+
+    /**
+     * Gets the check-out date.
+     * 
+     * @return the check-out date
+     */
+    public int getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    /**
+     * Gets the requested type of room.
+     * 
+     * @return the room type, or null for any type
+     */
+    public RoomType getRoomType() {
+        return roomType;
+    }
+
+    /**
+     * Gets the requested room.
+     * 
+     * @return the room, or null if the booking service should pick one
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * Gets the discount code to apply.
+     * 
+     * @return the discount code, or null for no discount
+     */
+    public String getDiscountCode() {
+        return discountCode;
+    }
+}
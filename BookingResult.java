@@ -0,0 +1,49 @@
+import java.util.ArrayList;
+
+/**
+ * The BookingResult class represents the outcome of a booking request.
+ * A successful result holds the created reservation, while a failed result holds the reasons of the failure.
+ */
+public class BookingResult {
+
+    private Reservation reservation;
+    private ArrayList<String> messageList = new ArrayList<String>();
+
+    /**
+     * Constructs a new BookingResult.
+     * 
+     * @param reservation is the created reservation, or null if the booking failed.
+     * @param messageList is the list of messages about the booking.
+     */
+    public BookingResult(Reservation reservation, ArrayList<String> messageList) {
+        this.reservation = reservation;
+        this.messageList.addAll(messageList);
+    }
+
+    /**
+     * Checks if the booking was made.
+     * 
+     * @return true if a reservation was created, false otherwise
+     */
+    public boolean isSuccessful() {
+        return reservation != null;
+    }
+
+    /**
+     * Gets the created reservation.
+     * 
+     * @return the reservation, or null if the booking failed
+     */
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    /**
+     * Gets the messages about the booking.
+     * 
+     * @return the list of messages
+     */
+    public ArrayList<String> getMessageList() {
+        return messageList;
+    }
+}
@@ -0,0 +1,534 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The BookingService class is the booking engine of the system. It picks rooms, prices stays,
+ * checks discount codes, and creates reservations without showing any dialog, so the same
+ * booking logic can be used by the Swing controller or called directly by other programs.
+ */
+public class BookingService {
+
+    private RoomAssignmentStrategy assignmentStrategy = new FirstFitStrategy();
+    private DiscountRegistry discountRegistry = DiscountRegistry.load(DiscountRegistry.CONFIG_FILE);
+    private QuoteCache quoteCache = new QuoteCache();
+
+    /**
+     * Gets the strategy that picks rooms for requests without a chosen room.
+     *
+     * @return the room assignment strategy
+     */
+    public RoomAssignmentStrategy getAssignmentStrategy() {
+        return assignmentStrategy;
+    }
+
+    /**
+     * Sets the strategy that picks rooms for requests without a chosen room.
+     *
+     * @param assignmentStrategy the new room assignment strategy
+     */
+    public void setAssignmentStrategy(RoomAssignmentStrategy assignmentStrategy) {
+        this.assignmentStrategy = assignmentStrategy;
+    }
+
+    /**
+     * Gets the registry of the discount codes accepted by the service.
+     *
+     * @return the discount registry
+     */
+    public DiscountRegistry getDiscountRegistry() {
+        return discountRegistry;
+    }
+
+    /**
+     * Sets the registry of the discount codes accepted by the service.
+     *
+     * @param discountRegistry the new discount registry
+     */
+    public void setDiscountRegistry(DiscountRegistry discountRegistry) {
+        this.discountRegistry = discountRegistry;
+        quoteCache.clear();
+    }
+
+    /**
+     * Gets the cache of the prices of recent quotes, which also counts its hits and misses.
+     *
+     * @return the quote cache
+     */
+    public QuoteCache getQuoteCache() {
+        return quoteCache;
+    }
+
+    /**
+     * Picks a room that is free for the dates of a request.
+     *
+     * @param hotel The hotel where the room is booked.
+     * @param request The details of the booking.
+     * @return the requested room if it is in the hotel and free, the room picked by the assignment strategy, or null if there is none.
+     */
+    public Room selectRoom(Hotel hotel, BookingRequest request) {
+        int checkInDate = request.getCheckInDate();
+        int checkOutDate = request.getCheckOutDate();
+
+        if (request.getRoom() != null) {
+            if (hotel.containsRoom(request.getRoom()) && hotel.isRoomAvailable(request.getRoom(), checkInDate, checkOutDate)) {
+                return request.getRoom();
+            }
+            return null;
+        }
+        return assignmentStrategy.selectRoom(hotel, request.getRoomType(), checkInDate, checkOutDate);
+    }
+
+    /**
+     * Prices a stay in a room and applies the discount code of the request.
+     *
+     * @param hotel The hotel of the room.
+     * @param request The details of the booking.
+     * @param room The room to be priced.
+     * @return the quote of the stay, which is invalid if the discount code cannot be used.
+     */
+    public BookingQuote quote(Hotel hotel, BookingRequest request, Room room) {
+        int checkInDate = request.getCheckInDate();
+        int checkOutDate = request.getCheckOutDate();
+        String discountCode = request.getDiscountCode();
+        String guestName = request.getGuestName();
+        DiscountRule rule = null;
+        BookingQuote quote;
+        long[] prices;
+
+        if (discountCode != null) {
+            rule = discountRegistry.getRule(discountCode);
+            if (rule == null || !rule.isApplicable(checkInDate, checkOutDate, Hotel.getNightMask(checkInDate, checkOutDate))) {
+                prices = getPrices(hotel, room, checkInDate, checkOutDate, null);
+                quote = new BookingQuote(room, checkInDate, checkOutDate, prices[0], prices[0], prices[2], prices[3], "No Discount", false);
+                quote.addMessage("Invalid Discount Code.");
+                if (rule != null && rule.getRejectMessage() != null) {
+                    quote.addMessage(rule.getRejectMessage());
+                }
+                return quote;
+            }
+        }
+
+        prices = getPrices(hotel, room, checkInDate, checkOutDate, rule);
+        if (rule == null) {
+            return new BookingQuote(room, checkInDate, checkOutDate, prices[0], prices[1], prices[2], prices[3], "No Discount", true);
+        }
+        quote = new BookingQuote(room, checkInDate, checkOutDate, prices[0], prices[1], prices[2], prices[3], discountCode, true);
+        quote.addMessage("The discount is successfully applied.");
+        quote.addMessage(rule.getSuccessMessage(guestName));
+        return quote;
+    }
+
+    /**
+     * Books a room for a request and adds the reservation to the hotel.
+     * If another booking takes a room picked by the assignment strategy first, another free room is picked.
+     * A room chosen in the request is never swapped for another one, so the booking fails if it is taken
+     * or no longer in the hotel. A booking quoted before a price change by hand, or so long ago that the
+     * hotel no longer keeps the rates it was quoted with, is priced again at the current prices.
+     *
+     * @param hotel The hotel where the room is booked.
+     * @param request The details of the booking.
+     * @return the result holding the new reservation, or the reasons why the booking failed.
+     */
+    public BookingResult book(Hotel hotel, BookingRequest request) {
+        ArrayList<String> messageList = new ArrayList<String>();
+        int checkInDate = request.getCheckInDate();
+        int checkOutDate = request.getCheckOutDate();
+        Reservation reservation;
+        BookingQuote quote;
+        Room room;
+
+        if (checkInDate < 1 || checkInDate >= checkOutDate) {
+            messageList.add("Check-in date should be less than the check-out date.");
+            return new BookingResult(null, messageList);
+        }
+
+        while (true) {
+            room = selectRoom(hotel, request);
+            if (room == null) {
+                messageList.add("No available rooms with the check-in date: " + checkInDate + " and check-out date: " + checkOutDate);
+                return new BookingResult(null, messageList);
+            }
+
+            quote = quote(hotel, request, room);
+            if (!quote.isValid()) {
+                return new BookingResult(null, quote.getMessageList());
+            }
+
+            reservation = new Reservation(request.getGuestName(), checkInDate, checkOutDate, room);
+            reservation.updatePricing(quote.getTotalPriceCents(), quote.getRoomPriceCents(), quote.getPriceVersion());
+            reservation.applyDiscountCode(quote.getDiscountStatus());
+            if (hotel.addReservation(reservation)) {
+                break;
+            }
+            if (request.getRoom() != null || !hotel.containsRoom(room)) {
+                messageList.add("The room " + room.getRoomName() + " is no longer available.");
+                return new BookingResult(null, messageList);
+            }
+        }
+        room.updateStatus("booked");
+        if (reservation.getPriceVersion() < hotel.getRateChangeVersion() || !reservation.hasNightRates()) {
+            repriceReservation(hotel, reservation);
+        }
+
+        messageList.add(request.getGuestName() + " successfully reserved a room.");
+        messageList.add("The room name is: " + room.getRoomName());
+        return new BookingResult(reservation, messageList);
+    }
+
+    /**
+     * Books many requests at once. The requests that let the service pick the room are sorted by
+     * check-in date and given rooms in one sweep, using a queue per room type that orders the rooms
+     * by the date they become free. Requests that do not fit the sweep, because they ask for a room
+     * or because every room in the queue is still busy, are then booked one by one so they can
+     * still use gaps between existing reservations.
+     *
+     * @param hotel The hotel where the rooms are booked.
+     * @param requestList The requests to be booked.
+     * @return the report of the created reservations and the rejected requests.
+     */
+    public ImportReport importReservations(Hotel hotel, List<BookingRequest> requestList) {
+        ImportReport report = new ImportReport();
+        ArrayList<BookingRequest> sweepList = new ArrayList<BookingRequest>();
+        ArrayList<BookingRequest> retryList = new ArrayList<BookingRequest>();
+        ArrayList<BookingRequest> batchRequestList = new ArrayList<BookingRequest>();
+        ArrayList<Reservation> batchList = new ArrayList<Reservation>();
+        EnumMap<RoomType, List<Room>> roomLists = new EnumMap<RoomType, List<Room>>(RoomType.class);
+        EnumMap<RoomType, PriorityQueue<Long>> freeRoomQueues = new EnumMap<RoomType, PriorityQueue<Long>>(RoomType.class);
+        RoomType[] allRoomTypes = RoomType.values();
+        Set<Reservation> rejectedSet;
+        PriorityQueue<Long> queue;
+        List<Room> roomList;
+        RoomType chosenType;
+        Reservation reservation;
+        BookingQuote quote;
+        BookingResult result;
+        Room room;
+        Long freeRoom;
+        int i;
+
+        for (BookingRequest request : requestList) {
+            if (request.getCheckInDate() < 1 || request.getCheckInDate() >= request.getCheckOutDate()) {
+                report.addRejected(request, "Check-in date should be less than the check-out date.");
+            } else if (request.getRoom() != null) {
+                retryList.add(request);
+            } else {
+                sweepList.add(request);
+            }
+        }
+        sweepList.sort(Comparator.comparingInt(BookingRequest::getCheckInDate));
+
+        /* Each queue entry packs the date a room becomes free and the index of the room. */
+        for (RoomType roomType : allRoomTypes) {
+            roomList = hotel.getRoomList(roomType);
+            queue = new PriorityQueue<Long>(Math.max(1, roomList.size()));
+            for (i = 0; i < roomList.size(); i++) {
+                queue.add(((long) roomList.get(i).getLastCheckOutDate() << 32) | i);
+            }
+            roomLists.put(roomType, roomList);
+            freeRoomQueues.put(roomType, queue);
+        }
+
+        for (BookingRequest request : sweepList) {
+            chosenType = null;
+            for (RoomType roomType : request.getRoomType() == null ? allRoomTypes : new RoomType[] {request.getRoomType()}) {
+                freeRoom = freeRoomQueues.get(roomType).peek();
+                if (chosenType == null && freeRoom != null && (int) (freeRoom >>> 32) <= request.getCheckInDate()) {
+                    chosenType = roomType;
+                }
+            }
+            if (chosenType == null) {
+                retryList.add(request);
+                continue;
+            }
+
+            queue = freeRoomQueues.get(chosenType);
+            freeRoom = queue.poll();
+            room = roomLists.get(chosenType).get((int) (freeRoom & 0xffffffffL));
+            quote = quote(hotel, request, room);
+            if (!quote.isValid()) {
+                queue.add(freeRoom);
+                report.addRejected(request, String.join(" ", quote.getMessageList()));
+                continue;
+            }
+
+            reservation = new Reservation(request.getGuestName(), request.getCheckInDate(), request.getCheckOutDate(), room);
+            reservation.updatePricing(quote.getTotalPriceCents(), quote.getRoomPriceCents(), quote.getPriceVersion());
+            reservation.applyDiscountCode(quote.getDiscountStatus());
+            batchList.add(reservation);
+            batchRequestList.add(request);
+            queue.add(((long) request.getCheckOutDate() << 32) | (freeRoom & 0xffffffffL));
+        }
+
+        rejectedSet = Collections.newSetFromMap(new IdentityHashMap<Reservation, Boolean>());
+        rejectedSet.addAll(hotel.addReservations(batchList));
+        for (i = 0; i < batchList.size(); i++) {
+            reservation = batchList.get(i);
+            if (!rejectedSet.contains(reservation)) {
+                reservation.getRoom().updateStatus("booked");
+                if (reservation.getPriceVersion() < hotel.getRateChangeVersion() || !reservation.hasNightRates()) {
+                    repriceReservation(hotel, reservation);
+                }
+                report.addAccepted(reservation);
+            } else {
+                retryList.add(batchRequestList.get(i));
+            }
+        }
+
+        for (BookingRequest request : retryList) {
+            result = book(hotel, request);
+            if (result.isSuccessful()) {
+                report.addAccepted(result.getReservation());
+            } else {
+                report.addRejected(request, String.join(" ", result.getMessageList()));
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Reads booking requests for importReservations from a text file. Each line holds the guest name,
+     * the check-in date, the check-out date, and optionally the room type and a discount code, separated
+     * by commas. The room type is the name of a RoomType or its display name; an empty one means any type.
+     * Empty lines and lines starting with # are skipped.
+     *
+     * @param file The file to read.
+     * @return the requests in the order of the file.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a line is not a valid request.
+     */
+    public static ArrayList<BookingRequest> readRequests(File file) throws IOException {
+        ArrayList<BookingRequest> requestList = new ArrayList<BookingRequest>();
+        List<String> lineList = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        RoomType roomType;
+        String[] fields;
+        String line;
+        int i;
+
+        for (i = 0; i < lineList.size(); i++) {
+            line = lineList.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            fields = line.split(",", -1);
+            if (fields.length < 3 || fields.length > 5 || fields[0].trim().isEmpty()) {
+                throw new IllegalArgumentException("Line " + (i + 1) + " of " + file.getName() + " should be: guest name, check-in date, check-out date[, room type[, discount code]]");
+            }
+            roomType = null;
+            if (fields.length > 3 && !fields[3].trim().isEmpty()) {
+                roomType = RoomType.fromDisplayName(fields[3].trim());
+                if (roomType == null) {
+                    try {
+                        roomType = RoomType.valueOf(fields[3].trim().toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Line " + (i + 1) + " of " + file.getName() + " has an unknown room type: " + fields[3].trim());
+                    }
+                }
+            }
+            try {
+                requestList.add(new BookingRequest(fields[0].trim(), Integer.parseInt(fields[1].trim()), Integer.parseInt(fields[2].trim()), roomType, null,
+                        fields.length > 4 && !fields[4].trim().isEmpty() ? fields[4].trim() : null));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + (i + 1) + " of " + file.getName() + " has an invalid date.");
+            }
+        }
+        return requestList;
+    }
+
+    /**
+     * Changes the base price of every room in a hotel and reprices the unpaid reservations that check in
+     * on or after a date. Paid reservations and earlier stays keep their contracted price.
+     * No lock is held while repricing, so bookings go on at the same time.
+     *
+     * @param hotel The hotel whose prices change.
+     * @param newPrice The new base price of the rooms.
+     * @param fromDate The first check-in date to reprice.
+     * @return the number of reservations whose price changed.
+     */
+    public int updateRoomPrice(Hotel hotel, double newPrice, int fromDate) {
+        hotel.updateRoomPrices(newPrice);
+        return repriceReservations(hotel, fromDate, null);
+    }
+
+    /**
+     * Sets the price rate of some nights of a hotel and reprices the unpaid reservations that check in
+     * on or after a date and cover at least one of the nights. Only the rooms' stays around the changed
+     * nights are visited, and every other reservation keeps its contracted price.
+     *
+     * @param hotel The hotel whose rates change.
+     * @param dates The nights to modify.
+     * @param rate The new price rate of the nights.
+     * @param fromDate The first check-in date to reprice.
+     * @return the number of reservations whose price changed.
+     */
+    public int updateNightRates(Hotel hotel, int[] dates, double rate, int fromDate) {
+        int[] sortedDates = dates.clone();
+
+        if (sortedDates.length == 0) {
+            return 0;
+        }
+        Arrays.sort(sortedDates);
+        hotel.updateNightRates(sortedDates, rate);
+        return repriceReservations(hotel, fromDate, sortedDates);
+    }
+
+    /**
+     * Prices a reservation again with the current prices of its hotel and keeps its discount code.
+     * A reservation whose code is no longer accepted keeps its price, and so does a paid reservation,
+     * even one marked paid while it is being priced.
+     *
+     * @param hotel The hotel of the reservation.
+     * @param reservation The reservation to reprice.
+     * @return true if the price of the reservation changed.
+     */
+    public boolean repriceReservation(Hotel hotel, Reservation reservation) {
+        DiscountRule rule = null;
+        long[] prices;
+        boolean changed;
+
+        if (!reservation.getDiscountStatus().equals("No Discount")) {
+            rule = discountRegistry.getRule(reservation.getDiscountStatus());
+            if (rule == null) {
+                return false;
+            }
+        }
+        do {
+            if (reservation.isPaid()) {
+                return false;
+            }
+            prices = getPrices(hotel, reservation.getRoom(), reservation.getCheckInDate(), reservation.getCheckOutDate(), rule);
+            changed = prices[1] != reservation.getTotalPriceCents();
+        } while (!hotel.updateReservationPricing(reservation, prices[1], prices[2], prices[3]));
+        return changed;
+    }
+
+    /**
+     * Reprices the unpaid reservations checking in on or after a date, either all of them or only
+     * the ones covering one of the given nights.
+     */
+    private int repriceReservations(Hotel hotel, int fromDate, int[] sortedDates) {
+        Collection<Reservation> stayList;
+        int repricedCount = 0;
+        int fromNight, toNight;
+
+        for (Room room : hotel.getRoomList()) {
+            if (sortedDates == null) {
+                stayList = room.getReservationsFrom(fromDate);
+            } else {
+                fromNight = Math.max(fromDate, sortedDates[0]);
+                toNight = sortedDates[sortedDates.length - 1] + 1;
+                if (fromNight >= toNight) {
+                    continue;
+                }
+                stayList = room.getOverlappingReservations(fromNight, toNight);
+            }
+            for (Reservation reservation : stayList) {
+                if (reservation.getCheckInDate() >= fromDate && !reservation.isPaid()
+                        && (sortedDates == null || coversAny(reservation, sortedDates))
+                        && repriceReservation(hotel, reservation)) {
+                    repricedCount++;
+                }
+            }
+        }
+        return repricedCount;
+    }
+
+    /**
+     * Checks if a stay covers at least one of the given nights.
+     */
+    private static boolean coversAny(Reservation reservation, int[] sortedDates) {
+        int index = Arrays.binarySearch(sortedDates, reservation.getCheckInDate());
+
+        if (index >= 0) {
+            return true;
+        }
+        index = -index - 1;
+        return index < sortedDates.length && sortedDates[index] < reservation.getCheckOutDate();
+    }
+
+    /**
+     * Searches every hotel for a free room for the dates and room type of a request.
+     * The hotels are checked in parallel on the common fork-join pool, so the search takes about
+     * as long as the slowest hotel instead of the sum over all hotels. When the request has no room type,
+     * the cheapest free type of each hotel is used. The hotels that are not loaded are read for the search
+     * without being held loaded, and the results only keep the names of the hotels.
+     *
+     * @param model The model whose hotels are searched.
+     * @param request The details of the booking. The room of the request is ignored.
+     * @return the hotels with a free room, from the cheapest stay to the most expensive.
+     */
+    public ArrayList<HotelSearchResult> searchHotels(HotelReservationModel model, BookingRequest request) {
+        ArrayList<HotelSearchResult> resultList = model.scanHotels(hotel -> searchHotel(hotel, request));
+
+        resultList.sort(Comparator.comparingLong(HotelSearchResult::getTotalPriceCents)
+                .thenComparing(Comparator.comparingInt(HotelSearchResult::getAvailableRoomCount).reversed())
+                .thenComparing(HotelSearchResult::getHotelName));
+        return resultList;
+    }
+
+    /**
+     * Finds the cheapest free room of a hotel for a search.
+     *
+     * @return the result of the hotel, or null if it has no free room.
+     */
+    private HotelSearchResult searchHotel(Hotel hotel, BookingRequest request) {
+        int checkInDate = request.getCheckInDate();
+        int checkOutDate = request.getCheckOutDate();
+        HotelSearchResult bestResult = null;
+        BookingQuote quote;
+        Room room;
+
+        for (RoomType roomType : RoomType.values()) {
+            if (request.getRoomType() != null && request.getRoomType() != roomType) {
+                continue;
+            }
+            room = assignmentStrategy.selectRoom(hotel, roomType, checkInDate, checkOutDate);
+            if (room != null) {
+                quote = quote(hotel, request, room);
+                if (bestResult == null || quote.getTotalPriceCents() < bestResult.getTotalPriceCents()) {
+                    bestResult = new HotelSearchResult(hotel.getHotelName(), quote, hotel.getAvailableRooms(roomType, checkInDate, checkOutDate).size());
+                }
+            }
+        }
+        return bestResult;
+    }
+
+    /**
+     * Gets the base price and the discounted price of a stay from the quote cache, computing and caching them on a miss.
+     *
+     * The price state of the hotel is read once, so the key and the prices describe the same price version
+     * even when the rates change meanwhile.
+     *
+     * @return the base price and the total price in cents, followed by the room price and the price version they came from.
+     */
+    private long[] getPrices(Hotel hotel, Room room, int checkInDate, int checkOutDate, DiscountRule rule) {
+        PriceState priceState = hotel.getPriceState();
+        QuoteCache.QuoteKey key = new QuoteCache.QuoteKey(hotel, priceState, room, checkInDate, checkOutDate, rule == null ? null : rule.getCode());
+        long[] prices = quoteCache.get(key);
+        long basePriceCents, totalPriceCents;
+
+        if (prices == null) {
+            basePriceCents = priceState.computeStayPriceCents(room, checkInDate, checkOutDate);
+            totalPriceCents = basePriceCents;
+            if (rule != null) {
+                totalPriceCents = rule.apply(basePriceCents, priceState.computeNightPriceCents(room, checkInDate));
+            }
+            quoteCache.put(key, basePriceCents, totalPriceCents);
+        } else {
+            basePriceCents = prices[0];
+            totalPriceCents = prices[1];
+        }
+        return new long[] {basePriceCents, totalPriceCents, key.getRoomPriceCents(), key.getPriceVersion()};
+    }
+}
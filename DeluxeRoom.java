@@ -1,14 +1,21 @@
-/**
- * This class extends the Room class. It has a new room price with an additional 20% amount.
- * 
- */
-public class DeluxeRoom extends Room{
-    public DeluxeRoom(String roomName) {
-        super(roomName);
-    }
-
-    @Override
-    public double getPrice() {
-        return (super.price * 0.20) + super.price;
-    }
-}
+/**
+ * This class extends the Room class. It has a new room price with an additional 20% amount.
+ * 
+ */
+public class DeluxeRoom extends Room{
+    public DeluxeRoom(String roomName) {
+        super(roomName);
+    }
+
+    @Override
+    public long getPriceCents() {
+        long basePriceCents = super.priceCents;
+
+        return basePriceCents + Money.multiply(basePriceCents, 0.20);
+    }
+
+    @Override
+    public RoomType getRoomType() {
+        return RoomType.DELUXE;
+    }
+}
@@ -0,0 +1,185 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Properties;
+
+/**
+ * The DiscountRegistry class holds the discount codes the hotels accept.
+ * The codes are read from a properties file, so a promotion can be added without changing the code.
+ * Each code has these keys, of which only the type is required:
+ * <pre>
+ * CODE.type=percent_off | free_first_night
+ * CODE.rate=0.10
+ * CODE.minNights=5
+ * CODE.nights=15,30
+ * CODE.successMessage={guest} received 10% discount to the overall price of the reservation.
+ * CODE.rejectMessage=This code is only applicable to ...
+ * </pre>
+ */
+public class DiscountRegistry {
+
+    /**
+     * The file the codes are read from when the system starts.
+     */
+    public static final String CONFIG_FILE = "discounts.properties";
+
+    private DiscountRule[] rules;
+    private HashMap<String, DiscountRule> ruleMap = new HashMap<String, DiscountRule>();
+
+    /**
+     * Constructs a new DiscountRegistry with the given rules.
+     *
+     * @param ruleList the discount rules
+     */
+    public DiscountRegistry(ArrayList<DiscountRule> ruleList) {
+        this.rules = ruleList.toArray(new DiscountRule[0]);
+        for (DiscountRule rule : rules) {
+            ruleMap.put(rule.getCode(), rule);
+        }
+    }
+
+    /**
+     * Creates a registry with the codes that the hotels have always accepted.
+     *
+     * @return the registry of the built-in codes
+     */
+    public static DiscountRegistry createDefault() {
+        ArrayList<DiscountRule> ruleList = new ArrayList<DiscountRule>();
+
+        ruleList.add(new DiscountRule("I_WORK_HERE", DiscountRule.Kind.PERCENT_OFF, 0.10, 0, new int[0],
+                "{guest} received 10% discount to the overall price of the reservation.", null));
+        ruleList.add(new DiscountRule("STAY4_GET1", DiscountRule.Kind.FREE_FIRST_NIGHT, 0, 5, new int[0],
+                "The first day of {guest}'s reservation is given for free.",
+                "This code is only applicable to the guests who have a reservation with 5 or more days."));
+        ruleList.add(new DiscountRule("PAYDAY", DiscountRule.Kind.PERCENT_OFF, 0.07, 0, new int[] {15, 30},
+                "{guest} received 7% discount to the overall price of the reservation.",
+                "This code is only applicable to the guests who have a reservation that covers either day 15 or 30 (but not as a checkout)."));
+        return new DiscountRegistry(ruleList);
+    }
+
+    /**
+     * Loads the codes from a properties file, or uses the built-in codes if the file does not exist.
+     *
+     * @param fileName the name of the properties file
+     * @return the registry of the loaded codes
+     * @throws IllegalArgumentException if the file cannot be read or describes an invalid code
+     */
+    public static DiscountRegistry load(String fileName) {
+        File file = new File(fileName);
+        Properties properties = new Properties();
+
+        if (!file.isFile()) {
+            return createDefault();
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read the discount codes from " + fileName, e);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Creates a registry from the keys of a properties object.
+     *
+     * @param properties the description of the codes
+     * @return the registry of the codes
+     * @throws IllegalArgumentException if a code is invalid
+     */
+    public static DiscountRegistry fromProperties(Properties properties) {
+        ArrayList<DiscountRule> ruleList = new ArrayList<DiscountRule>();
+        ArrayList<String> codeList = new ArrayList<String>();
+        String[] nightParts;
+        int[] nights;
+        String code, type;
+        int i, j;
+
+        for (String key : properties.stringPropertyNames()) {
+            if (key.endsWith(".type")) {
+                codeList.add(key.substring(0, key.length() - ".type".length()));
+            }
+        }
+        codeList.sort(null);
+
+        for (i = 0; i < codeList.size(); i++) {
+            code = codeList.get(i);
+            type = properties.getProperty(code + ".type").trim();
+            nightParts = properties.getProperty(code + ".nights", "").split(",");
+            nights = new int[0];
+            try {
+                if (!nightParts[0].trim().isEmpty()) {
+                    nights = new int[nightParts.length];
+                    for (j = 0; j < nightParts.length; j++) {
+                        nights[j] = Integer.parseInt(nightParts[j].trim());
+                    }
+                }
+                ruleList.add(new DiscountRule(code, parseKind(code, type),
+                        Double.parseDouble(properties.getProperty(code + ".rate", "0").trim()),
+                        Integer.parseInt(properties.getProperty(code + ".minNights", "0").trim()),
+                        nights,
+                        properties.getProperty(code + ".successMessage", "The discount code " + code + " is applied."),
+                        properties.getProperty(code + ".rejectMessage")));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number in the discount code " + code, e);
+            }
+        }
+        return new DiscountRegistry(ruleList);
+    }
+
+    /**
+     * Finds the rule of a code.
+     *
+     * @param code the code the guest entered
+     * @return the rule of the code, or null if the code does not exist
+     */
+    public DiscountRule getRule(String code) {
+        return ruleMap.get(code);
+    }
+
+    /**
+     * Gets every rule in the registry.
+     *
+     * @return the list of rules
+     */
+    public ArrayList<DiscountRule> getRuleList() {
+        ArrayList<DiscountRule> ruleList = new ArrayList<DiscountRule>();
+
+        for (DiscountRule rule : rules) {
+            ruleList.add(rule);
+        }
+        return ruleList;
+    }
+
+    /**
+     * Finds every code a stay can use in one pass over the rules.
+     * The bitmap of the stay is built once and shared by all of the checks.
+     *
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @return the rules the stay can use
+     */
+    public ArrayList<DiscountRule> findApplicable(int checkInDate, int checkOutDate) {
+        ArrayList<DiscountRule> applicableList = new ArrayList<DiscountRule>();
+        long nightMask = Hotel.getNightMask(checkInDate, checkOutDate);
+
+        for (DiscountRule rule : rules) {
+            if (rule.isApplicable(checkInDate, checkOutDate, nightMask)) {
+                applicableList.add(rule);
+            }
+        }
+        return applicableList;
+    }
+
+    private static DiscountRule.Kind parseKind(String code, String type) {
+        if (type.equalsIgnoreCase("percent_off")) {
+            return DiscountRule.Kind.PERCENT_OFF;
+        }
+        if (type.equalsIgnoreCase("free_first_night")) {
+            return DiscountRule.Kind.FREE_FIRST_NIGHT;
+        }
+        throw new IllegalArgumentException("Unknown type " + type + " of the discount code " + code);
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * The DiscountRule class describes one discount code: who may use it and how it changes the price of a stay.
+ * The eligibility test is prepared when the rule is created. The nights the stay must cover are kept as a
+ * bitmap, so checking a stay is a comparison and one AND operation for most rules.
+ */
+public class DiscountRule {
+
+    /**
+     * The ways a discount can change the price of a stay.
+     */
+    public enum Kind {
+        /** Takes a share of the whole price off. */
+        PERCENT_OFF,
+        /** Makes the first night of the stay free. */
+        FREE_FIRST_NIGHT
+    }
+
+    private String code;
+    private Kind kind;
+    private double rate;
+    private int minNights;
+    private int[] coveredNights;
+    private long coveredNightMask;
+    private String successMessage;
+    private String rejectMessage;
+
+    /**
+     * Constructs a new DiscountRule.
+     *
+     * @param code is the code the guest enters.
+     * @param kind is the way the discount changes the price.
+     * @param rate is the share of the price taken off, used by PERCENT_OFF rules.
+     * @param minNights is the smallest number of nights of a stay that can use the code.
+     * @param coveredNights are the nights of which the stay must cover at least one, or an empty array for any stay.
+     * @param successMessage is shown when the code is applied. "{guest}" is replaced by the guest name.
+     * @param rejectMessage is shown when the stay cannot use the code, or null for no explanation.
+     */
+    public DiscountRule(String code, Kind kind, double rate, int minNights, int[] coveredNights, String successMessage, String rejectMessage) {
+        this.code = code;
+        this.kind = kind;
+        this.rate = rate;
+        this.minNights = minNights;
+        this.coveredNights = coveredNights.clone();
+        this.successMessage = successMessage;
+        this.rejectMessage = rejectMessage;
+        for (int night : coveredNights) {
+            if (night >= 0 && night < RoomPool.NIGHTS) {
+                coveredNightMask |= 1L << night;
+            }
+        }
+    }
+
+    /**
+     * Gets the code the guest enters.
+     *
+     * @return the discount code
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the way the discount changes the price.
+     *
+     * @return the kind of the discount
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the share of the price taken off by a PERCENT_OFF rule.
+     *
+     * @return the discount rate
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * Gets the text shown next to the code in the cost breakdown, such as "PAYDAY (7% OFF)".
+     *
+     * @return the display label of the code
+     */
+    public String getDisplayLabel() {
+        if (kind == Kind.PERCENT_OFF) {
+            return code + " (" + Math.round(rate * 100) + "% OFF)";
+        }
+        return code;
+    }
+
+    /**
+     * Gets the message shown when the code is applied.
+     *
+     * @param guestName the name of the guest
+     * @return the success message
+     */
+    public String getSuccessMessage(String guestName) {
+        return successMessage.replace("{guest}", guestName == null ? "The guest" : guestName);
+    }
+
+    /**
+     * Gets the message shown when a stay cannot use the code.
+     *
+     * @return the reason, or null if the rule has none
+     */
+    public String getRejectMessage() {
+        return rejectMessage;
+    }
+
+    /**
+     * Checks if a stay can use the code.
+     *
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @param nightMask the bitmap of the nights of the stay, from Hotel.getNightMask
+     * @return true if the stay can use the code, false otherwise
+     */
+    public boolean isApplicable(int checkInDate, int checkOutDate, long nightMask) {
+        if (checkOutDate - checkInDate < minNights) {
+            return false;
+        }
+        if (coveredNights.length == 0 || (nightMask & coveredNightMask) != 0) {
+            return true;
+        }
+        for (int night : coveredNights) {
+            if (night >= RoomPool.NIGHTS && checkInDate <= night && night < checkOutDate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the price of a stay after the discount. For a percentage, the remaining share of the
+     * price is rounded to the cent by Money.multiply.
+     *
+     * @param basePriceCents the price of the stay without the discount, in cents
+     * @param firstNightPriceCents the price of the first night of the stay, in cents
+     * @return the discounted price in cents
+     */
+    public long apply(long basePriceCents, long firstNightPriceCents) {
+        if (kind == Kind.FREE_FIRST_NIGHT) {
+            return basePriceCents - firstNightPriceCents;
+        }
+        return Money.multiply(basePriceCents, 1.0 - rate);
+    }
+}
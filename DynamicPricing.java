@@ -0,0 +1,206 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Properties;
+
+/**
+ * The DynamicPricing class holds the occupancy tiers that move the nightly rates of a hotel.
+ * For every room type, a night whose share of booked rooms reaches a tier is priced with the
+ * multiplier of the highest tier reached, on top of the rate set for the night by hand.
+ * A curve is given as many small tiers. The tiers are read from a properties file, one key per room type:
+ * <pre>
+ * standard.tiers=0.50:1.10, 0.75:1.25, 0.90:1.50
+ * deluxe.tiers=0.60:1.15, 0.85:1.35
+ * executive.tiers=
+ * </pre>
+ * The occupancy of a tier is above 0 and at most 1. A room type without tiers keeps a multiplier of 1.0.
+ */
+public class DynamicPricing {
+
+    /**
+     * The file the tiers are read from when dynamic pricing is turned on.
+     */
+    public static final String CONFIG_FILE = "pricing.properties";
+
+    private EnumMap<RoomType, double[]> thresholdMap = new EnumMap<RoomType, double[]>(RoomType.class);
+    private EnumMap<RoomType, double[]> multiplierMap = new EnumMap<RoomType, double[]>(RoomType.class);
+
+    /**
+     * Constructs a new DynamicPricing without any tier, so every multiplier is 1.0.
+     */
+    public DynamicPricing() {
+        for (RoomType roomType : RoomType.values()) {
+            thresholdMap.put(roomType, new double[0]);
+            multiplierMap.put(roomType, new double[0]);
+        }
+    }
+
+    /**
+     * Creates the tiers the hotels use when no file is given.
+     *
+     * @return the default tiers
+     */
+    public static DynamicPricing createDefault() {
+        DynamicPricing pricing = new DynamicPricing();
+
+        pricing.setTiers(RoomType.STANDARD, new double[] {0.50, 0.75, 0.90}, new double[] {1.10, 1.25, 1.50});
+        pricing.setTiers(RoomType.DELUXE, new double[] {0.50, 0.75, 0.90}, new double[] {1.10, 1.25, 1.50});
+        pricing.setTiers(RoomType.EXECUTIVE, new double[] {0.50, 0.75, 0.90}, new double[] {1.10, 1.25, 1.50});
+        return pricing;
+    }
+
+    /**
+     * Loads the tiers from a properties file, or uses the default tiers if the file does not exist.
+     *
+     * @param fileName the name of the properties file
+     * @return the loaded tiers
+     * @throws IllegalArgumentException if the file cannot be read or describes an invalid tier
+     */
+    public static DynamicPricing load(String fileName) {
+        File file = new File(fileName);
+        Properties properties = new Properties();
+
+        if (!file.isFile()) {
+            return createDefault();
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read the pricing tiers from " + fileName, e);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Creates the tiers from the keys of a properties object.
+     *
+     * @param properties the description of the tiers
+     * @return the tiers
+     * @throws IllegalArgumentException if a tier is invalid
+     */
+    public static DynamicPricing fromProperties(Properties properties) {
+        DynamicPricing pricing = new DynamicPricing();
+        String[] tierParts, pair;
+        double[] thresholds, multipliers;
+        String key, value;
+        int i;
+
+        for (RoomType roomType : RoomType.values()) {
+            key = roomType.name().toLowerCase() + ".tiers";
+            value = properties.getProperty(key, "").trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            tierParts = value.split(",");
+            thresholds = new double[tierParts.length];
+            multipliers = new double[tierParts.length];
+            try {
+                for (i = 0; i < tierParts.length; i++) {
+                    pair = tierParts[i].split(":");
+                    if (pair.length != 2) {
+                        throw new IllegalArgumentException("The tier " + tierParts[i].trim() + " of " + key + " is not occupancy:multiplier");
+                    }
+                    thresholds[i] = Double.parseDouble(pair[0].trim());
+                    multipliers[i] = Double.parseDouble(pair[1].trim());
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number in " + key, e);
+            }
+            pricing.setTiers(roomType, thresholds, multipliers);
+        }
+        return pricing;
+    }
+
+    /**
+     * Creates tiers from their thresholds and multipliers.
+     *
+     * @param thresholds the thresholds of the tiers, indexed by the ordinal of the room type
+     * @param multipliers the multipliers of the tiers, in the order of the thresholds
+     * @return the tiers
+     * @throws IllegalArgumentException if a tier is invalid
+     */
+    public static DynamicPricing fromTiers(double[][] thresholds, double[][] multipliers) {
+        DynamicPricing pricing = new DynamicPricing();
+
+        for (RoomType roomType : RoomType.values()) {
+            if (thresholds[roomType.ordinal()].length != multipliers[roomType.ordinal()].length) {
+                throw new IllegalArgumentException("The " + roomType + " rooms have " + thresholds[roomType.ordinal()].length
+                        + " thresholds but " + multipliers[roomType.ordinal()].length + " multipliers");
+            }
+            pricing.setTiers(roomType, thresholds[roomType.ordinal()], multipliers[roomType.ordinal()]);
+        }
+        return pricing;
+    }
+
+    /**
+     * Gets the multiplier of a night of a room type from the number of its rooms booked that night.
+     *
+     * @param roomType the type of the rooms
+     * @param bookedRooms the number of rooms of the type booked on the night
+     * @param totalRooms the number of rooms of the type in the hotel
+     * @return the multiplier of the highest tier reached, or 1.0 if none is reached
+     */
+    public double getMultiplier(RoomType roomType, int bookedRooms, int totalRooms) {
+        double[] thresholds = thresholdMap.get(roomType);
+        double occupancy;
+        int tier;
+
+        if (totalRooms <= 0 || thresholds.length == 0) {
+            return 1.0;
+        }
+        occupancy = (double) bookedRooms / totalRooms;
+        for (tier = thresholds.length - 1; tier >= 0; tier--) {
+            if (occupancy >= thresholds[tier]) {
+                return multiplierMap.get(roomType)[tier];
+            }
+        }
+        return 1.0;
+    }
+
+    /**
+     * Gets the occupancy thresholds of the tiers of a room type, from the lowest to the highest.
+     *
+     * @param roomType the type of the rooms
+     * @return the shares of booked rooms where the tiers start
+     */
+    public double[] getThresholds(RoomType roomType) {
+        return thresholdMap.get(roomType).clone();
+    }
+
+    /**
+     * Gets the multipliers of the tiers of a room type, in the order of the thresholds.
+     *
+     * @param roomType the type of the rooms
+     * @return the multipliers of the tiers
+     */
+    public double[] getMultipliers(RoomType roomType) {
+        return multiplierMap.get(roomType).clone();
+    }
+
+    /**
+     * Sets the tiers of a room type, sorted by threshold.
+     */
+    private void setTiers(RoomType roomType, double[] thresholds, double[] multipliers) {
+        Integer[] order = new Integer[thresholds.length];
+        double[] sortedThresholds = new double[thresholds.length];
+        double[] sortedMultipliers = new double[thresholds.length];
+        int i;
+
+        for (i = 0; i < thresholds.length; i++) {
+            if (thresholds[i] <= 0 || thresholds[i] > 1 || multipliers[i] <= 0) {
+                throw new IllegalArgumentException("Invalid tier " + thresholds[i] + ":" + multipliers[i] + " of the " + roomType + " rooms");
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(thresholds[a], thresholds[b]));
+        for (i = 0; i < order.length; i++) {
+            sortedThresholds[i] = thresholds[order[i]];
+            sortedMultipliers[i] = multipliers[order[i]];
+        }
+        thresholdMap.put(roomType, sortedThresholds);
+        multiplierMap.put(roomType, sortedMultipliers);
+    }
+}
@@ -0,0 +1,192 @@
+import java.util.Arrays;
+import java.util.EnumMap;
+
+/**
+ * The DynamicRateTable class keeps the nightly rates of each room type of a hotel when its prices follow occupancy.
+ * It counts the booked rooms of every type on every night. When a booking or a cancellation moves a night
+ * into another tier, only the rates of the nights of that stay are computed again, and the rate calendar
+ * of the type is patched from the first changed night on, so quotes keep reading running sums in O(1).
+ * The table is not thread-safe; the hotel changes it while holding its commit lock.
+ */
+public class DynamicRateTable {
+
+    private DynamicPricing pricing;
+    private RateCalendar baseCalendar;
+    private EnumMap<RoomType, int[]> bookedCounts = new EnumMap<RoomType, int[]>(RoomType.class);
+    private EnumMap<RoomType, Integer> roomCounts = new EnumMap<RoomType, Integer>(RoomType.class);
+    private EnumMap<RoomType, RateCalendar> calendars = new EnumMap<RoomType, RateCalendar>(RoomType.class);
+
+    /**
+     * Constructs a new DynamicRateTable with no booked rooms.
+     *
+     * @param pricing the occupancy tiers
+     * @param baseCalendar the rates set by hand, which the multipliers of the tiers are applied to
+     */
+    public DynamicRateTable(DynamicPricing pricing, RateCalendar baseCalendar) {
+        this.pricing = pricing;
+        this.baseCalendar = baseCalendar;
+        for (RoomType roomType : RoomType.values()) {
+            bookedCounts.put(roomType, new int[0]);
+            roomCounts.put(roomType, 0);
+            calendars.put(roomType, baseCalendar);
+        }
+    }
+
+    /**
+     * Gets the occupancy tiers of the table.
+     *
+     * @return the occupancy tiers
+     */
+    public DynamicPricing getPricing() {
+        return pricing;
+    }
+
+    /**
+     * Gets the current rate calendar of a room type, with the multipliers of the tiers applied.
+     *
+     * @param roomType the type of the rooms
+     * @return the rate calendar of the type
+     */
+    public RateCalendar getRateCalendar(RoomType roomType) {
+        return calendars.get(roomType);
+    }
+
+    /**
+     * Gets the number of rooms of a type booked on a night.
+     *
+     * @param roomType the type of the rooms
+     * @param date the night to check
+     * @return the number of booked rooms
+     */
+    public int getBookedCount(RoomType roomType, int date) {
+        int[] counts = bookedCounts.get(roomType);
+
+        if (date < 0 || date >= counts.length) {
+            return 0;
+        }
+        return counts[date];
+    }
+
+    /**
+     * Adds a stay to the counts without touching the rates. Used to fill the table before calling rebuild.
+     *
+     * @param roomType the type of the booked room
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     */
+    public void countStay(RoomType roomType, int checkInDate, int checkOutDate) {
+        int[] counts = growCounts(roomType, checkOutDate);
+        int night;
+
+        for (night = Math.max(checkInDate, 0); night < checkOutDate; night++) {
+            counts[night]++;
+        }
+    }
+
+    /**
+     * Adds or removes a stay and patches the rates of the nights whose tier changed.
+     *
+     * @param roomType the type of the booked room
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @param delta 1 for a new booking, -1 for a cancellation
+     * @return true if a rate changed
+     */
+    public boolean addStay(RoomType roomType, int checkInDate, int checkOutDate, int delta) {
+        int[] counts = growCounts(roomType, checkOutDate);
+        int roomCount = roomCounts.get(roomType);
+        RateCalendar calendar = calendars.get(roomType);
+        int from = Math.max(checkInDate, 0);
+        int firstChanged = -1, lastChanged = -1;
+        long[] newRates;
+        int night;
+
+        if (from >= checkOutDate) {
+            return false;
+        }
+        newRates = new long[checkOutDate - from];
+        for (night = from; night < checkOutDate; night++) {
+            counts[night] += delta;
+            newRates[night - from] = Money.multiplyBasisPoints(baseCalendar.getRateBasisPoints(night),
+                    Money.toBasisPoints(pricing.getMultiplier(roomType, counts[night], roomCount)));
+            if (newRates[night - from] != calendar.getRateBasisPoints(night)) {
+                if (firstChanged < 0) {
+                    firstChanged = night;
+                }
+                lastChanged = night;
+            }
+        }
+        if (firstChanged < 0) {
+            return false;
+        }
+        calendars.put(roomType, calendar.withRateRange(firstChanged,
+                Arrays.copyOfRange(newRates, firstChanged - from, lastChanged - from + 1)));
+        return true;
+    }
+
+    /**
+     * Sets the number of rooms of a type and computes the rates of the type again.
+     *
+     * @param roomType the type of the rooms
+     * @param roomCount the number of rooms of the type in the hotel
+     * @return true if a rate changed
+     */
+    public boolean updateRoomCount(RoomType roomType, int roomCount) {
+        if (roomCounts.get(roomType) == roomCount) {
+            return false;
+        }
+        roomCounts.put(roomType, roomCount);
+        return rebuild(roomType);
+    }
+
+    /**
+     * Sets the rates set by hand and computes the rates of every type again.
+     *
+     * @param baseCalendar the new rates set by hand
+     */
+    public void updateBaseCalendar(RateCalendar baseCalendar) {
+        this.baseCalendar = baseCalendar;
+        rebuild();
+    }
+
+    /**
+     * Computes the rates of every type again from the counts.
+     */
+    public void rebuild() {
+        for (RoomType roomType : RoomType.values()) {
+            rebuild(roomType);
+        }
+    }
+
+    /**
+     * Computes the rates of a type again from the counts.
+     */
+    private boolean rebuild(RoomType roomType) {
+        int[] counts = bookedCounts.get(roomType);
+        int roomCount = roomCounts.get(roomType);
+        RateCalendar oldCalendar = calendars.get(roomType);
+        RateCalendar newCalendar;
+        long[] factors = new long[counts.length];
+        int night;
+
+        for (night = 0; night < counts.length; night++) {
+            factors[night] = Money.toBasisPoints(pricing.getMultiplier(roomType, counts[night], roomCount));
+        }
+        newCalendar = baseCalendar.withFactors(factors);
+        calendars.put(roomType, newCalendar);
+        return !Arrays.equals(oldCalendar.toBasisPointArray(), newCalendar.toBasisPointArray());
+    }
+
+    /**
+     * Makes the counts of a type long enough to hold a night before the given date.
+     */
+    private int[] growCounts(RoomType roomType, int toDate) {
+        int[] counts = bookedCounts.get(roomType);
+
+        if (toDate > counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(toDate, counts.length * 2));
+            bookedCounts.put(roomType, counts);
+        }
+        return counts;
+    }
+}
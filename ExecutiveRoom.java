@@ -1,14 +1,21 @@
-/**
- * This class extends the Room class. It has a new room price with an additional 35% amount.
- * 
- */
-public class ExecutiveRoom extends Room{
-    public ExecutiveRoom(String roomName) {
-        super(roomName);
-    }
-
-    @Override
-    public double getPrice() {
-        return (super.price * 0.35) + super.price;
-    }
-}
\ No newline at end of file
+/**
+ * This class extends the Room class. It has a new room price with an additional 35% amount.
+ * 
+ */
+public class ExecutiveRoom extends Room{
+    public ExecutiveRoom(String roomName) {
+        super(roomName);
+    }
+
+    @Override
+    public long getPriceCents() {
+        long basePriceCents = super.priceCents;
+
+        return basePriceCents + Money.multiply(basePriceCents, 0.35);
+    }
+
+    @Override
+    public RoomType getRoomType() {
+        return RoomType.EXECUTIVE;
+    }
+}
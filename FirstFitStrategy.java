@@ -0,0 +1,13 @@
+/**
+ * The FirstFitStrategy class assigns the first free room in the room list.
+ * This is the default strategy of the booking service.
+ */
+public class FirstFitStrategy implements RoomAssignmentStrategy {
+    @Override
+    public Room selectRoom(Hotel hotel, RoomType roomType, int checkInDate, int checkOutDate) {
+        if (roomType == null) {
+            return hotel.findAvailableRoom(checkInDate, checkOutDate);
+        }
+        return hotel.findAvailableRoom(roomType, checkInDate, checkOutDate);
+    }
+}
@@ -0,0 +1,233 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * The GuestIndex class finds entries by guest name without scanning every reservation.
+ * Names are normalized to lower case with single spaces, and every word of a name starts a key,
+ * so "gar" finds both "Garcia, Ana" and "Maria Garcia". A prefix search is a range of a sorted map,
+ * so it costs O(log n) plus the number of matches.
+ *
+ * @param <T> the type of the entries kept for each guest
+ */
+public class GuestIndex<T> {
+
+    private TreeMap<String, ArrayList<T>> entryMap = new TreeMap<String, ArrayList<T>>();
+    private int size = 0;
+
+    /**
+     * Converts a guest name to the form used by the index.
+     *
+     * @param guestName the guest name
+     * @return the name in lower case, without punctuation, and with single spaces between words
+     */
+    public static String normalize(String guestName) {
+        StringBuilder normalized = new StringBuilder();
+        boolean space = false;
+        int i;
+        char c;
+
+        if (guestName == null) {
+            return "";
+        }
+        for (i = 0; i < guestName.length(); i++) {
+            c = guestName.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Finds the key a guest name is listed under in a prefix search, which sets its place among the results.
+     *
+     * @param guestName the guest name
+     * @param prefix the start of the guest name that was searched for
+     * @return the first key of the name that starts with the prefix, or the whole normalized name if none does
+     */
+    public static String findKey(String guestName, String prefix) {
+        ArrayList<String> keyList = getKeys(guestName);
+        String normalizedPrefix = normalize(prefix);
+        String foundKey = null;
+
+        for (String key : keyList) {
+            if (key.startsWith(normalizedPrefix) && (foundKey == null || key.compareTo(foundKey) < 0)) {
+                foundKey = key;
+            }
+        }
+        return foundKey == null ? normalize(guestName) : foundKey;
+    }
+
+    /**
+     * Adds an entry under a guest name.
+     *
+     * @param guestName the name of the guest
+     * @param entry the entry to add
+     */
+    public synchronized void add(String guestName, T entry) {
+        for (String key : getKeys(guestName)) {
+            entryMap.computeIfAbsent(key, k -> new ArrayList<T>(1)).add(entry);
+        }
+        size++;
+    }
+
+    /**
+     * Adds many entries at once, such as the reservations of a restored hotel. The keys are worked out
+     * before the index is locked, so hotels restored in parallel only wait for each other while their
+     * keys are inserted.
+     *
+     * @param guestNameList the names of the guests
+     * @param entryList the entries to add, in the order of their names
+     */
+    public void addAll(List<String> guestNameList, List<T> entryList) {
+        ArrayList<ArrayList<String>> keyLists = new ArrayList<ArrayList<String>>(entryList.size());
+        int i;
+
+        for (String guestName : guestNameList) {
+            keyLists.add(getKeys(guestName));
+        }
+        synchronized (this) {
+            for (i = 0; i < entryList.size(); i++) {
+                for (String key : keyLists.get(i)) {
+                    entryMap.computeIfAbsent(key, k -> new ArrayList<T>(1)).add(entryList.get(i));
+                }
+            }
+            size += entryList.size();
+        }
+    }
+
+    /**
+     * Removes an entry from under a guest name.
+     *
+     * @param guestName the name of the guest
+     * @param entry the entry to remove
+     */
+    public void remove(String guestName, T entry) {
+        remove(guestName, listed -> listed == entry);
+    }
+
+    /**
+     * Removes the first entry under a guest name that is accepted by a matcher.
+     *
+     * @param guestName the name of the guest
+     * @param matcher the test that picks the entry to remove
+     */
+    public synchronized void remove(String guestName, Predicate<T> matcher) {
+        ArrayList<T> entryList;
+        boolean removed = false;
+        int i;
+
+        for (String key : getKeys(guestName)) {
+            entryList = entryMap.get(key);
+            if (entryList == null) {
+                continue;
+            }
+            for (i = 0; i < entryList.size(); i++) {
+                if (matcher.test(entryList.get(i))) {
+                    entryList.remove(i);
+                    removed = true;
+                    break;
+                }
+            }
+            if (entryList.isEmpty()) {
+                entryMap.remove(key);
+            }
+        }
+        if (removed) {
+            size--;
+        }
+    }
+
+    /**
+     * Removes every entry accepted by a matcher, such as all the entries of one hotel. It scans the whole index.
+     *
+     * @param matcher the test that picks the entries to remove
+     */
+    public synchronized void removeAll(Predicate<T> matcher) {
+        IdentityHashMap<T, Boolean> removedMap = new IdentityHashMap<T, Boolean>();
+        Iterator<ArrayList<T>> iterator = entryMap.values().iterator();
+        ArrayList<T> entryList;
+        int i;
+
+        while (iterator.hasNext()) {
+            entryList = iterator.next();
+            for (i = entryList.size() - 1; i >= 0; i--) {
+                if (matcher.test(entryList.get(i))) {
+                    removedMap.put(entryList.remove(i), Boolean.TRUE);
+                }
+            }
+            if (entryList.isEmpty()) {
+                iterator.remove();
+            }
+        }
+        size -= removedMap.size();
+    }
+
+    /**
+     * Finds the entries of every guest with a name or a word of a name that starts with a prefix.
+     *
+     * @param prefix the start of the guest name
+     * @param maxResults the largest number of entries to return
+     * @return the matching entries in name order, each listed once
+     */
+    public synchronized ArrayList<T> find(String prefix, int maxResults) {
+        ArrayList<T> resultList = new ArrayList<T>();
+        IdentityHashMap<T, Boolean> foundMap = new IdentityHashMap<T, Boolean>();
+        String key = normalize(prefix);
+
+        if (key.isEmpty()) {
+            return resultList;
+        }
+        for (Map.Entry<String, ArrayList<T>> mapEntry : entryMap.subMap(key, key + Character.MAX_VALUE).entrySet()) {
+            for (T entry : mapEntry.getValue()) {
+                if (resultList.size() >= maxResults) {
+                    return resultList;
+                }
+                if (foundMap.put(entry, Boolean.TRUE) == null) {
+                    resultList.add(entry);
+                }
+            }
+        }
+        return resultList;
+    }
+
+    /**
+     * Gets the number of entries in the index.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the keys of a name: the whole normalized name and the part starting at each later word.
+     */
+    private static ArrayList<String> getKeys(String guestName) {
+        ArrayList<String> keyList = new ArrayList<String>();
+        String normalized = normalize(guestName);
+        int i;
+
+        if (normalized.isEmpty()) {
+            return keyList;
+        }
+        keyList.add(normalized);
+        for (i = 0; i < normalized.length(); i++) {
+            if (normalized.charAt(i) == ' ') {
+                keyList.add(normalized.substring(i + 1));
+            }
+        }
+        return keyList;
+    }
+}
@@ -1,4 +1,15 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
 import javax.swing.JOptionPane;
 
 /**
@@ -7,12 +18,35 @@ import javax.swing.JOptionPane;
  */
 public class Hotel {
 
-    private String hotelName;
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * The number of latest price versions whose rate calendars are kept, so a stay quoted shortly before
+     * a price change is still booked with the rates it was priced from. Older quotes are priced again.
+     */
+    public static final int RATE_HISTORY_SIZE = 64;
+    private static final AtomicLong nextInstanceId = new AtomicLong(1);
+
     private String namingScheme;
     private ArrayList<Room> roomList = new ArrayList<Room>();
-    private ArrayList<Reservation> reservationList = new ArrayList<Reservation>();
-    private ArrayList<Integer> dateModifiedPriceList = new ArrayList<Integer>();
-    private ArrayList<Double> priceRateList = new ArrayList<Double>();
+    private HashMap<String, Room> roomNameMap = new HashMap<String, Room>();
+    private int nextRoomId = 0;
+    private RoomPool roomPool = new RoomPool();
+    private EnumMap<RoomType, RoomPool> roomTypePools = new EnumMap<RoomType, RoomPool>(RoomType.class);
+    private ReentrantLock[] roomLocks = new ReentrantLock[LOCK_STRIPES];
+    private volatile HotelSnapshot snapshot;
+    private Object commitLock = new Object();
+    private AtomicLong nextReservationId = new AtomicLong(1);
+    private OccupancyCounter bookedRoomCounter = new OccupancyCounter();
+    private GuestIndex<Reservation> guestIndex = new GuestIndex<Reservation>();
+    private ReservationColumns reservationColumns = new ReservationColumns();
+    private CopyOnWriteArrayList<HotelListener> listenerList = new CopyOnWriteArrayList<HotelListener>();
+    private volatile RateCalendar rateCalendar = new RateCalendar();
+    private volatile PriceState priceState;
+    private DynamicRateTable dynamicRateTable;
+    private volatile long rateChangeVersion;
+    private TreeMap<Long, PriceState> rateHistory = new TreeMap<Long, PriceState>();
+    private long instanceId = nextInstanceId.getAndIncrement();
 
     /**
      * Constructs a new Hotel with the specified name.
@@ -20,7 +54,29 @@ public class Hotel {
      * @param hotelName the name of the hotel
      */
     public Hotel(String hotelName) {
-        this.hotelName = hotelName;
+        this.snapshot = new HotelSnapshot(hotelName, 0, Collections.<Room>emptyList(), PersistentList.<Reservation>empty());
+        for (RoomType roomType : RoomType.values()) {
+            roomTypePools.put(roomType, new RoomPool());
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            roomLocks[i] = new ReentrantLock();
+        }
+        RateCalendar[] calendars = new RateCalendar[RoomType.values().length];
+
+        Arrays.fill(calendars, rateCalendar);
+        priceState = new PriceState(0, calendars, new long[0]);
+        rateHistory.put(0L, priceState);
+    }
+
+    /**
+     * Gets a number given to this hotel object when it was made, unique within the running program.
+     * Caches key by it instead of by the hotel, so a hotel that is unloaded is not kept in memory by them.
+     * A hotel loaded again is a new object with a new number.
+     *
+     * @return the instance number of the hotel
+     */
+    public long getInstanceId() {
+        return instanceId;
     }
 
     /**
@@ -29,16 +85,36 @@ public class Hotel {
      * @return the hotel name
      */
     public String getHotelName() {
-        return hotelName;
+        return snapshot.getHotelName();
+    }
+
+    /**
+     * Gets the current immutable snapshot of the hotel. Taking a snapshot costs O(1),
+     * and the snapshot can be read without locks while bookings keep changing the hotel.
+     * 
+     * @return the current snapshot
+     */
+    public HotelSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the list of rooms in the hotel from the current snapshot.
+     * 
+     * @return the read-only list of rooms
+     */
+    public List<Room> getRoomList() {
+        return snapshot.getRoomList();
     }
 
     /**
-     * Gets the list of rooms in the hotel.
+     * Gets the list of rooms of a given type in the hotel.
      * 
-     * @return the list of rooms
+     * @param roomType the type of the rooms
+     * @return the read-only list of rooms of the type
      */
-    public ArrayList<Room> getRoomList() {
-        return roomList;
+    public List<Room> getRoomList(RoomType roomType) {
+        return roomTypePools.get(roomType).getRoomList();
     }
 
     /**
@@ -46,15 +122,8 @@ public class Hotel {
      * 
      * @return the list of standard rooms
      */
-    public ArrayList<Room> getStandardRoomList() {
-        ArrayList<Room> standardRoomList = new ArrayList<Room>();
-        for (Room room : roomList){
-            if(room instanceof StandardRoom){
-                standardRoomList.add(room);
-            }
-        }
-
-        return standardRoomList;
+    public List<Room> getStandardRoomList() {
+        return roomTypePools.get(RoomType.STANDARD).getRoomList();
     }
 
     /**
@@ -62,15 +131,8 @@ public class Hotel {
      * 
      * @return the list of deluxe rooms
      */
-    public ArrayList<Room> getDeluxeRoomList() {
-        ArrayList<Room> deluxeRoomList = new ArrayList<Room>();
-        for (Room room : roomList){
-            if(room instanceof DeluxeRoom){
-                deluxeRoomList.add(room);
-            }
-        }
-
-        return deluxeRoomList;
+    public List<Room> getDeluxeRoomList() {
+        return roomTypePools.get(RoomType.DELUXE).getRoomList();
     }
 
     /**
@@ -78,59 +140,332 @@ public class Hotel {
      * 
      * @return the list of executive rooms
      */
-    public ArrayList<Room> getExecutiveRoomList() {
-        ArrayList<Room> executiveRoomList = new ArrayList<Room>();
-        for (Room room : roomList){
-            if(room instanceof ExecutiveRoom){
-                executiveRoomList.add(room);
+    public List<Room> getExecutiveRoomList() {
+        return roomTypePools.get(RoomType.EXECUTIVE).getRoomList();
+    }
+
+    /**
+     * Gets the list of reservations in the hotel from the current snapshot.
+     * 
+     * @return the read-only list of reservations
+     */
+    public List<Reservation> getReservationList() {
+        return snapshot.getReservationList();
+    }
+
+    /**
+     * Gets a copy of the rate calendar, where index n holds the price rate of night n.
+     * Nights past the end of the calendar have a rate of 1.0.
+     *
+     * @return the price rates by night
+     */
+    public double[] getNightRates() {
+        return rateCalendar.toArray();
+    }
+
+    /**
+     * Gets the current rate calendar of the hotel with the rates set by hand. The calendar is immutable
+     * and can be read without locks.
+     *
+     * @return the rate calendar
+     */
+    public RateCalendar getRateCalendar() {
+        return rateCalendar;
+    }
+
+    /**
+     * Gets the current rate calendar of a room type, which is the calendar set by hand with the
+     * multipliers of dynamic pricing applied when it is turned on.
+     *
+     * @param roomType the type of the rooms
+     * @return the rate calendar of the type
+     */
+    public RateCalendar getRateCalendar(RoomType roomType) {
+        return priceState.getRateCalendar(roomType);
+    }
+
+    /**
+     * Gets the current prices of the hotel: the price version with the rate calendars and the room prices
+     * of that version. The state is immutable and replaced as a whole on every price change, so a quote
+     * that reads it once sees one consistent price however the prices change meanwhile.
+     *
+     * @return the current price state
+     */
+    public PriceState getPriceState() {
+        return priceState;
+    }
+
+    /**
+     * Sets the price rate of a night. A new calendar with rebuilt running sums is installed,
+     * so quotes can read the rates without locks.
+     *
+     * @param date the night to modify
+     * @param rate the new price rate of the night
+     */
+    public void updateNightRate(int date, double rate) {
+        updateNightRates(new int[] {date}, rate);
+    }
+
+    /**
+     * Sets the same price rate for several nights as one price change. The new calendar is kept in the
+     * rate history under the new price version, so a stay quoted before the change is booked with the
+     * nightly rates it was priced from.
+     *
+     * @param dates the nights to modify
+     * @param rate the new price rate of the nights
+     * @return the new price version
+     */
+    public long updateNightRates(int[] dates, double rate) {
+        long newPriceVersion;
+
+        synchronized (commitLock) {
+            rateCalendar = rateCalendar.withRates(dates, rate);
+            if (dynamicRateTable != null) {
+                dynamicRateTable.updateBaseCalendar(rateCalendar);
+            }
+            rateChangeVersion = installRoomTypeRates();
+            newPriceVersion = rateChangeVersion;
+            for (HotelListener listener : listenerList) {
+                listener.nightRatesChanged(this, dates.clone(), rate);
             }
         }
+        fireChangeCommitted();
+        return newPriceVersion;
+    }
 
-        return executiveRoomList;
+    /**
+     * Turns dynamic pricing on with the given occupancy tiers, or off when the tiers are null.
+     * The rooms booked on every night are counted once from the current reservations; after that
+     * every booking and cancellation updates the rates of its own nights only.
+     *
+     * @param pricing the occupancy tiers, or null to use the rates set by hand only
+     */
+    public void setDynamicPricing(DynamicPricing pricing) {
+        lockAllRooms();
+        try {
+            synchronized (commitLock) {
+                buildDynamicRateTable(pricing);
+                installRoomTypeRates();
+                for (HotelListener listener : listenerList) {
+                    listener.dynamicPricingChanged(this, pricing);
+                }
+            }
+        } finally {
+            unlockAllRooms();
+        }
+        fireChangeCommitted();
     }
 
     /**
-     * Gets the list of reservations in the hotel.
-     * 
-     * @return the list of reservations
+     * Gets the occupancy tiers of the hotel.
+     *
+     * @return the occupancy tiers, or null if dynamic pricing is off
+     */
+    public DynamicPricing getDynamicPricing() {
+        synchronized (commitLock) {
+            return dynamicRateTable == null ? null : dynamicRateTable.getPricing();
+        }
+    }
+
+    /**
+     * Restores the rates and the price versions of the hotel as they were saved, such as from a
+     * snapshot, after its rooms and reservations were restored. The current calendars also answer
+     * for the price versions before the saved one, whose calendars are not saved.
+     *
+     * @param newRateCalendar the rate calendar set by hand
+     * @param pricing the occupancy tiers, or null if dynamic pricing is off
+     * @param newPriceVersion the saved price version
+     * @param newRateChangeVersion the saved price version of the last change by hand
      */
-    public ArrayList<Reservation> getReservationList() {
-        return reservationList;
+    public void restoreRates(RateCalendar newRateCalendar, DynamicPricing pricing, long newPriceVersion, long newRateChangeVersion) {
+        lockAllRooms();
+        try {
+            synchronized (commitLock) {
+                rateCalendar = newRateCalendar;
+                buildDynamicRateTable(pricing);
+                installRoomTypeRates(newPriceVersion);
+                rateChangeVersion = newRateChangeVersion;
+                rateHistory.clear();
+                rateHistory.put(0L, priceState);
+            }
+        } finally {
+            unlockAllRooms();
+        }
     }
 
     /**
-     * Gets the list date/s for date price modifier in the hotel.
+     * Runs an action while every room lock and the commit lock are held, so no change of the hotel
+     * is under way and none starts until the action returns. The action should return quickly.
      *
-     * @return the list of integers
+     * @param action the action to run
      */
-    public ArrayList<Integer> getDateModifiedPriceList() {
-       return dateModifiedPriceList;
+    public void runExclusively(Runnable action) {
+        lockAllRooms();
+        try {
+            synchronized (commitLock) {
+                action.run();
+            }
+        } finally {
+            unlockAllRooms();
+        }
     }
 
+    /**
+     * Builds the dynamic rate table of occupancy tiers from the current rooms and reservations,
+     * or drops it when the tiers are null. The caller must hold every room lock and the commit lock.
+     */
+    private void buildDynamicRateTable(DynamicPricing pricing) {
+        if (pricing == null) {
+            dynamicRateTable = null;
+            return;
+        }
+        dynamicRateTable = new DynamicRateTable(pricing, rateCalendar);
+        for (RoomType roomType : RoomType.values()) {
+            dynamicRateTable.updateRoomCount(roomType, countRooms(roomType));
+        }
+        for (Reservation reservation : snapshot.getReservationList()) {
+            dynamicRateTable.countStay(reservation.getRoom().getRoomType(), reservation.getCheckInDate(), reservation.getCheckOutDate());
+        }
+        dynamicRateTable.rebuild();
+    }
 
     /**
-     * Gets the list of rate/s for date price modifier in the hotel.
+     * Counts the rooms of a type. The caller must hold every room lock.
+     */
+    private int countRooms(RoomType roomType) {
+        int count = 0;
+
+        for (Room room : roomList) {
+            if (room.getRoomType() == roomType) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Publishes the current rate calendars of the room types under a new price version.
+     * The caller must hold the commit lock.
      *
-     * @return the list of integers
+     * @return the new price version
      */
-    public ArrayList<Double> getPriceRateList() {
-       return priceRateList;
+    private long installRoomTypeRates() {
+        return installRoomTypeRates(priceState.getVersion() + 1);
     }
 
     /**
-     * Adds the date with modified price.
+     * Publishes the current rate calendars of the room types under a given price version.
+     * The caller must hold the commit lock.
      *
+     * @return the given price version
      */
-    public void addDateModifiedPrice(int date){
-        dateModifiedPriceList.add(date);
+    private long installRoomTypeRates(long newPriceVersion) {
+        RateCalendar[] calendars = new RateCalendar[RoomType.values().length];
+
+        for (RoomType roomType : RoomType.values()) {
+            calendars[roomType.ordinal()] = dynamicRateTable == null ? rateCalendar : dynamicRateTable.getRateCalendar(roomType);
+        }
+        publishPriceState(priceState.withRateCalendars(newPriceVersion, calendars));
+        return newPriceVersion;
     }
 
     /**
-     * Adds the rate to modify the price.
+     * Publishes new prices with one write, so the version and the prices are always read together, and keeps
+     * them in the rate history, which drops its oldest version past RATE_HISTORY_SIZE. Reservations keep their
+     * own nightly rates, so the history only has to cover quotes that are not booked yet.
+     * The caller must hold the commit lock.
+     */
+    private void publishPriceState(PriceState newPriceState) {
+        priceState = newPriceState;
+        rateHistory.put(newPriceState.getVersion(), newPriceState);
+        while (rateHistory.size() > RATE_HISTORY_SIZE) {
+            rateHistory.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Gives a reservation the nightly rates of the price version it was priced under, unless it already
+     * has them, such as a reservation read back from a file. A reservation priced under a version that is
+     * no longer kept is left without rates and has to be priced again. The caller must hold the commit lock.
+     */
+    private void fillNightRates(Reservation reservation) {
+        if (!reservation.hasNightRates()) {
+            reservation.updateNightRates(getNightRates(reservation, reservation.getPriceVersion()));
+        }
+    }
+
+    /**
+     * Gets the rates of the nights of a stay from the rate calendar of its room type at a price version.
+     * The caller must hold the commit lock.
+     *
+     * @return the rates in basis points, starting with the check-in night, or null if the version is no longer kept
+     */
+    private long[] getNightRates(Reservation reservation, long version) {
+        Map.Entry<Long, PriceState> entry = rateHistory.floorEntry(version);
+        RateCalendar calendar;
+        long[] nightRates;
+        int night;
+
+        if (entry == null) {
+            return null;
+        }
+        calendar = entry.getValue().getRateCalendar(reservation.getRoom().getRoomType());
+        nightRates = new long[Math.max(0, reservation.getCheckOutDate() - reservation.getCheckInDate())];
+        for (night = 0; night < nightRates.length; night++) {
+            nightRates[night] = calendar.getRateBasisPoints(reservation.getCheckInDate() + night);
+        }
+        return nightRates;
+    }
+
+    /**
+     * Counts a booked or cancelled stay in the dynamic rates. The caller must hold the commit lock.
      *
+     * @return true if the rate of a night changed and new calendars have to be installed
      */
-    public void addPriceRate(double rate){
-        priceRateList.add(rate);
+    private boolean updateDynamicRates(Reservation reservation, int delta) {
+        if (dynamicRateTable == null) {
+            return false;
+        }
+        return dynamicRateTable.addStay(reservation.getRoom().getRoomType(), reservation.getCheckInDate(), reservation.getCheckOutDate(), delta);
+    }
+
+    /**
+     * Gets the reservation ID the next booking of the hotel will get.
+     *
+     * @return the next reservation ID
+     */
+    public long getNextReservationId() {
+        return nextReservationId.get();
+    }
+
+    /**
+     * Makes the next bookings of the hotel get reservation IDs from a saved value on,
+     * so IDs of removed reservations are not given again.
+     *
+     * @param reservationId the saved next reservation ID
+     */
+    public void restoreNextReservationId(long reservationId) {
+        nextReservationId.accumulateAndGet(reservationId, Math::max);
+    }
+
+    /**
+     * Gets the price version of the hotel, which grows after every change to the rates or the room prices.
+     * Cached prices made under an older version are out of date.
+     *
+     * @return the price version
+     */
+    public long getPriceVersion() {
+        return priceState.getVersion();
+    }
+
+    /**
+     * Gets the price version of the last change made by hand to the rates or the room prices.
+     * Rates moved by dynamic pricing do not count, since a booking keeps the price it was quoted.
+     *
+     * @return the price version of the last change by hand
+     */
+    public long getRateChangeVersion() {
+        return rateChangeVersion;
     }
 
     /**
@@ -149,20 +484,43 @@ public class Hotel {
 
     /**
      * Compares a room name to the names of existing rooms to ensure uniqueness.
+     * The name is looked up in a hash index, so the check costs O(1).
      * 
      * @param name the room name to compare
      * @return true if the name is unique, false otherwise
      */
     public boolean compareRoomName(String name) {
-        int x;
-        int numRooms = roomList.size();
+        return !roomNameMap.containsKey(name);
+    }
 
-        for (x = 0; x < numRooms; x++) {
-            if (roomList.get(x).getRoomName().equals(name)) {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * Finds a room of the hotel by its ID.
+     * 
+     * @param roomId the ID of the room
+     * @return the room, or null if the hotel has no room with the ID
+     */
+    public Room getRoom(int roomId) {
+        return snapshot.getRoom(roomId);
+    }
+
+    /**
+     * Checks if a room belongs to the hotel. A removed room or a room of another hotel does not.
+     *
+     * @param room the room to check
+     * @return true if the room is one of the rooms of the hotel, false otherwise
+     */
+    public boolean containsRoom(Room room) {
+        return snapshot.getRoom(room.getRoomId()) == room;
+    }
+
+    /**
+     * Finds a room of the hotel by its name.
+     * 
+     * @param roomName the name of the room
+     * @return the room, or null if the hotel has no room with the name
+     */
+    public Room getRoom(String roomName) {
+        return snapshot.getRoom(roomName);
     }
 
     /**
@@ -173,30 +531,75 @@ public class Hotel {
      */
     public void createRooms(int numStandardRooms, int numDeluxeRooms, int numExecutiveRooms, String namingScheme) {
         int i = 1;
+        int firstNewRoom;
         String roomName;
         Room room;
         this.namingScheme = namingScheme;
 
-        while(i <= numStandardRooms){
-            roomName = generateRoomName(namingScheme, i);
-            room = new StandardRoom(roomName);
-            roomList.add(room);
-            i++;
-        }
+        lockAllRooms();
+        try {
+            firstNewRoom = roomList.size();
+            while(i <= numStandardRooms){
+                roomName = generateRoomName(namingScheme, i);
+                room = new StandardRoom(roomName);
+                registerRoom(room);
+                i++;
+            }
 
-        while(i <= numStandardRooms + numDeluxeRooms){
-            roomName = generateRoomName(namingScheme, i);
-            room = new DeluxeRoom(roomName);
-            roomList.add(room);
-            i++;
+            while(i <= numStandardRooms + numDeluxeRooms){
+                roomName = generateRoomName(namingScheme, i);
+                room = new DeluxeRoom(roomName);
+                registerRoom(room);
+                i++;
+            }
+
+            while(i <= numStandardRooms + numDeluxeRooms + numExecutiveRooms){
+                roomName = generateRoomName(namingScheme, i);
+                room = new ExecutiveRoom(roomName);
+                registerRoom(room);
+                i++;
+            }
+            publishRoomList();
+            fireRoomsAdded(firstNewRoom);
+        } finally {
+            unlockAllRooms();
         }
+        fireChangeCommitted();
+    }
 
-        while(i <= numStandardRooms + numDeluxeRooms + numExecutiveRooms){
-            roomName = generateRoomName(namingScheme, i);
-            room = new ExecutiveRoom(roomName);
-            roomList.add(room);
-            i++;
+    /**
+     * Adds rooms that were created before, such as rooms read back from a journal, with their names and types.
+     *
+     * @param namingScheme the naming scheme of the hotel
+     * @param newRoomList the rooms to add
+     */
+    public void restoreRooms(String namingScheme, List<Room> newRoomList) {
+        int firstNewRoom;
+
+        lockAllRooms();
+        try {
+            this.namingScheme = namingScheme;
+            firstNewRoom = roomList.size();
+            for (Room room : newRoomList) {
+                if (compareRoomName(room.getRoomName())) {
+                    registerRoom(room);
+                }
+            }
+            publishRoomList();
+            fireRoomsAdded(firstNewRoom);
+        } finally {
+            unlockAllRooms();
         }
+        fireChangeCommitted();
+    }
+
+    /**
+     * Gets the naming scheme used for the names of new rooms.
+     *
+     * @return the naming scheme
+     */
+    public String getNamingScheme() {
+        return namingScheme;
     }
 
     /*
@@ -214,21 +617,19 @@ public class Hotel {
             dayList.add(x);
         }
 
-        for(x = 0; x < getReservationList().size(); x++){
-            if(room.getRoomName().equals(getReservationList().get(x).getRoom().getRoomName())){
-                if (getReservationList().get(x).getCheckInDate() == getReservationList().get(x).getCheckOutDate()){
-                    date = getReservationList().get(x).getCheckInDate();
-                    dayList.remove(Integer.valueOf(date));
-                }
+        for(Reservation reservation : room.getReservations()){
+            if (reservation.getCheckInDate() == reservation.getCheckOutDate()){
+                date = reservation.getCheckInDate();
+                dayList.remove(Integer.valueOf(date));
+            }
 
-                for (date = getReservationList().get(x).getCheckInDate(); date < getReservationList().get(x).getCheckOutDate(); date++){
-                    dayList.remove(Integer.valueOf(date));
-                }
-                
-                if(getReservationList().get(x).getCheckOutDate() == 31){
-                    date = getReservationList().get(x).getCheckOutDate();
-                    dayList.remove(Integer.valueOf(date));
-                }
+            for (date = reservation.getCheckInDate(); date < reservation.getCheckOutDate(); date++){
+                dayList.remove(Integer.valueOf(date));
+            }
+            
+            if(reservation.getCheckOutDate() == 31){
+                date = reservation.getCheckOutDate();
+                dayList.remove(Integer.valueOf(date));
             }
         }
 
@@ -249,7 +650,16 @@ public class Hotel {
      * @param newHotelName the new name of the hotel
      */
     public void changeHotelName(String newHotelName) {
-        this.hotelName = newHotelName;
+        String oldName;
+
+        synchronized (commitLock) {
+            oldName = snapshot.getHotelName();
+            snapshot = snapshot.withHotelName(newHotelName);
+            for (HotelListener listener : listenerList) {
+                listener.hotelRenamed(this, oldName);
+            }
+        }
+        fireChangeCommitted();
     }
     
     /**
@@ -258,43 +668,134 @@ public class Hotel {
     public void addRoom(int numStandardRooms, int numDeluxeRooms, int numExecutiveRooms) {
         Room room;
         String roomName;
-        int currentNumRooms = roomList.size();
+        int currentNumRooms;
         int i = 1;
 
-        while(i <= currentNumRooms + numStandardRooms){
-            roomName = generateRoomName(namingScheme, i);
-            if(compareRoomName(roomName)){
-                room = new StandardRoom(roomName);
-                roomList.add(room);
+        lockAllRooms();
+        try {
+            currentNumRooms = roomList.size();
+            while(i <= currentNumRooms + numStandardRooms){
+                roomName = generateRoomName(namingScheme, i);
+                if(compareRoomName(roomName)){
+                    room = new StandardRoom(roomName);
+                    registerRoom(room);
+                }
+                i++;
             }
-            i++;
+
+            while(i <= currentNumRooms + numStandardRooms + numDeluxeRooms){
+                roomName = generateRoomName(namingScheme, i);
+                if(compareRoomName(roomName)){
+                    room = new DeluxeRoom(roomName);
+                    registerRoom(room);
+                }
+                i++;
+            }
+
+            while(i <= currentNumRooms + numStandardRooms + numDeluxeRooms + numExecutiveRooms){
+                roomName = generateRoomName(namingScheme, i);
+                if(compareRoomName(roomName)){
+                    room = new ExecutiveRoom(roomName);
+                    registerRoom(room);
+                }
+                i++;
+            }
+            publishRoomList();
+            fireRoomsAdded(currentNumRooms);
+        } finally {
+            unlockAllRooms();
         }
+        fireChangeCommitted();
+    }
 
-        while(i <= currentNumRooms + numStandardRooms + numDeluxeRooms){
-            roomName = generateRoomName(namingScheme, i);
-            if(compareRoomName(roomName)){
-                room = new DeluxeRoom(roomName);
-                roomList.add(room);
+    /**
+     * Removes a room from the hotel. A room with reservations is kept; this is checked while every room
+     * lock is held, so a booking cannot take the room between the check and the removal.
+     *
+     * @param room the room to remove
+     * @return true if the room was removed, false if it has reservations or is not in the hotel
+     */
+    public boolean removeRoom(Room room) {
+        boolean removed = false;
+
+        lockAllRooms();
+        try {
+            if (!room.hasReservations() && roomList.remove(room)) {
+                roomNameMap.remove(room.getRoomName());
+                roomPool.removeRoom(room);
+                roomTypePools.get(room.getRoomType()).removeRoom(room);
+                publishRoomList();
+                for (HotelListener listener : listenerList) {
+                    listener.roomRemoved(this, room);
+                }
+                removed = true;
             }
-            i++;
+        } finally {
+            unlockAllRooms();
         }
+        if (removed) {
+            fireChangeCommitted();
+        }
+        return removed;
+    }
 
-        while(i <= currentNumRooms + numStandardRooms + numDeluxeRooms + numExecutiveRooms){
-            roomName = generateRoomName(namingScheme, i);
-            if(compareRoomName(roomName)){
-                room = new ExecutiveRoom(roomName);
-                roomList.add(room);
+    /**
+     * Gives a room the next room ID and adds it to the room list, the name index, and the indexes of free rooms.
+     * The caller must hold every room lock.
+     */
+    private void registerRoom(Room room) {
+        room.assignRoomId(nextRoomId++);
+        roomList.add(room);
+        roomNameMap.put(room.getRoomName(), room);
+        roomPool.addRoom(room);
+        roomTypePools.get(room.getRoomType()).addRoom(room);
+    }
+
+    /**
+     * Installs a new snapshot with the current rooms and publishes their prices under the current
+     * price version, since rooms that were added have no bookings priced yet. The caller must hold every room lock.
+     */
+    private void publishRoomList() {
+        boolean ratesChanged = false;
+
+        synchronized (commitLock) {
+            snapshot = snapshot.withRoomList(roomList);
+            publishPriceState(priceState.withRoomPrices(priceState.getVersion(), roomList));
+            if (dynamicRateTable != null) {
+                for (RoomType roomType : RoomType.values()) {
+                    ratesChanged |= dynamicRateTable.updateRoomCount(roomType, countRooms(roomType));
+                }
+                if (ratesChanged) {
+                    installRoomTypeRates();
+                }
             }
-            i++;
         }
     }
 
     /**
-     * Removes rooms from the hotel.
-     * 
+     * Gets the lock guarding the reservations of a room. Rooms share a fixed number of locks,
+     * so bookings of rooms with different locks can run at the same time.
      */
-    public void removeRoom(Room room) {
-        roomList.remove(room);
+    private ReentrantLock getRoomLock(Room room) {
+        return roomLocks[(System.identityHashCode(room) & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    /**
+     * Acquires every room lock in order, which stops all bookings while the rooms are changed.
+     */
+    private void lockAllRooms() {
+        for (ReentrantLock lock : roomLocks) {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Releases every room lock.
+     */
+    private void unlockAllRooms() {
+        for (ReentrantLock lock : roomLocks) {
+            lock.unlock();
+        }
     }
 
     /**
@@ -302,7 +803,255 @@ public class Hotel {
      * 
      */
     public void updatePriceRoom(int roomIndex, double newPrice) {
-        getRoomList().get(roomIndex).updatePrice(newPrice);
+        Room room = getRoomList().get(roomIndex);
+
+        synchronized (commitLock) {
+            room.updatePrice(newPrice);
+            rateChangeVersion = priceState.getVersion() + 1;
+            publishPriceState(priceState.withRoomPrices(rateChangeVersion, snapshot.getRoomList()));
+            for (HotelListener listener : listenerList) {
+                listener.roomPriceChanged(this, room, newPrice);
+            }
+        }
+        fireChangeCommitted();
+    }
+
+    /**
+     * Updates the base price of every room in the hotel as one price change.
+     *
+     * @param newPrice the new base price
+     * @return the new price version
+     */
+    public long updateRoomPrices(double newPrice) {
+        long newPriceVersion;
+
+        synchronized (commitLock) {
+            for (Room room : getRoomList()) {
+                room.updatePrice(newPrice);
+            }
+            rateChangeVersion = priceState.getVersion() + 1;
+            newPriceVersion = rateChangeVersion;
+            publishPriceState(priceState.withRoomPrices(newPriceVersion, snapshot.getRoomList()));
+            for (HotelListener listener : listenerList) {
+                listener.roomPriceChanged(this, null, newPrice);
+            }
+        }
+        fireChangeCommitted();
+        return newPriceVersion;
+    }
+
+    /**
+     * Adds a reservation to the hotel and books its nights in the reserved room.
+     * The room is checked and booked while holding its lock, so two bookings can never
+     * take overlapping nights of the same room.
+     *
+     * @param reservation the reservation to be added
+     * @return true if the reservation was added, false if the room is already booked or no longer in the hotel
+     */
+    public boolean addReservation(Reservation reservation) {
+        ReentrantLock lock = getRoomLock(reservation.getRoom());
+
+        lock.lock();
+        try {
+            if (!bookRoom(reservation)) {
+                return false;
+            }
+            synchronized (commitLock) {
+                assignReservationId(reservation);
+                fillNightRates(reservation);
+                snapshot = snapshot.withReservation(reservation);
+                if (updateDynamicRates(reservation, 1)) {
+                    installRoomTypeRates();
+                }
+            }
+            reservationColumns.add(reservation);
+            fireReservationAdded(reservation);
+        } finally {
+            lock.unlock();
+        }
+        fireChangeCommitted();
+        return true;
+    }
+
+    /**
+     * Adds many reservations to the hotel at once and installs a single new snapshot for all of them.
+     * Every room lock is held during the batch, so each reservation is checked against the others too.
+     *
+     * @param reservationList the reservations to be added
+     * @return the reservations that were not added because their room was already booked
+     */
+    public ArrayList<Reservation> addReservations(List<Reservation> reservationList) {
+        ArrayList<Reservation> addedList = new ArrayList<Reservation>();
+        ArrayList<Reservation> rejectedList = new ArrayList<Reservation>();
+        boolean ratesChanged = false;
+
+        lockAllRooms();
+        try {
+            for (Reservation reservation : reservationList) {
+                if (bookRoom(reservation)) {
+                    addedList.add(reservation);
+                } else {
+                    rejectedList.add(reservation);
+                }
+            }
+            synchronized (commitLock) {
+                for (Reservation reservation : addedList) {
+                    assignReservationId(reservation);
+                }
+                snapshot = snapshot.withReservations(addedList);
+                for (Reservation reservation : addedList) {
+                    fillNightRates(reservation);
+                    ratesChanged |= updateDynamicRates(reservation, 1);
+                }
+                if (ratesChanged) {
+                    installRoomTypeRates();
+                }
+            }
+            for (Reservation reservation : addedList) {
+                reservationColumns.add(reservation);
+            }
+            fireReservationsAdded(addedList);
+        } finally {
+            unlockAllRooms();
+        }
+        if (!addedList.isEmpty()) {
+            fireChangeCommitted();
+        }
+        return rejectedList;
+    }
+
+    /**
+     * Registers a listener to be told about every reservation added to or removed from the hotel.
+     *
+     * @param listener the listener to add
+     */
+    public void addHotelListener(HotelListener listener) {
+        listenerList.add(listener);
+    }
+
+    /**
+     * Stops telling a listener about the changes to the hotel.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeHotelListener(HotelListener listener) {
+        listenerList.remove(listener);
+    }
+
+    /**
+     * Finds the reservations of the guests whose name, or a word of whose name, starts with a prefix.
+     * The search uses an index kept up to date by every booking, so it does not scan the reservations.
+     *
+     * @param prefix the start of the guest name
+     * @param maxResults the largest number of reservations to return
+     * @return the matching reservations in name order
+     */
+    public ArrayList<Reservation> findReservationsByGuest(String prefix, int maxResults) {
+        return guestIndex.find(prefix, maxResults);
+    }
+
+    /**
+     * Adds a new reservation to the guest index and tells the listeners. The caller must hold the lock of the room.
+     */
+    private void fireReservationAdded(Reservation reservation) {
+        guestIndex.add(reservation.getGuestName(), reservation);
+        for (HotelListener listener : listenerList) {
+            listener.reservationAdded(this, reservation);
+        }
+    }
+
+    /**
+     * Adds new reservations to the guest index in one batch and tells the listeners. The caller must hold every room lock.
+     */
+    private void fireReservationsAdded(List<Reservation> reservationList) {
+        ArrayList<String> guestNameList = new ArrayList<String>(reservationList.size());
+
+        if (reservationList.isEmpty()) {
+            return;
+        }
+        for (Reservation reservation : reservationList) {
+            guestNameList.add(reservation.getGuestName());
+        }
+        guestIndex.addAll(guestNameList, reservationList);
+        for (HotelListener listener : listenerList) {
+            listener.reservationsAdded(this, reservationList);
+        }
+    }
+
+    /**
+     * Removes a reservation from the guest index and tells the listeners. The caller must hold the lock of the room.
+     */
+    private void fireReservationRemoved(Reservation reservation) {
+        guestIndex.remove(reservation.getGuestName(), reservation);
+        for (HotelListener listener : listenerList) {
+            listener.reservationRemoved(this, reservation);
+        }
+    }
+
+    /**
+     * Tells the listeners that the price or the package of a reservation changed. The caller must hold the lock of the room.
+     */
+    private void fireReservationChanged(Reservation reservation) {
+        for (HotelListener listener : listenerList) {
+            listener.reservationChanged(this, reservation);
+        }
+    }
+
+    /**
+     * Tells the listeners about the rooms added from an index of the room list on. The caller must hold every room lock.
+     */
+    private void fireRoomsAdded(int firstNewRoom) {
+        ArrayList<Room> newRoomList;
+
+        if (firstNewRoom == roomList.size() || listenerList.isEmpty()) {
+            return;
+        }
+        newRoomList = new ArrayList<Room>(roomList.subList(firstNewRoom, roomList.size()));
+        for (HotelListener listener : listenerList) {
+            listener.roomsAdded(this, namingScheme, newRoomList);
+        }
+    }
+
+    /**
+     * Tells the listeners that a change is done. The caller must not hold any lock of the hotel.
+     */
+    private void fireChangeCommitted() {
+        for (HotelListener listener : listenerList) {
+            listener.changeCommitted(this);
+        }
+    }
+
+    /**
+     * Books the nights of a reservation in its room and in the free-room indexes.
+     * The reservation gets its ID later, when it is published. The caller must hold the lock of the room.
+     */
+    private boolean bookRoom(Reservation reservation) {
+        Room room = reservation.getRoom();
+        long nightMask = getNightMask(reservation.getCheckInDate(), reservation.getCheckOutDate());
+
+        if (!roomPool.containsRoom(room) || !isRoomAvailable(room, reservation.getCheckInDate(), reservation.getCheckOutDate())) {
+            return false;
+        }
+        room.addStay(reservation);
+        room.occupyNights(nightMask);
+        roomPool.occupyNights(room, nightMask);
+        roomTypePools.get(room.getRoomType()).occupyNights(room, nightMask);
+        bookedRoomCounter.add(reservation.getCheckInDate(), reservation.getCheckOutDate(), 1);
+        return true;
+    }
+
+    /**
+     * Gives a new reservation the next reservation ID, or makes sure a restored reservation's ID is not given again.
+     * The caller must hold the commit lock and install the snapshot with the reservation before releasing it,
+     * so reservations become visible in the order of their IDs and a reader that has seen an ID has seen every
+     * reservation with a lower one.
+     */
+    private void assignReservationId(Reservation reservation) {
+        if (reservation.getReservationId() == 0) {
+            reservation.assignReservationId(nextReservationId.getAndIncrement());
+        } else {
+            nextReservationId.accumulateAndGet(reservation.getReservationId() + 1, Math::max);
+        }
     }
 
     /**
@@ -310,40 +1059,404 @@ public class Hotel {
      * 
      */
     public void removeReservation(Reservation reservation) {
-        reservationList.remove(reservation);
+        Room room = reservation.getRoom();
+        long nightMask = getNightMask(reservation.getCheckInDate(), reservation.getCheckOutDate());
+        ReentrantLock lock = getRoomLock(room);
+        boolean removed;
+
+        lock.lock();
+        try {
+            synchronized (commitLock) {
+                removed = snapshot.containsReservation(reservation);
+                if (removed) {
+                    snapshot = snapshot.withoutReservation(reservation);
+                    if (updateDynamicRates(reservation, -1)) {
+                        installRoomTypeRates();
+                    }
+                }
+            }
+            if (removed) {
+                room.removeStay(reservation);
+                room.vacateNights(nightMask);
+                roomPool.vacateNights(room, nightMask);
+                roomTypePools.get(room.getRoomType()).vacateNights(room, nightMask);
+                bookedRoomCounter.add(reservation.getCheckInDate(), reservation.getCheckOutDate(), -1);
+                reservationColumns.remove(reservation);
+                fireReservationRemoved(reservation);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (removed) {
+            fireChangeCommitted();
+        }
+    }
+
+    /**
+     * Changes the price of an unpaid reservation of the hotel and keeps the revenue columns in step.
+     * The reservation is checked while holding the lock of its room, so a reservation marked paid
+     * at the same time keeps its price. A reservation that is not in the hotel yet only gets its new price.
+     *
+     * @param reservation the reservation to reprice
+     * @param totalPriceCents the new total price in cents
+     * @param roomPriceCents the price of the room per night the total was computed from
+     * @param priceVersion the price version the total was computed under
+     * @return false if the reservation is paid or the rates of the price version are no longer kept,
+     *         in which case the reservation is not changed
+     */
+    public boolean updateReservationPricing(Reservation reservation, long totalPriceCents, long roomPriceCents, long priceVersion) {
+        ReentrantLock lock = getRoomLock(reservation.getRoom());
+        long[] nightRates;
+        boolean added;
+
+        lock.lock();
+        try {
+            if (reservation.isPaid()) {
+                return false;
+            }
+            synchronized (commitLock) {
+                nightRates = getNightRates(reservation, priceVersion);
+            }
+            if (nightRates == null) {
+                return false;
+            }
+            added = changeReservationPricing(reservation, totalPriceCents, roomPriceCents, priceVersion, nightRates);
+        } finally {
+            lock.unlock();
+        }
+        if (added) {
+            fireChangeCommitted();
+        }
+        return true;
+    }
+
+    /**
+     * Changes the price of a reservation of the hotel to a price whose nightly rates are given, such as
+     * one read back from a journal. The reservation is changed even when it is paid.
+     *
+     * @param reservation the reservation to reprice
+     * @param totalPriceCents the new total price in cents
+     * @param roomPriceCents the price of the room per night the total was computed from
+     * @param priceVersion the price version the total was computed under
+     * @param nightRates the rate of every night of the stay in basis points, starting with the check-in night
+     */
+    public void updateReservationPricing(Reservation reservation, long totalPriceCents, long roomPriceCents, long priceVersion, long[] nightRates) {
+        ReentrantLock lock = getRoomLock(reservation.getRoom());
+        boolean added;
+
+        lock.lock();
+        try {
+            added = changeReservationPricing(reservation, totalPriceCents, roomPriceCents, priceVersion, nightRates);
+        } finally {
+            lock.unlock();
+        }
+        if (added) {
+            fireChangeCommitted();
+        }
+    }
+
+    /**
+     * Sets the price of a reservation and tells the listeners if the reservation is in the hotel.
+     * The caller must hold the lock of the room of the reservation.
+     *
+     * @return true if the reservation is in the hotel
+     */
+    private boolean changeReservationPricing(Reservation reservation, long totalPriceCents, long roomPriceCents, long priceVersion, long[] nightRates) {
+        boolean added;
+
+        reservation.updatePricing(totalPriceCents, roomPriceCents, priceVersion, nightRates);
+        reservationColumns.updatePrice(reservation);
+        added = snapshot.containsReservation(reservation);
+        if (added) {
+            fireReservationChanged(reservation);
+        }
+        return added;
+    }
+
+    /**
+     * Changes the package chosen for a reservation of the hotel.
+     *
+     * @param reservation the reservation
+     * @param chosenPackage the name of the package
+     */
+    public void updateReservationPackage(Reservation reservation, String chosenPackage) {
+        ReentrantLock lock = getRoomLock(reservation.getRoom());
+        boolean added;
+
+        lock.lock();
+        try {
+            reservation.updateChosenPackage(chosenPackage);
+            added = snapshot.containsReservation(reservation);
+            if (added) {
+                fireReservationChanged(reservation);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (added) {
+            fireChangeCommitted();
+        }
+    }
+
+    /**
+     * Marks a reservation of the hotel as paid, so it keeps its price when prices change.
+     *
+     * @param reservation the reservation
+     */
+    public void markReservationPaid(Reservation reservation) {
+        ReentrantLock lock = getRoomLock(reservation.getRoom());
+        boolean added;
+
+        lock.lock();
+        try {
+            reservation.markPaid();
+            added = snapshot.containsReservation(reservation);
+            if (added) {
+                fireReservationChanged(reservation);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (added) {
+            fireChangeCommitted();
+        }
+    }
+
+    /**
+     * Sums the revenue, the sold room-nights, and the average daily rate of the nights in a range.
+     * The sum runs over the reservation columns instead of the reservation objects.
+     *
+     * @param fromDate the first night of the range, at least 0
+     * @param toDate the night after the range
+     * @param roomType the type of the rooms to count, or null for every type
+     * @return the revenue report of the range
+     */
+    public RevenueReport computeRevenue(int fromDate, int toDate, RoomType roomType) {
+        return reservationColumns.computeRevenue(fromDate, toDate, roomType);
+    }
+
+    /**
+     * Gets the total price of every reservation in the hotel.
+     *
+     * @return the total earnings in cents
+     */
+    public long getTotalEarningsCents() {
+        return computeRevenue(0, Integer.MAX_VALUE, null).getRevenueCents();
+    }
+
+    /**
+     * Gets the number of rooms booked on a date. The count is kept up to date by every booking
+     * and cancellation, so reading it costs O(log n) instead of a scan of the reservations.
+     *
+     * @param date the date to check
+     * @return the number of booked rooms
+     */
+    public int getBookedRoomCount(int date) {
+        return bookedRoomCounter.get(date);
+    }
+
+    /**
+     * Gets the number of rooms still free on a date.
+     *
+     * @param date the date to check
+     * @return the number of available rooms
+     */
+    public int getAvailableRoomCount(int date) {
+        return getRoomList().size() - getBookedRoomCount(date);
+    }
+
+    /**
+     * Gets the highest number of rooms booked on any night of a range.
+     *
+     * @param checkInDate the first night of the range
+     * @param checkOutDate the night after the range
+     * @return the peak number of booked rooms
+     */
+    public int getPeakBookedRoomCount(int checkInDate, int checkOutDate) {
+        return bookedRoomCounter.getMax(checkInDate, checkOutDate);
+    }
+
+    /**
+     * Builds the bitmap of the nights from the check-in date up to the night before the check-out date.
+     * Only the nights inside the bitmap window of RoomPool.NIGHTS nights are included.
+     *
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @return the bitmap where bit n is set for each night n of the stay
+     */
+    public static long getNightMask(int checkInDate, int checkOutDate) {
+        if (checkInDate >= RoomPool.NIGHTS || checkOutDate <= checkInDate) {
+            return 0;
+        }
+        if (checkOutDate >= RoomPool.NIGHTS) {
+            return -1L << checkInDate;
+        }
+        return ((1L << checkOutDate) - 1) & (-1L << checkInDate);
+    }
+
+    /**
+     * Checks if a stay fits entirely inside the bitmap window.
+     *
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @return true if every night of the stay has a bit in the occupancy bitmaps
+     */
+    public static boolean isWithinNightWindow(int checkInDate, int checkOutDate) {
+        return checkInDate >= 0 && checkOutDate < RoomPool.NIGHTS;
+    }
+
+    /**
+     * Checks if a room has no reservation overlapping the given dates.
+     *
+     * @param room the room to check
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @return true if the room is free for the whole stay, false otherwise
+     */
+    public boolean isRoomAvailable(Room room, int checkInDate, int checkOutDate) {
+        if (isWithinNightWindow(checkInDate, checkOutDate)) {
+            return room.isAvailable(getNightMask(checkInDate, checkOutDate));
+        }
+        return room.isAvailable(checkInDate, checkOutDate);
+    }
+
+    /**
+     * Finds the first room in the room list that is free for the given dates.
+     *
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @return the first available room, or null if every room is booked
+     */
+    public Room findAvailableRoom(int checkInDate, int checkOutDate) {
+        return findAvailableRoom(roomPool, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Finds the first room of a given type that is free for the given dates.
+     *
+     * @param roomType the type of room to look for
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @return the first available room of the type, or null if every room of the type is booked
+     */
+    public Room findAvailableRoom(RoomType roomType, int checkInDate, int checkOutDate) {
+        return findAvailableRoom(roomTypePools.get(roomType), checkInDate, checkOutDate);
+    }
+
+    /**
+     * Finds the free room of a given type with the lowest cost for the given dates, without building a list
+     * of the free rooms. Ties go to the first room in the room list.
+     *
+     * @param roomType the type of room to look for
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @param costFunction the cost of a free room, at least 0
+     * @return the free room of the type with the lowest cost, or null if every room of the type is booked
+     */
+    public Room findBestRoom(RoomType roomType, int checkInDate, int checkOutDate, ToLongFunction<Room> costFunction) {
+        if (isWithinNightWindow(checkInDate, checkOutDate)) {
+            return roomTypePools.get(roomType).findBestRoom(getNightMask(checkInDate, checkOutDate), costFunction);
+        }
+        return roomTypePools.get(roomType).findBestRoom(getNightMask(checkInDate, checkOutDate),
+                room -> room.isAvailable(checkInDate, checkOutDate) ? costFunction.applyAsLong(room) : -1);
+    }
+
+    /**
+     * Gets every room of a given type that is free for the given dates.
+     *
+     * @param roomType the type of room to look for
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @return the list of available rooms of the type
+     */
+    public ArrayList<Room> getAvailableRooms(RoomType roomType, int checkInDate, int checkOutDate) {
+        return getAvailableRooms(roomTypePools.get(roomType), checkInDate, checkOutDate);
+    }
+
+    /**
+     * Gets every room of any type that is free for the given dates.
+     *
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @return the list of available rooms in room list order
+     */
+    public ArrayList<Room> getAvailableRooms(int checkInDate, int checkOutDate) {
+        return getAvailableRooms(roomPool, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Gets every room of a pool that is free for the given dates.
+     */
+    private ArrayList<Room> getAvailableRooms(RoomPool pool, int checkInDate, int checkOutDate) {
+        ArrayList<Room> availableRoomList = pool.getAvailableRooms(getNightMask(checkInDate, checkOutDate));
+
+        if (!isWithinNightWindow(checkInDate, checkOutDate)) {
+            availableRoomList.removeIf(room -> !room.isAvailable(checkInDate, checkOutDate));
+        }
+        return availableRoomList;
+    }
+
+    /**
+     * Finds the first room of a pool that is free for the given dates.
+     * Stays inside the bitmap window are answered by the pool alone, while longer
+     * stays narrow the rooms down with the bitmap and then ask each room's stay index.
+     */
+    private Room findAvailableRoom(RoomPool pool, int checkInDate, int checkOutDate) {
+        long nightMask = getNightMask(checkInDate, checkOutDate);
+
+        if (isWithinNightWindow(checkInDate, checkOutDate)) {
+            return pool.findAvailableRoom(nightMask);
+        }
+        for (Room room : pool.getAvailableRooms(nightMask)) {
+            if (room.isAvailable(checkInDate, checkOutDate)) {
+                return room;
+            }
+        }
+        return null;
     }
 
     /**
     * Calculate and modifies the price in a specific date/s.
     */
     public void datePriceModifier(Reservation reservation){
-       int nightsOfStay;
-       double totalPrice = 0;
-       int index = 0;
+        PriceState state = priceState;
 
-        for(nightsOfStay = reservation.getCheckInDate(); nightsOfStay < reservation.getCheckOutDate(); nightsOfStay++) {
-            if (getDateWithModifiedPriceIndex(nightsOfStay) >= 0 && getDateWithModifiedPriceIndex(nightsOfStay) <= 31) {
-               index = getDateWithModifiedPriceIndex(nightsOfStay);
-               totalPrice += reservation.getRoom().getPrice() * getPriceRateList().get(index);
-            } else if (getDateWithModifiedPriceIndex(nightsOfStay) == -999){
-               totalPrice += reservation.getRoom().getPrice();
-           }
-        }
-        reservation.updateTotalPrice(totalPrice);
+        updateReservationPricing(reservation, state.computeStayPriceCents(reservation.getRoom(), reservation.getCheckInDate(), reservation.getCheckOutDate()),
+                state.getRoomPriceCents(reservation.getRoom()), state.getVersion());
     }
 
     /**
-    * This method will check if the price in a specific day is modified and return the index of the date with modified price rate.
+    * Calculates the price of a stay in a room with the date price modifiers applied.
+    * The rates of the stay are summed with one subtraction of running sums, so the cost does not grow with the stay.
+    * The rates are those of the type of the room, which follow occupancy when dynamic pricing is on.
     *
-    * @return the index of the dateModifiedPriceList
+    * @param room the room of the stay
+    * @param checkInDate the check-in date
+    * @param checkOutDate the check-out date
+    * @return the price of the stay in cents, rounded once by Money.multiplyBasisPoints
     */
-    public int getDateWithModifiedPriceIndex(int nightsOfStay){
-        int i;
-        for (i = 0; i < getDateModifiedPriceList().size(); i++) {
-            if (getDateModifiedPriceList().get(i) == nightsOfStay) {
-                return i;
-            }
-        }
-        return -999;
-    } 
-}
\ No newline at end of file
+    public long computeStayPriceCents(Room room, int checkInDate, int checkOutDate){
+        return priceState.computeStayPriceCents(room, checkInDate, checkOutDate);
+    }
+
+    /**
+    * Calculates the price of the first night of a stay in a room with its date price modifier applied.
+    *
+    * @param room the room of the stay
+    * @param date the night
+    * @return the price of the night in cents
+    */
+    public long computeNightPriceCents(Room room, int date){
+        return priceState.computeNightPriceCents(room, date);
+    }
+
+    /**
+    * Gets the price rate of a night, which is 1.0 when the price of the night is not modified.
+    *
+    * @param date the night to check
+    * @return the price rate of the night
+    */
+    public double getNightRate(int date){
+        return rateCalendar.getRate(date);
+    }
+}
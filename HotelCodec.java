@@ -0,0 +1,666 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The HotelCodec class turns a hotel, its rooms, and its reservations into compact bytes and back, both for the
+ * hotel files and for sending the state of a hotel to another process. The bytes start with a magic number and
+ * a format version, so data of a newer format is refused instead of misread.
+ * Numbers are written as variable-length integers of 7 bits per byte, so small counts, days, and prices take one
+ * to three bytes; numbers that may be negative are zigzag-coded first. Reservation IDs are written as the
+ * difference from the previous one. A guest name, discount, package, or room status is written in full the first
+ * time and by its position in a dictionary after that. A room type is written as a fixed tag byte, not as a class
+ * name, so renaming a room class does not break old data.
+ */
+public final class HotelCodec {
+
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x48524344;
+    private static final int KIND_HOTEL = 1;
+    private static final int KIND_RESERVATIONS = 2;
+    private static final int TAG_STANDARD = 1;
+    private static final int TAG_DELUXE = 2;
+    private static final int TAG_EXECUTIVE = 3;
+    private static final int CODE_NULL = 0;
+    private static final int CODE_NEW = 1;
+
+    /**
+     * The HotelState class holds the state of a hotel at one moment. The reservations themselves are
+     * written later and may already have a newer price or package, which the journal records after the
+     * moment set again when they are read back.
+     */
+    public static class HotelState {
+        private HotelSnapshot snapshot;
+        private String namingScheme;
+        private long[] basePriceCents;
+        private String[] statuses;
+        private RateCalendar rateCalendar;
+        private DynamicPricing pricing;
+        private long nextReservationId;
+        private long priceVersion;
+        private long rateChangeVersion;
+        private long sequence;
+
+        /**
+         * Copies the state of a hotel. The caller must run this inside Hotel.runExclusively.
+         *
+         * @param hotel the hotel to copy
+         * @param sequence the last journal record the state includes
+         */
+        public HotelState(Hotel hotel, long sequence) {
+            List<Room> roomList;
+            int i;
+
+            this.snapshot = hotel.getSnapshot();
+            this.namingScheme = hotel.getNamingScheme();
+            this.rateCalendar = hotel.getRateCalendar();
+            this.pricing = hotel.getDynamicPricing();
+            this.nextReservationId = hotel.getNextReservationId();
+            this.priceVersion = hotel.getPriceVersion();
+            this.rateChangeVersion = hotel.getRateChangeVersion();
+            this.sequence = sequence;
+            roomList = snapshot.getRoomList();
+            basePriceCents = new long[roomList.size()];
+            statuses = new String[roomList.size()];
+            for (i = 0; i < roomList.size(); i++) {
+                basePriceCents[i] = roomList.get(i).getBasePriceCents();
+                statuses[i] = roomList.get(i).getStatus();
+            }
+        }
+
+        /**
+         * Gets the rooms and reservations of the hotel at the moment of the state.
+         *
+         * @return the snapshot of the hotel
+         */
+        public HotelSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        /**
+         * Gets the last journal record the state includes.
+         *
+         * @return the sequence number of the record
+         */
+        public long getSequence() {
+            return sequence;
+        }
+    }
+
+    private HotelCodec() {
+    }
+
+    /**
+     * Encodes a hotel with its rooms and reservations. The hotel is frozen only while its state is copied.
+     *
+     * @param hotel the hotel to encode
+     * @return the encoded hotel
+     */
+    public static byte[] encodeHotel(Hotel hotel) {
+        HotelState[] state = new HotelState[1];
+
+        hotel.runExclusively(() -> state[0] = new HotelState(hotel, 0));
+        return encodeHotel(state[0]);
+    }
+
+    /**
+     * Encodes the state of a hotel with its rooms and reservations.
+     *
+     * @param state the state of the hotel
+     * @return the encoded hotel
+     */
+    public static byte[] encodeHotel(HotelState state) {
+        List<Room> roomList = state.snapshot.getRoomList();
+        List<Reservation> reservationList = state.snapshot.getReservationList();
+        IdentityHashMap<Room, Integer> roomIndexMap = new IdentityHashMap<Room, Integer>();
+        HashMap<String, Integer> labelMap = new HashMap<String, Integer>();
+        Output out = new Output(64 + 16 * roomList.size() + 20 * reservationList.size());
+        long[] rates = state.rateCalendar.toBasisPointArray();
+        double[] thresholds, multipliers;
+        Room room;
+        int i;
+
+        for (i = 0; i < roomList.size(); i++) {
+            roomIndexMap.put(roomList.get(i), i);
+        }
+
+        writeHeader(out, KIND_HOTEL);
+        out.writeString(state.snapshot.getHotelName());
+        writeLabel(out, state.namingScheme, labelMap);
+        out.writeSignedVarLong(state.nextReservationId);
+        out.writeSignedVarLong(state.priceVersion);
+        out.writeSignedVarLong(state.rateChangeVersion);
+
+        out.writeVarLong(rates.length);
+        for (long rate : rates) {
+            out.writeSignedVarLong(rate);
+        }
+        if (state.pricing == null) {
+            out.writeVarLong(0);
+        } else {
+            out.writeVarLong(RoomType.values().length);
+            for (RoomType roomType : RoomType.values()) {
+                thresholds = state.pricing.getThresholds(roomType);
+                multipliers = state.pricing.getMultipliers(roomType);
+                out.writeByte(toTag(roomType));
+                out.writeVarLong(thresholds.length);
+                for (i = 0; i < thresholds.length; i++) {
+                    out.writeDouble(thresholds[i]);
+                    out.writeDouble(multipliers[i]);
+                }
+            }
+        }
+
+        out.writeVarLong(roomList.size());
+        for (i = 0; i < roomList.size(); i++) {
+            room = roomList.get(i);
+            out.writeString(room.getRoomName());
+            out.writeByte(toTag(room.getRoomType()));
+            out.writeSignedVarLong(state.basePriceCents[i]);
+            writeLabel(out, state.statuses[i], labelMap);
+        }
+
+        writeReservations(out, reservationList, roomIndexMap, labelMap);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a hotel with its rooms and reservations.
+     *
+     * @param data the encoded hotel
+     * @return the restored hotel, which has no listeners yet
+     * @throws IllegalStateException if the data is not an encoded hotel, is of a newer format, or is invalid
+     */
+    public static Hotel decodeHotel(byte[] data) {
+        return decodeHotel(data, 0, data.length);
+    }
+
+    /**
+     * Decodes a hotel with its rooms and reservations from a part of an array.
+     *
+     * @param data the array that holds the encoded hotel
+     * @param offset the position of the encoded hotel in the array
+     * @param length the number of bytes of the encoded hotel
+     * @return the restored hotel, which has no listeners yet
+     * @throws IllegalStateException if the data is not an encoded hotel, is of a newer format, or is invalid
+     */
+    public static Hotel decodeHotel(byte[] data, int offset, int length) {
+        Input in = new Input(data, offset, length);
+        ArrayList<String> labelList = new ArrayList<String>();
+        ArrayList<Room> roomList = new ArrayList<Room>();
+        ArrayList<Reservation> reservationList;
+        double[][] thresholds = null, multipliers = null;
+        DynamicPricing pricing = null;
+        long[] rates;
+        String namingScheme, roomName;
+        Hotel hotel;
+        Room room;
+        long nextReservationId, priceVersion, rateChangeVersion;
+        int count, typeIndex, i, j;
+
+        readHeader(in, KIND_HOTEL);
+        hotel = new Hotel(in.readString());
+        namingScheme = readLabel(in, labelList);
+        nextReservationId = in.readSignedVarLong();
+        priceVersion = in.readSignedVarLong();
+        rateChangeVersion = in.readSignedVarLong();
+
+        rates = new long[in.readCount(1)];
+        for (i = 0; i < rates.length; i++) {
+            rates[i] = in.readSignedVarLong();
+        }
+        count = in.readCount(2);
+        if (count > 0) {
+            thresholds = new double[RoomType.values().length][];
+            multipliers = new double[RoomType.values().length][];
+            for (i = 0; i < count; i++) {
+                typeIndex = fromTag(in.readByte()).ordinal();
+                thresholds[typeIndex] = new double[in.readCount(16)];
+                multipliers[typeIndex] = new double[thresholds[typeIndex].length];
+                for (j = 0; j < thresholds[typeIndex].length; j++) {
+                    thresholds[typeIndex][j] = in.readDouble();
+                    multipliers[typeIndex][j] = in.readDouble();
+                }
+            }
+            for (i = 0; i < thresholds.length; i++) {
+                if (thresholds[i] == null) {
+                    throw new IllegalStateException("The encoded hotel has no pricing tiers for " + RoomType.values()[i]);
+                }
+            }
+            pricing = DynamicPricing.fromTiers(thresholds, multipliers);
+        }
+
+        count = in.readCount(4);
+        roomList.ensureCapacity(count);
+        for (i = 0; i < count; i++) {
+            roomName = in.readString();
+            room = fromTag(in.readByte()).createRoom(roomName);
+            room.updatePriceCents(in.readSignedVarLong());
+            room.updateStatus(readLabel(in, labelList));
+            roomList.add(room);
+        }
+
+        reservationList = readReservations(in, roomList, labelList);
+        in.checkEnd();
+        hotel.restoreRooms(namingScheme, roomList);
+        if (!hotel.addReservations(reservationList).isEmpty()) {
+            throw new IllegalStateException("The encoded hotel " + hotel.getHotelName() + " books a room twice");
+        }
+        hotel.restoreRates(new RateCalendar().withRateRange(0, rates), pricing, priceVersion, rateChangeVersion);
+        hotel.restoreNextReservationId(nextReservationId);
+        return hotel;
+    }
+
+    /**
+     * Encodes reservations on their own, such as to send them to another process that has their hotel.
+     * The rooms are named by their names.
+     *
+     * @param reservationList the reservations to encode, all of one hotel
+     * @return the encoded reservations
+     */
+    public static byte[] encodeReservations(List<Reservation> reservationList) {
+        IdentityHashMap<Room, Integer> roomIndexMap = new IdentityHashMap<Room, Integer>();
+        HashMap<String, Integer> labelMap = new HashMap<String, Integer>();
+        ArrayList<Room> roomList = new ArrayList<Room>();
+        Output out = new Output(32 + 20 * reservationList.size());
+
+        for (Reservation reservation : reservationList) {
+            if (!roomIndexMap.containsKey(reservation.getRoom())) {
+                roomIndexMap.put(reservation.getRoom(), roomList.size());
+                roomList.add(reservation.getRoom());
+            }
+        }
+        writeHeader(out, KIND_RESERVATIONS);
+        out.writeVarLong(roomList.size());
+        for (Room room : roomList) {
+            out.writeString(room.getRoomName());
+        }
+        writeReservations(out, reservationList, roomIndexMap, labelMap);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes reservations encoded on their own. Their rooms are looked up by name in a hotel, but the
+     * reservations are not added to it.
+     *
+     * @param data the encoded reservations
+     * @param hotel the hotel whose rooms the reservations book
+     * @return the decoded reservations, in the order they were encoded
+     * @throws IllegalStateException if the data is not encoded reservations, is of a newer format, is invalid,
+     *         or names a room the hotel does not have
+     */
+    public static ArrayList<Reservation> decodeReservations(byte[] data, Hotel hotel) {
+        Input in = new Input(data, 0, data.length);
+        ArrayList<Room> roomList = new ArrayList<Room>();
+        ArrayList<Reservation> reservationList;
+        String roomName;
+        Room room;
+        int count, i;
+
+        readHeader(in, KIND_RESERVATIONS);
+        count = in.readCount(1);
+        for (i = 0; i < count; i++) {
+            roomName = in.readString();
+            room = hotel.getRoom(roomName);
+            if (room == null) {
+                throw new IllegalStateException("The hotel " + hotel.getHotelName() + " has no room " + roomName);
+            }
+            roomList.add(room);
+        }
+        reservationList = readReservations(in, roomList, new ArrayList<String>());
+        in.checkEnd();
+        return reservationList;
+    }
+
+    /**
+     * Writes the magic number, the format version, and what the data holds.
+     */
+    private static void writeHeader(Output out, int kind) {
+        out.writeInt(MAGIC);
+        out.writeVarLong(FORMAT_VERSION);
+        out.writeVarLong(kind);
+    }
+
+    /**
+     * Checks the magic number, the format version, and what the data holds.
+     */
+    private static void readHeader(Input in, int kind) {
+        long formatVersion;
+
+        if (in.readInt() != MAGIC) {
+            throw new IllegalStateException("The data was not written by HotelCodec");
+        }
+        formatVersion = in.readVarLong();
+        if (formatVersion < 1 || formatVersion > FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported codec format " + formatVersion);
+        }
+        if (in.readVarLong() != kind) {
+            throw new IllegalStateException("The data does not hold " + (kind == KIND_HOTEL ? "a hotel" : "reservations"));
+        }
+    }
+
+    /**
+     * Writes the count of the reservations and then each one, with its room as a position in a room map.
+     */
+    private static void writeReservations(Output out, List<Reservation> reservationList, IdentityHashMap<Room, Integer> roomIndexMap,
+            HashMap<String, Integer> labelMap) {
+        HashMap<String, Integer> guestMap = new HashMap<String, Integer>();
+        long previousId = 0;
+        int date;
+
+        out.writeVarLong(reservationList.size());
+        for (Reservation reservation : reservationList) {
+            out.writeSignedVarLong(reservation.getReservationId() - previousId);
+            previousId = reservation.getReservationId();
+            writeLabel(out, reservation.getGuestName(), guestMap);
+            out.writeVarLong(roomIndexMap.get(reservation.getRoom()));
+            out.writeSignedVarLong(reservation.getCheckInDate());
+            out.writeSignedVarLong(reservation.getCheckOutDate() - reservation.getCheckInDate());
+            out.writeSignedVarLong(reservation.getTotalPriceCents());
+            out.writeSignedVarLong(reservation.getRoomPriceCents());
+            out.writeSignedVarLong(reservation.getPriceVersion());
+            for (date = reservation.getCheckInDate(); date < reservation.getCheckOutDate(); date++) {
+                out.writeSignedVarLong(reservation.getNightRateBasisPoints(date) - Money.BASIS_POINTS);
+            }
+            writeLabel(out, reservation.getDiscountStatus(), labelMap);
+            writeLabel(out, reservation.getChosenPackage(), labelMap);
+            out.writeByte(reservation.isPaid() ? 1 : 0);
+        }
+    }
+
+    /**
+     * Reads the reservations written by writeReservations.
+     */
+    private static ArrayList<Reservation> readReservations(Input in, List<Room> roomList, ArrayList<String> labelList) {
+        ArrayList<String> guestList = new ArrayList<String>();
+        ArrayList<Reservation> reservationList;
+        Reservation reservation;
+        String guestName;
+        Room room;
+        long reservationId = 0, totalPriceCents, roomPriceCents, priceVersion;
+        long[] nightRates;
+        int checkInDate, count, roomIndex, i, night;
+
+        count = in.readCount(12);
+        reservationList = new ArrayList<Reservation>(count);
+        for (i = 0; i < count; i++) {
+            reservationId += in.readSignedVarLong();
+            guestName = readLabel(in, guestList);
+            roomIndex = in.readCount(0);
+            if (roomIndex >= roomList.size()) {
+                throw new IllegalStateException("The encoded reservation " + reservationId + " names room " + roomIndex
+                        + " of " + roomList.size());
+            }
+            room = roomList.get(roomIndex);
+            checkInDate = (int) in.readSignedVarLong();
+            reservation = new Reservation(guestName, checkInDate, checkInDate + (int) in.readSignedVarLong(), room);
+            reservation.assignReservationId(reservationId);
+            totalPriceCents = in.readSignedVarLong();
+            roomPriceCents = in.readSignedVarLong();
+            priceVersion = in.readSignedVarLong();
+            nightRates = new long[in.checkCount(reservation.getCheckOutDate() - reservation.getCheckInDate(), 1)];
+            for (night = 0; night < nightRates.length; night++) {
+                nightRates[night] = in.readSignedVarLong() + Money.BASIS_POINTS;
+            }
+            reservation.updatePricing(totalPriceCents, roomPriceCents, priceVersion, nightRates);
+            reservation.applyDiscountCode(readLabel(in, labelList));
+            reservation.updateChosenPackage(readLabel(in, labelList));
+            if (in.readByte() != 0) {
+                reservation.markPaid();
+            }
+            reservationList.add(reservation);
+        }
+        return reservationList;
+    }
+
+    /**
+     * Writes a string that is often repeated: 0 for null, 1 followed by the string the first time it is
+     * written, and its position in the dictionary plus 2 after that.
+     */
+    private static void writeLabel(Output out, String label, HashMap<String, Integer> dictionary) {
+        Integer position;
+
+        if (label == null) {
+            out.writeVarLong(CODE_NULL);
+            return;
+        }
+        position = dictionary.get(label);
+        if (position == null) {
+            dictionary.put(label, dictionary.size());
+            out.writeVarLong(CODE_NEW);
+            out.writeString(label);
+        } else {
+            out.writeVarLong(position + 2);
+        }
+    }
+
+    /**
+     * Reads a string written by writeLabel, adding new strings to the dictionary.
+     */
+    private static String readLabel(Input in, ArrayList<String> dictionary) {
+        String label;
+        int code = in.readCount(0);
+
+        if (code == CODE_NULL) {
+            return null;
+        }
+        if (code == CODE_NEW) {
+            label = in.readString();
+            dictionary.add(label);
+            return label;
+        }
+        if (code - 2 >= dictionary.size()) {
+            throw new IllegalStateException("The encoded string " + code + " is not in the dictionary");
+        }
+        return dictionary.get(code - 2);
+    }
+
+    /**
+     * Gets the tag byte of a room type. The tags never change, whatever the order of the enum.
+     */
+    private static int toTag(RoomType roomType) {
+        switch (roomType) {
+            case DELUXE:
+                return TAG_DELUXE;
+            case EXECUTIVE:
+                return TAG_EXECUTIVE;
+            default:
+                return TAG_STANDARD;
+        }
+    }
+
+    /**
+     * Gets the room type of a tag byte.
+     */
+    private static RoomType fromTag(int tag) {
+        switch (tag) {
+            case TAG_STANDARD:
+                return RoomType.STANDARD;
+            case TAG_DELUXE:
+                return RoomType.DELUXE;
+            case TAG_EXECUTIVE:
+                return RoomType.EXECUTIVE;
+            default:
+                throw new IllegalStateException("Unknown room type tag " + tag);
+        }
+    }
+
+    /**
+     * The Output class is a growing array of bytes.
+     */
+    private static class Output {
+        private byte[] bytes;
+        private int length = 0;
+
+        Output(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(4);
+            bytes[length++] = (byte) (value >>> 24);
+            bytes[length++] = (byte) (value >>> 16);
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            int i;
+
+            ensureCapacity(8);
+            for (i = 0; i < 8; i++) {
+                bytes[length++] = (byte) (bits >>> (8 * i));
+            }
+        }
+
+        /**
+         * Writes the byte length and the UTF-8 bytes of a string, copying plain ASCII without encoding it.
+         */
+        void writeString(String value) {
+            byte[] encoded;
+            int i;
+
+            for (i = 0; i < value.length(); i++) {
+                if (value.charAt(i) >= 0x80) {
+                    encoded = value.getBytes(StandardCharsets.UTF_8);
+                    writeVarLong(encoded.length);
+                    ensureCapacity(encoded.length);
+                    System.arraycopy(encoded, 0, bytes, length, encoded.length);
+                    length += encoded.length;
+                    return;
+                }
+            }
+            writeVarLong(value.length());
+            ensureCapacity(value.length());
+            for (i = 0; i < value.length(); i++) {
+                bytes[length++] = (byte) value.charAt(i);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+
+    /**
+     * The Input class reads a part of an array of bytes. Reading past the end is an invalid encoding.
+     */
+    private static class Input {
+        private byte[] bytes;
+        private int position;
+        private int limit;
+
+        Input(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+
+        int readByte() {
+            if (position >= limit) {
+                throw new IllegalStateException("The encoded data is cut short");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        int readInt() {
+            return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0, b;
+
+            do {
+                if (shift > 63) {
+                    throw new IllegalStateException("The encoded number is too long");
+                }
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long readSignedVarLong() {
+            long value = readVarLong();
+
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * Reads a count or a position that fits an int. When each counted item takes at least some bytes,
+         * a count larger than the rest of the data can hold is refused before anything is allocated.
+         */
+        int readCount(int minimumItemLength) {
+            return checkCount(readVarLong(), minimumItemLength);
+        }
+
+        /**
+         * Checks a count that was read as part of other data, such as the nights of a stay, in the same way as readCount.
+         */
+        int checkCount(long value, int minimumItemLength) {
+            if (value < 0 || value > Integer.MAX_VALUE
+                    || (minimumItemLength > 0 && value > (limit - position) / minimumItemLength)) {
+                throw new IllegalStateException("The encoded count " + value + " is invalid");
+            }
+            return (int) value;
+        }
+
+        double readDouble() {
+            long bits = 0;
+            int i;
+
+            for (i = 0; i < 8; i++) {
+                bits |= (long) readByte() << (8 * i);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        String readString() {
+            int length = readCount(1);
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+
+            position += length;
+            return value;
+        }
+
+        void checkEnd() {
+            if (position != limit) {
+                throw new IllegalStateException("The encoded data has " + (limit - position) + " bytes too many");
+            }
+        }
+    }
+}
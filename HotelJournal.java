@@ -0,0 +1,639 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The HotelJournal class writes every change to the hotels of a model to a Journal and reads them back
+ * when the system starts. It listens to every hotel; each change is added to the journal while the hotel
+ * is still locked, so the records keep the order of the changes, and the changing thread waits for the
+ * disk only after the locks are released. Hotels are named by a number given when they are created,
+ * so records stay valid after a hotel is renamed.
+ * Records hold the prices that were charged, so reading them back never prices a stay again.
+ * A background thread writes a snapshot from time to time and deletes the journal segments it covers, so the
+ * system starts from the latest snapshot and replays only the records after it. A snapshot only writes the hotels
+ * that changed since their last file; the others keep the file they have. The system starts with every hotel
+ * unloaded except those with records after their file, and a hotel written to its file when it is unloaded
+ * can be loaded again from it.
+ */
+public class HotelJournal {
+
+    /**
+     * The directory the journal and the snapshots are kept in when the system starts.
+     */
+    public static final String DEFAULT_DIRECTORY = "data";
+
+    /**
+     * The number of new records after which the next check writes a snapshot.
+     */
+    public static final long SNAPSHOT_RECORDS = 100000;
+
+    /**
+     * The number of minutes after which the next check writes a snapshot if anything changed.
+     */
+    public static final long SNAPSHOT_MINUTES = 10;
+
+    private static final long SNAPSHOT_CHECK_SECONDS = 30;
+
+    private static final String HOTEL_CREATED = "HOTEL_CREATED";
+    private static final String HOTEL_REMOVED = "HOTEL_REMOVED";
+    private static final String HOTEL_RENAMED = "HOTEL_RENAMED";
+    private static final String ROOMS_ADDED = "ROOMS_ADDED";
+    private static final String ROOM_REMOVED = "ROOM_REMOVED";
+    private static final String ROOM_PRICE = "ROOM_PRICE";
+    private static final String NIGHT_RATES = "NIGHT_RATES";
+    private static final String DYNAMIC_PRICING = "DYNAMIC_PRICING";
+    private static final String RESERVATION_ADDED = "RESERVATION_ADDED";
+    private static final String RESERVATION_CHANGED = "RESERVATION_CHANGED";
+    private static final String RESERVATION_REMOVED = "RESERVATION_REMOVED";
+
+    private Journal journal;
+    private SnapshotStore snapshotStore;
+    private HotelReservationModel model;
+    private ConcurrentHashMap<Integer, HotelRecorder> recorderMap = new ConcurrentHashMap<Integer, HotelRecorder>();
+    private HashSet<Integer> removedHotelIds = new HashSet<Integer>();
+    private Object hotelListLock = new Object();
+    private Object snapshotLock = new Object();
+    private ScheduledExecutorService snapshotScheduler;
+    private volatile long lastSnapshotSequence;
+    private volatile long lastSnapshotTime = System.currentTimeMillis();
+    private volatile Exception snapshotFailure;
+
+    /**
+     * The HotelRecorder class writes the changes of one hotel to the journal and remembers the file of the hotel,
+     * so the hotel is only written again when it changed.
+     */
+    private class HotelRecorder implements HotelListener {
+        private int hotelId;
+        private String hotelIdField;
+        private AtomicLong lastSequence = new AtomicLong();
+        private volatile SnapshotStore.StoredHotel storedHotel;
+
+        /**
+         * Constructs a new HotelRecorder.
+         *
+         * @param hotelId the number the journal names the hotel by
+         * @param storedHotel the file of the hotel, or null if it has none yet
+         */
+        private HotelRecorder(int hotelId, SnapshotStore.StoredHotel storedHotel) {
+            this.hotelId = hotelId;
+            this.hotelIdField = String.valueOf(hotelId);
+            this.storedHotel = storedHotel;
+        }
+
+        /**
+         * Tells whether the hotel has records its file does not include.
+         */
+        private boolean isChanged() {
+            return storedHotel == null || lastSequence.get() > storedHotel.getSequence();
+        }
+
+        /**
+         * Adds a record of the hotel to the journal.
+         */
+        private void append(String... fields) {
+            long sequence = journal.append(fields);
+
+            lastSequence.accumulateAndGet(sequence, Math::max);
+        }
+
+        @Override
+        public void reservationAdded(Hotel hotel, Reservation reservation) {
+            append(RESERVATION_ADDED, hotelIdField, String.valueOf(reservation.getReservationId()),
+                    reservation.getGuestName(), String.valueOf(reservation.getCheckInDate()), String.valueOf(reservation.getCheckOutDate()),
+                    reservation.getRoom().getRoomName(), String.valueOf(reservation.getTotalPriceCents()),
+                    String.valueOf(reservation.getRoomPriceCents()), String.valueOf(reservation.getPriceVersion()),
+                    reservation.getDiscountStatus(), reservation.getChosenPackage(), String.valueOf(reservation.isPaid()),
+                    formatNightRates(reservation));
+        }
+
+        @Override
+        public void reservationRemoved(Hotel hotel, Reservation reservation) {
+            append(RESERVATION_REMOVED, hotelIdField, String.valueOf(reservation.getReservationId()));
+        }
+
+        @Override
+        public void reservationChanged(Hotel hotel, Reservation reservation) {
+            append(RESERVATION_CHANGED, hotelIdField, String.valueOf(reservation.getReservationId()),
+                    String.valueOf(reservation.getTotalPriceCents()), String.valueOf(reservation.getRoomPriceCents()),
+                    String.valueOf(reservation.getPriceVersion()), reservation.getChosenPackage(), String.valueOf(reservation.isPaid()),
+                    formatNightRates(reservation));
+        }
+
+        @Override
+        public void roomsAdded(Hotel hotel, String namingScheme, List<Room> roomList) {
+            String[] fields = new String[3 + roomList.size() * 2];
+            int i;
+
+            fields[0] = ROOMS_ADDED;
+            fields[1] = hotelIdField;
+            fields[2] = namingScheme == null ? "" : namingScheme;
+            for (i = 0; i < roomList.size(); i++) {
+                fields[3 + i * 2] = roomList.get(i).getRoomName();
+                fields[4 + i * 2] = roomList.get(i).getRoomType().name();
+            }
+            append(fields);
+        }
+
+        @Override
+        public void roomRemoved(Hotel hotel, Room room) {
+            append(ROOM_REMOVED, hotelIdField, room.getRoomName());
+        }
+
+        @Override
+        public void roomPriceChanged(Hotel hotel, Room room, double newPrice) {
+            append(ROOM_PRICE, hotelIdField, room == null ? "" : room.getRoomName(), String.valueOf(newPrice));
+        }
+
+        @Override
+        public void nightRatesChanged(Hotel hotel, int[] dates, double rate) {
+            StringBuilder dateList = new StringBuilder();
+
+            for (int date : dates) {
+                if (dateList.length() > 0) {
+                    dateList.append(',');
+                }
+                dateList.append(date);
+            }
+            append(NIGHT_RATES, hotelIdField, String.valueOf(rate), dateList.toString());
+        }
+
+        @Override
+        public void dynamicPricingChanged(Hotel hotel, DynamicPricing pricing) {
+            String[] fields = new String[pricing == null ? 2 : 2 + RoomType.values().length];
+            StringBuilder tiers;
+            double[] thresholds, multipliers;
+            int i;
+
+            fields[0] = DYNAMIC_PRICING;
+            fields[1] = hotelIdField;
+            if (pricing != null) {
+                for (RoomType roomType : RoomType.values()) {
+                    thresholds = pricing.getThresholds(roomType);
+                    multipliers = pricing.getMultipliers(roomType);
+                    tiers = new StringBuilder();
+                    for (i = 0; i < thresholds.length; i++) {
+                        if (i > 0) {
+                            tiers.append(',');
+                        }
+                        tiers.append(thresholds[i]).append(':').append(multipliers[i]);
+                    }
+                    fields[2 + roomType.ordinal()] = tiers.toString();
+                }
+            }
+            append(fields);
+        }
+
+        @Override
+        public void hotelRenamed(Hotel hotel, String oldName) {
+            append(HOTEL_RENAMED, hotelIdField, hotel.getHotelName());
+        }
+
+        @Override
+        public void changeCommitted(Hotel hotel) {
+            journal.sync();
+        }
+    }
+
+    /**
+     * Lists the hotels of the latest snapshot in a model, replays the journal records written after it,
+     * and starts recording the changes of the hotels and writing new snapshots in the background.
+     * Only the hotels that have records after their file are loaded.
+     *
+     * @param directory the directory of the journal and the snapshots
+     * @param model the model to fill, which should not have hotels yet
+     * @throws IOException if a file cannot be read or opened
+     * @throws IllegalStateException if a snapshot or a record is invalid
+     */
+    public HotelJournal(File directory, HotelReservationModel model) throws IOException {
+        ArrayList<SnapshotStore.StoredHotel> storedHotelList = new ArrayList<SnapshotStore.StoredHotel>();
+        long startSequence;
+        Hotel hotel;
+
+        this.model = model;
+        snapshotStore = new SnapshotStore(directory);
+        startSequence = snapshotStore.load(storedHotelList);
+        for (SnapshotStore.StoredHotel storedHotel : storedHotelList) {
+            recorderMap.put(storedHotel.getHotelId(), new HotelRecorder(storedHotel.getHotelId(), storedHotel));
+            addStoredHotel(storedHotel);
+        }
+        try {
+            journal = new Journal(directory, startSequence, this::replay);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (HotelRecorder recorder : recorderMap.values()) {
+            hotel = model.getLoadedHotel(recorder.hotelId);
+            if (hotel != null) {
+                hotel.addHotelListener(recorder);
+            }
+        }
+        lastSnapshotSequence = startSequence;
+
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(this::takeSnapshotIfDue, SNAPSHOT_CHECK_SECONDS, SNAPSHOT_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Records a new hotel and starts listening to it. Waits until the record is on disk.
+     *
+     * @param hotelId the number the model names the hotel by
+     * @param hotel the created hotel
+     */
+    public void hotelCreated(int hotelId, Hotel hotel) {
+        HotelRecorder recorder = new HotelRecorder(hotelId, null);
+
+        synchronized (hotelListLock) {
+            recorderMap.put(hotelId, recorder);
+            recorder.append(HOTEL_CREATED, recorder.hotelIdField, hotel.getHotelName());
+            hotel.addHotelListener(recorder);
+        }
+        journal.sync();
+    }
+
+    /**
+     * Records the removal of a hotel and stops listening to it. Waits until the record is on disk.
+     * Its files are deleted by the next snapshot.
+     *
+     * @param hotelId the number the model names the hotel by
+     * @param hotel the removed hotel, or null if it is not loaded
+     */
+    public void hotelRemoved(int hotelId, Hotel hotel) {
+        HotelRecorder recorder;
+
+        synchronized (hotelListLock) {
+            recorder = recorderMap.remove(hotelId);
+            if (recorder != null) {
+                if (hotel != null) {
+                    hotel.removeHotelListener(recorder);
+                }
+                journal.append(HOTEL_REMOVED, recorder.hotelIdField);
+                removedHotelIds.add(hotelId);
+            }
+        }
+        if (recorder != null) {
+            journal.sync();
+        }
+    }
+
+    /**
+     * Loads a hotel from its file and starts listening to it.
+     *
+     * @param hotelId the number the model names the hotel by
+     * @return the loaded hotel
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if the hotel has no file or the file is invalid
+     */
+    public Hotel loadHotel(int hotelId) throws IOException {
+        HotelRecorder recorder = recorderMap.get(hotelId);
+        Hotel hotel;
+
+        if (recorder == null || recorder.storedHotel == null) {
+            throw new IllegalStateException("The hotel " + hotelId + " has no file to load");
+        }
+        hotel = snapshotStore.readHotel(recorder.storedHotel);
+        hotel.addHotelListener(recorder);
+        return hotel;
+    }
+
+    /**
+     * Writes a hotel that is about to be unloaded to a new file, unless its file already includes every change.
+     * The hotel keeps being recorded, so a change made to it later is not lost.
+     *
+     * @param hotelId the number the model names the hotel by
+     * @param hotel the hotel
+     * @throws IOException if the file cannot be written
+     */
+    public void unloadHotel(int hotelId, Hotel hotel) throws IOException {
+        HotelRecorder recorder = recorderMap.get(hotelId);
+
+        if (recorder != null) {
+            saveHotel(recorder, hotel);
+        }
+    }
+
+    /**
+     * Writes a snapshot of every hotel and deletes the journal segments and the files it replaces.
+     * Only the loaded hotels that changed since their last file are written; the others keep their file.
+     * Bookings go on while the snapshot is written; each hotel is only stopped while its state is copied.
+     *
+     * @return the last journal record the snapshot covers
+     * @throws IOException if the snapshot cannot be written
+     */
+    public long takeSnapshot() throws IOException {
+        TreeMap<Integer, HotelRecorder> recorderCopy;
+        HashMap<Integer, Hotel> loadedHotelMap = new HashMap<Integer, Hotel>();
+        ArrayList<SnapshotStore.StoredHotel> storedHotelList = new ArrayList<SnapshotStore.StoredHotel>();
+        ArrayList<Integer> removedHotelIdList;
+        Hotel hotel;
+        long startSequence;
+
+        synchronized (snapshotLock) {
+            synchronized (hotelListLock) {
+                startSequence = journal.getLastSequence();
+                if (startSequence == lastSnapshotSequence) {
+                    return startSequence;
+                }
+                recorderCopy = new TreeMap<Integer, HotelRecorder>(recorderMap);
+                for (HotelRecorder recorder : recorderCopy.values()) {
+                    hotel = model.getLoadedHotel(recorder.hotelId);
+                    if (hotel != null) {
+                        loadedHotelMap.put(recorder.hotelId, hotel);
+                    }
+                }
+                removedHotelIdList = new ArrayList<Integer>(removedHotelIds);
+                journal.roll();
+            }
+            for (HotelRecorder recorder : recorderCopy.values()) {
+                hotel = loadedHotelMap.get(recorder.hotelId);
+                storedHotelList.add(hotel == null ? recorder.storedHotel : saveHotel(recorder, hotel));
+                if (storedHotelList.get(storedHotelList.size() - 1) == null) {
+                    throw new IllegalStateException("The hotel " + recorder.hotelId + " is neither loaded nor saved");
+                }
+            }
+            snapshotStore.writeManifest(startSequence, storedHotelList, removedHotelIdList);
+            synchronized (hotelListLock) {
+                removedHotelIds.removeAll(removedHotelIdList);
+            }
+            journal.deleteSegmentsUpTo(startSequence);
+            lastSnapshotSequence = startSequence;
+            lastSnapshotTime = System.currentTimeMillis();
+            snapshotFailure = null;
+        }
+        return startSequence;
+    }
+
+    /**
+     * Gets the error of the last background snapshot that failed.
+     *
+     * @return the error, or null if the last background snapshot was written
+     */
+    public Exception getSnapshotFailure() {
+        return snapshotFailure;
+    }
+
+    /**
+     * Gets the journal the records are written to.
+     *
+     * @return the journal
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Stops writing snapshots, writes the buffered records, and closes the journal.
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    public void close() throws IOException {
+        snapshotScheduler.shutdown();
+        try {
+            snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    /**
+     * Writes a snapshot when enough records were added since the last one, or when anything changed
+     * and the last one is old enough. Called by the background thread.
+     */
+    private void takeSnapshotIfDue() {
+        long newRecords = journal.getLastSequence() - lastSnapshotSequence;
+
+        if (newRecords < SNAPSHOT_RECORDS
+                && (newRecords == 0 || System.currentTimeMillis() - lastSnapshotTime < TimeUnit.MINUTES.toMillis(SNAPSHOT_MINUTES))) {
+            return;
+        }
+        try {
+            takeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            snapshotFailure = e;
+        }
+    }
+
+    /**
+     * Writes a hotel to a new file if it changed since its last file, and returns its newest file.
+     * A hotel is written by one thread at a time.
+     */
+    private SnapshotStore.StoredHotel saveHotel(HotelRecorder recorder, Hotel hotel) throws IOException {
+        HotelCodec.HotelState[] state = new HotelCodec.HotelState[1];
+
+        synchronized (recorder) {
+            if (recorder.isChanged()) {
+                hotel.runExclusively(() -> state[0] = new HotelCodec.HotelState(hotel, journal.getLastSequence()));
+                recorder.storedHotel = snapshotStore.writeHotel(recorder.hotelId, state[0]);
+            }
+            return recorder.storedHotel;
+        }
+    }
+
+    /**
+     * Applies one record of the journal to the model. A record of a hotel that has a file is skipped when the
+     * file already includes it; its removal is never in the file. A hotel with a record to apply is loaded.
+     */
+    private void replay(long sequence, String[] fields) {
+        HotelRecorder recorder;
+        SnapshotStore.StoredHotel storedHotel;
+        Hotel hotel = null;
+        Reservation reservation;
+        ArrayList<Room> roomList;
+        Properties tiers;
+        String[] dateParts;
+        int[] dates;
+        int hotelId, i;
+
+        try {
+            hotelId = Integer.parseInt(fields[1]);
+            recorder = recorderMap.get(hotelId);
+            if (!fields[0].equals(HOTEL_CREATED)) {
+                if (recorder == null) {
+                    throw new IllegalStateException("The journal names an unknown hotel " + hotelId);
+                }
+                if (recorder.storedHotel != null && sequence <= recorder.storedHotel.getSequence() && !fields[0].equals(HOTEL_REMOVED)) {
+                    return;
+                }
+                if (!fields[0].equals(HOTEL_REMOVED)) {
+                    hotel = model.getLoadedHotel(hotelId);
+                    if (hotel == null) {
+                        hotel = snapshotStore.readHotel(recorder.storedHotel);
+                        model.addHotel(hotelId, hotel);
+                    }
+                    recorder.lastSequence.accumulateAndGet(sequence, Math::max);
+                }
+            }
+
+            switch (fields[0]) {
+                case HOTEL_CREATED:
+                    storedHotel = snapshotStore.findHotel(hotelId);
+                    recorderMap.put(hotelId, new HotelRecorder(hotelId, storedHotel));
+                    if (storedHotel == null) {
+                        model.addHotel(hotelId, new Hotel(fields[2]));
+                    } else {
+                        addStoredHotel(storedHotel);
+                    }
+                    break;
+                case HOTEL_REMOVED:
+                    model.removeHotel(hotelId);
+                    recorderMap.remove(hotelId);
+                    removedHotelIds.add(hotelId);
+                    break;
+                case HOTEL_RENAMED:
+                    hotel.changeHotelName(fields[2]);
+                    break;
+                case ROOMS_ADDED:
+                    roomList = new ArrayList<Room>();
+                    for (i = 3; i + 1 < fields.length; i += 2) {
+                        roomList.add(RoomType.valueOf(fields[i + 1]).createRoom(fields[i]));
+                    }
+                    hotel.restoreRooms(fields[2].isEmpty() ? null : fields[2], roomList);
+                    break;
+                case ROOM_REMOVED:
+                    if (!hotel.removeRoom(findRoom(hotel, fields[2]))) {
+                        throw new IllegalStateException("The journal removes room " + fields[2] + " while it has reservations");
+                    }
+                    break;
+                case ROOM_PRICE:
+                    if (fields[2].isEmpty()) {
+                        hotel.updateRoomPrices(Double.parseDouble(fields[3]));
+                    } else {
+                        hotel.updatePriceRoom(hotel.getRoomList().indexOf(findRoom(hotel, fields[2])), Double.parseDouble(fields[3]));
+                    }
+                    break;
+                case NIGHT_RATES:
+                    dateParts = fields[3].isEmpty() ? new String[0] : fields[3].split(",");
+                    dates = new int[dateParts.length];
+                    for (i = 0; i < dateParts.length; i++) {
+                        dates[i] = Integer.parseInt(dateParts[i]);
+                    }
+                    hotel.updateNightRates(dates, Double.parseDouble(fields[2]));
+                    break;
+                case DYNAMIC_PRICING:
+                    if (fields.length == 2) {
+                        hotel.setDynamicPricing(null);
+                    } else {
+                        tiers = new Properties();
+                        for (RoomType roomType : RoomType.values()) {
+                            tiers.setProperty(roomType.name().toLowerCase() + ".tiers", fields[2 + roomType.ordinal()]);
+                        }
+                        hotel.setDynamicPricing(DynamicPricing.fromProperties(tiers));
+                    }
+                    break;
+                case RESERVATION_ADDED:
+                    reservation = new Reservation(fields[3], Integer.parseInt(fields[4]), Integer.parseInt(fields[5]), findRoom(hotel, fields[6]));
+                    reservation.assignReservationId(Long.parseLong(fields[2]));
+                    reservation.updatePricing(Long.parseLong(fields[7]), Long.parseLong(fields[8]), Long.parseLong(fields[9]), parseNightRates(fields[13]));
+                    reservation.applyDiscountCode(fields[10]);
+                    reservation.updateChosenPackage(fields[11]);
+                    if (Boolean.parseBoolean(fields[12])) {
+                        reservation.markPaid();
+                    }
+                    if (!hotel.addReservation(reservation)) {
+                        throw new IllegalStateException("The journal books room " + fields[6] + " twice");
+                    }
+                    reservation.getRoom().updateStatus("booked");
+                    break;
+                case RESERVATION_CHANGED:
+                    reservation = findReservation(hotel, fields[2]);
+                    hotel.updateReservationPricing(reservation, Long.parseLong(fields[3]), Long.parseLong(fields[4]), Long.parseLong(fields[5]),
+                            parseNightRates(fields[8]));
+                    hotel.updateReservationPackage(reservation, fields[6]);
+                    if (Boolean.parseBoolean(fields[7])) {
+                        reservation.markPaid();
+                    }
+                    break;
+                case RESERVATION_REMOVED:
+                    hotel.removeReservation(findReservation(hotel, fields[2]));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown journal record " + fields[0]);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalStateException("Invalid journal record " + String.join(" ", fields), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds a hotel that stays in its file to the model, with the guests of its reservations.
+     */
+    private void addStoredHotel(SnapshotStore.StoredHotel storedHotel) throws IOException {
+        ArrayList<String> guestNameList = new ArrayList<String>();
+        ArrayList<Long> reservationIdList = new ArrayList<Long>();
+
+        snapshotStore.readGuests(storedHotel, guestNameList, reservationIdList);
+        model.addHotel(storedHotel.getSummary(), guestNameList, reservationIdList);
+    }
+
+    /**
+     * Writes the nightly rates of a reservation in basis points as a list separated by commas.
+     */
+    private static String formatNightRates(Reservation reservation) {
+        StringBuilder rateList = new StringBuilder();
+        int date;
+
+        for (date = reservation.getCheckInDate(); date < reservation.getCheckOutDate(); date++) {
+            if (rateList.length() > 0) {
+                rateList.append(',');
+            }
+            rateList.append(reservation.getNightRateBasisPoints(date));
+        }
+        return rateList.toString();
+    }
+
+    /**
+     * Reads the nightly rates written by formatNightRates.
+     */
+    private static long[] parseNightRates(String field) {
+        String[] rateParts = field.isEmpty() ? new String[0] : field.split(",");
+        long[] nightRates = new long[rateParts.length];
+        int i;
+
+        for (i = 0; i < rateParts.length; i++) {
+            nightRates[i] = Long.parseLong(rateParts[i]);
+        }
+        return nightRates;
+    }
+
+    /**
+     * Finds a room of a hotel that a record names.
+     */
+    private static Room findRoom(Hotel hotel, String roomName) {
+        Room room = hotel.getRoom(roomName);
+
+        if (room == null) {
+            throw new IllegalStateException("The journal names an unknown room " + roomName + " of " + hotel.getHotelName());
+        }
+        return room;
+    }
+
+    /**
+     * Finds a reservation of a hotel that a record names.
+     */
+    private static Reservation findReservation(Hotel hotel, String reservationId) {
+        Reservation reservation = hotel.getSnapshot().getReservation(Long.parseLong(reservationId));
+
+        if (reservation == null) {
+            throw new IllegalStateException("The journal names an unknown reservation " + reservationId + " of " + hotel.getHotelName());
+        }
+        return reservation;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.List;
+
+/**
+ * The HotelListener interface is told about the changes made to a hotel.
+ * Listeners are called by the thread that made the change while the room of the reservation is
+ * still locked, so the calls for one room arrive in order. Changes to the rooms and the prices are
+ * reported while every room or the prices are locked. They should return quickly.
+ * When the change is done and the locks are released, the same thread calls changeCommitted.
+ */
+public interface HotelListener {
+    /**
+     * Called after a reservation is added to a hotel.
+     *
+     * @param hotel the hotel of the reservation
+     * @param reservation the added reservation
+     */
+    void reservationAdded(Hotel hotel, Reservation reservation);
+
+    /**
+     * Called after many reservations are added to a hotel at once. By default each one is passed
+     * to reservationAdded.
+     *
+     * @param hotel the hotel of the reservations
+     * @param reservationList the added reservations
+     */
+    default void reservationsAdded(Hotel hotel, List<Reservation> reservationList) {
+        for (Reservation reservation : reservationList) {
+            reservationAdded(hotel, reservation);
+        }
+    }
+
+    /**
+     * Called after a reservation is removed from a hotel.
+     *
+     * @param hotel the hotel of the reservation
+     * @param reservation the removed reservation
+     */
+    void reservationRemoved(Hotel hotel, Reservation reservation);
+
+    /**
+     * Called after the price or the package of a reservation of a hotel changes.
+     *
+     * @param hotel the hotel of the reservation
+     * @param reservation the changed reservation
+     */
+    default void reservationChanged(Hotel hotel, Reservation reservation) {
+    }
+
+    /**
+     * Called after rooms are added to a hotel.
+     *
+     * @param hotel the hotel of the rooms
+     * @param namingScheme the naming scheme of the hotel
+     * @param roomList the added rooms
+     */
+    default void roomsAdded(Hotel hotel, String namingScheme, List<Room> roomList) {
+    }
+
+    /**
+     * Called after a room is removed from a hotel.
+     *
+     * @param hotel the hotel of the room
+     * @param room the removed room
+     */
+    default void roomRemoved(Hotel hotel, Room room) {
+    }
+
+    /**
+     * Called after the base price of one room or of every room of a hotel changes.
+     *
+     * @param hotel the hotel of the rooms
+     * @param room the room whose price changed, or null for every room
+     * @param newPrice the new base price
+     */
+    default void roomPriceChanged(Hotel hotel, Room room, double newPrice) {
+    }
+
+    /**
+     * Called after the price rate of some nights of a hotel changes.
+     *
+     * @param hotel the hotel of the nights
+     * @param dates the modified nights
+     * @param rate the new price rate of the nights
+     */
+    default void nightRatesChanged(Hotel hotel, int[] dates, double rate) {
+    }
+
+    /**
+     * Called after dynamic pricing of a hotel is turned on or off.
+     *
+     * @param hotel the hotel
+     * @param pricing the new occupancy tiers, or null if dynamic pricing was turned off
+     */
+    default void dynamicPricingChanged(Hotel hotel, DynamicPricing pricing) {
+    }
+
+    /**
+     * Called after a hotel is renamed.
+     *
+     * @param hotel the renamed hotel
+     * @param oldName the name of the hotel before the change
+     */
+    default void hotelRenamed(Hotel hotel, String oldName) {
+    }
+
+    /**
+     * Called after a change reported to the other methods is done and the locks of the hotel are released.
+     *
+     * @param hotel the changed hotel
+     */
+    default void changeCommitted(Hotel hotel) {
+    }
+}
@@ -1,11 +1,17 @@
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JDialog;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
@@ -19,8 +25,11 @@ import javax.swing.ImageIcon;
  * controller transfers the data retrieved to the view layer.
  */
 public class HotelReservationController{
+    private static final int MAX_LISTED_REJECTIONS = 10;
+
     private HotelReservationModel model;
     private HotelReservationView view;
+    private BookingService bookingService = new BookingService();
 
     /**
      * Constructor for the HotelReservationController class.
@@ -31,21 +40,50 @@ public class HotelReservationController{
     }
 
     /**
-     * Gets the list of hotels in the system.
+     * Gets the booking engine used by the controller.
+     * 
+     * @return the booking service
+     */
+    public BookingService getBookingService() {
+        return bookingService;
+    }
+
+    /**
+     * Gets the list of hotels in the system, loading every hotel that is not loaded.
      * 
-     * @return the list of hotels
+     * @return the read-only list of hotels
      */
-    public ArrayList<Hotel> getHotelList() {
+    public List<Hotel> getHotelList() {
         return model.getHotelList();
     }
 
+    /**
+     * Gets the name and the counts of every hotel in the system without loading them.
+     *
+     * @return the summaries of the hotels
+     */
+    public ArrayList<HotelSummary> getHotelSummaries() {
+        return model.getHotelSummaries();
+    }
+
+    /**
+     * Gets a hotel chosen from its summary, loading it if it is not loaded.
+     *
+     * @param summary the summary of the hotel
+     * @return the hotel, or null if it was removed
+     */
+    public Hotel getHotel(HotelSummary summary) {
+        return model.getHotel(summary);
+    }
+
     /**
      * Creates a new hotel and adds it to the hotel list.
      *
      * @param hotelName The name of the hotel to be added.
+     * @return the new hotel
      */
-    public void createHotel(String hotelName){
-        model.createHotel(hotelName);
+    public Hotel createHotel(String hotelName){
+        return model.createHotel(hotelName);
     }
 
     /**
@@ -58,9 +96,9 @@ public class HotelReservationController{
         dialog.setTitle("Manage Student Records");
         dialog.setModal(true);
         dialog.setLayout(new BorderLayout());
-        dialog.setSize(500, 400);
+        dialog.setSize(500, 460);
 
-        String[] options = {"Change the name of the hotel", "Add room(s)", "Remove room(s)", "Update the base price for a room", "Remove reservation", "Remove hotel", "Date Price Modifier"};
+        String[] options = {"Change the name of the hotel", "Add room(s)", "Remove room(s)", "Update the base price for a room", "Remove reservation", "Remove hotel", "Date Price Modifier", "Dynamic Pricing", "Import reservations", "Export reservations", "Mark reservation paid"};
         JButton button1 = new JButton(options[0]);
         JButton button2 = new JButton(options[1]);
         JButton button3 = new JButton(options[2]);
@@ -68,6 +106,10 @@ public class HotelReservationController{
         JButton button5 = new JButton(options[4]);
         JButton button6 = new JButton(options[5]);
         JButton button7 = new JButton(options[6]);
+        JButton button8 = new JButton(options[7]);
+        JButton button9 = new JButton(options[8]);
+        JButton button10 = new JButton(options[9]);
+        JButton button11 = new JButton(options[10]);
         JButton backButton = new JButton("Back");
 
         button1.addActionListener(e -> {
@@ -103,6 +145,22 @@ public class HotelReservationController{
             showDatePriceModifierOption(hotel);
         });
 
+        button8.addActionListener(e -> {
+            showDynamicPricingOption(hotel);
+        });
+
+        button9.addActionListener(e -> {
+            showImportReservationsOption(hotel);
+        });
+
+        button10.addActionListener(e -> {
+            showExportReservationsOption(hotel);
+        });
+
+        button11.addActionListener(e -> {
+            showMarkPaidOption(hotel);
+        });
+
         backButton.addActionListener(e -> dialog.dispose());
 
         JPanel panel = new JPanel();
@@ -113,9 +171,13 @@ public class HotelReservationController{
         panel.add(button5);
         panel.add(button6);
         panel.add(button7);
+        panel.add(button8);
+        panel.add(button9);
+        panel.add(button10);
+        panel.add(button11);
 
         JPanel backPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        panel.setLayout(new GridLayout(4, 2, 10, 10));
+        panel.setLayout(new GridLayout(6, 2, 10, 10));
         backPanel.add(backButton);
 
         dialog.add(panel, BorderLayout.CENTER);
@@ -151,7 +213,7 @@ public class HotelReservationController{
                     "Hotel name '" + hotelName + "' is already used."
                 };
             
-                if (!this.compareHotelName(hotelName, this.getHotelList())) {
+                if (!this.compareHotelName(hotelName, this.getHotelSummaries())) {
                     validInputs = false;
                     JOptionPane.showMessageDialog(null, warning);
                 }
@@ -174,10 +236,10 @@ public class HotelReservationController{
      * Compares a given hotel name with the names of hotels in the provided hotel list.
      *
      * @param name The name to compare.
-     * @param hotelList The list of hotels to compare with.
+     * @param hotelList The summaries of the hotels to compare with.
      * @return false if a hotel with the given name exists in the list, false otherwise.
      */
-    public boolean compareHotelName(String name, ArrayList<Hotel> hotelList) {
+    public boolean compareHotelName(String name, List<HotelSummary> hotelList) {
         int x;
         for (x = 0; x < hotelList.size(); x++) {
             if (hotelList.get(x).getHotelName().equals(name)) {
@@ -259,26 +321,19 @@ public class HotelReservationController{
 
         ArrayList<Room> roomsWithoutReservation = new ArrayList<Room>();
         ArrayList<Room> selectedRoomsToBeRemoved = new ArrayList<Room>();
+        ArrayList<String> keptRoomNames = new ArrayList<String>();
         ArrayList<JCheckBox> checkBoxes = new ArrayList<>();
-        int i, j;
+        int i;
         int option;
         int confirmModification;
-        boolean reservedRoom = false;
 
         for(i = 0; i < hotel.getRoomList().size(); i++){
-            for(j = 0; j < hotel.getReservationList().size() && !reservedRoom; j++){
-                if(hotel.getRoomList().get(i).getRoomName().equals(hotel.getReservationList().get(j).getRoom().getRoomName())){
-                    reservedRoom = true;
-                }
-            }
-            
-            if(reservedRoom == false) {
+            if(!hotel.getRoomList().get(i).hasReservations()) {
                 JCheckBox checkBox = new JCheckBox(hotel.getRoomList().get(i).getRoomName());
                 checkBoxes.add(checkBox);
                 panel.add(checkBox);
                 roomsWithoutReservation.add(hotel.getRoomList().get(i));
             }
-            reservedRoom = false;
         }
 
         option = JOptionPane.showConfirmDialog(null, panel, 
@@ -295,9 +350,20 @@ public class HotelReservationController{
             confirmModification = JOptionPane.showConfirmDialog(null, "Do you want to confirm your configuration?", "Remove Room/s Confirmation", JOptionPane.YES_NO_OPTION);
             if (confirmModification == JOptionPane.YES_OPTION) {
                 for (i = 0; i < selectedRoomsToBeRemoved.size(); i++) {
-                    hotel.removeRoom(selectedRoomsToBeRemoved.get(i));
+                    if (!hotel.removeRoom(selectedRoomsToBeRemoved.get(i))) {
+                        keptRoomNames.add(selectedRoomsToBeRemoved.get(i).getRoomName());
+                    }
+                }
+                if (keptRoomNames.isEmpty()) {
+                    JOptionPane.showMessageDialog(null, roomsRemoved);
+                } else {
+                    String[] roomsKept = {
+                        "The following room/s were booked in the meantime and were not removed:",
+                        String.join(", ", keptRoomNames)
+                    };
+
+                    JOptionPane.showMessageDialog(null, roomsKept);
                 }
-                JOptionPane.showMessageDialog(null, roomsRemoved);
             }
         }
     }
@@ -310,48 +376,45 @@ public class HotelReservationController{
      */
     public void showUpdatePriceRoomOption(Hotel hotel) {
         JTextField newPriceField = new JTextField();
+        JTextField fromDateField = new JTextField("1");
  
         int option, confirmModification;
-        int roomIndex;
+        int repricedCount;
+        int fromDate;
         boolean askPrice = true;
         double price = 0;
-        int numReservation = hotel.getReservationList().size();
- 
-        if(numReservation == 0){
-            Object[] message = {"Enter new price: ", newPriceField};
- 
-            option = JOptionPane.showConfirmDialog(null, message, "Update Price Room Feature", JOptionPane.OK_CANCEL_OPTION);
-            price = Integer.parseInt(newPriceField.getText());
- 
-            do{
-                if((option == JOptionPane.OK_OPTION) && (price >= 100.0)) {
-                    String[] hotelPriceChanged = {"New base price per room of " + price + " has been updated successfully to " + hotel.getHotelName() + "."};
- 
- 
-                    confirmModification = JOptionPane.showConfirmDialog(null, "Do you want to confirm your configuration?", "Update Price Room Feature", JOptionPane.YES_NO_OPTION);
-                    if (confirmModification == JOptionPane.YES_OPTION) {
-                        for(roomIndex = 0; roomIndex < hotel.getRoomList().size(); roomIndex++) {
-                            hotel.updatePriceRoom(roomIndex, price);
-                        }
-                        JOptionPane.showMessageDialog(null, hotelPriceChanged);
-                    }
-                    askPrice = false;
-                } else {
-                    Object[] messageInvalid = {"New price should be higher or equal to 100.0. Enter new price: ", newPriceField};
+
+        Object[] message = {"Enter new price: ", newPriceField, "Reprice reservations checking in on or after day: ", fromDateField};
  
+        option = JOptionPane.showConfirmDialog(null, message, "Update Price Room Feature", JOptionPane.OK_CANCEL_OPTION);
+        price = Integer.parseInt(newPriceField.getText());
+        fromDate = Integer.parseInt(fromDateField.getText());
  
-                    option = JOptionPane.showConfirmDialog(null, messageInvalid, "Update Price Room Feature", JOptionPane.OK_CANCEL_OPTION);
-                    price = Integer.parseInt(newPriceField.getText());
-                }
-                if(option != JOptionPane.OK_OPTION) {
-                    askPrice = false;
+        do{
+            if((option == JOptionPane.OK_OPTION) && (price >= 100.0) && (fromDate >= 1)) {
+                confirmModification = JOptionPane.showConfirmDialog(null, "Do you want to confirm your configuration?\nUnpaid reservations checking in on or after day " + fromDate + " will be repriced. Paid reservations keep their price.", "Update Price Room Feature", JOptionPane.YES_NO_OPTION);
+                if (confirmModification == JOptionPane.YES_OPTION) {
+                    repricedCount = bookingService.updateRoomPrice(hotel, price, fromDate);
+                    String[] hotelPriceChanged = {
+                        "New base price per room of " + price + " has been updated successfully to " + hotel.getHotelName() + ".",
+                        repricedCount + " reservation/s were repriced."
+                    };
+                    JOptionPane.showMessageDialog(null, hotelPriceChanged);
                 }
-            } while(askPrice);
-        } else {
-            String[] hotelPriceCannotChange = {"The Hotel room base price cannot be updated because there are reservations."};
+                askPrice = false;
+            } else {
+                Object[] messageInvalid = {"New price should be higher or equal to 100.0, and the day should be at least 1. Enter new price: ", newPriceField,
+                    "Reprice reservations checking in on or after day: ", fromDateField};
  
-            JOptionPane.showMessageDialog(null, hotelPriceCannotChange);
-        }
+ 
+                option = JOptionPane.showConfirmDialog(null, messageInvalid, "Update Price Room Feature", JOptionPane.OK_CANCEL_OPTION);
+                price = Integer.parseInt(newPriceField.getText());
+                fromDate = Integer.parseInt(fromDateField.getText());
+            }
+            if(option != JOptionPane.OK_OPTION) {
+                askPrice = false;
+            }
+        } while(askPrice);
     }
 
     /**
@@ -404,6 +467,66 @@ public class HotelReservationController{
         }
     }
 
+    /**
+     * Shows a list of the unpaid reservations of a hotel that can be marked as paid.
+     * A paid reservation keeps its price when the room price or the price rates change.
+     * 
+     * @param hotel The selected hotel to be modified.
+     */
+    public void showMarkPaidOption(Hotel hotel) {
+        ArrayList<Reservation> unpaidList = new ArrayList<Reservation>();
+
+        for (Reservation reservation : hotel.getReservationList()) {
+            if (!reservation.isPaid()) {
+                unpaidList.add(reservation);
+            }
+        }
+
+        if (unpaidList.isEmpty()) {
+            String[] noReservation = {
+                hotel.getHotelName() + " has no unpaid reservations."
+            };
+            JOptionPane.showMessageDialog(null, noReservation);
+            return;
+        }
+
+        JDialog dialog = new JDialog();
+        dialog.setTitle("List of Unpaid Reservations");
+        dialog.setModal(true);
+        dialog.setLayout(new BorderLayout());
+        dialog.setSize(1090, 690);
+
+        JButton backButton = new JButton("Back");
+        backButton.addActionListener(e -> dialog.dispose());
+
+        JPanel panel = new JPanel();
+        JPanel backPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        panel.setLayout(new GridLayout(5, unpaidList.size()));
+        backPanel.add(backButton);
+
+        for (Reservation reservation : unpaidList) {
+            JButton reservationButton = new JButton(reservation.getRoom().getRoomName() + " reserved by " + reservation.getGuestName());
+            reservationButton.addActionListener(e -> {
+                int confirmModification;
+                String[] reservationPaid = {reservation.getRoom().getRoomName() + " reserved by " + reservation.getGuestName() + " in " + hotel.getHotelName() + " is now paid.",
+                    "It keeps its price of " + reservation.getTotalPrice() + " when prices change."};
+
+                confirmModification = JOptionPane.showConfirmDialog(null, "Do you want to confirm your configuration?", "Mark Reservation Paid Feature", JOptionPane.YES_NO_OPTION);
+                if (confirmModification == JOptionPane.YES_OPTION) {
+                    hotel.markReservationPaid(reservation);
+                    reservationButton.setEnabled(false);
+                    JOptionPane.showMessageDialog(null, reservationPaid);
+                }
+            });
+            panel.add(reservationButton);
+        }
+
+        dialog.add(panel, BorderLayout.CENTER);
+        dialog.add(backPanel, BorderLayout.SOUTH);
+        dialog.setLocationRelativeTo(null);
+        dialog.setVisible(true);
+    }
+
     /**
      * Removes a hotel from the hotel list.
      */
@@ -419,65 +542,178 @@ public class HotelReservationController{
     public void showDatePriceModifierOption(Hotel hotel) {
         JPanel panel = new JPanel(new GridLayout(5, 8, 10, 10));
         JTextField priceRateField = new JTextField();
+        JTextField fromDateField = new JTextField("1");
  
         ArrayList<JCheckBox> checkBoxes = new ArrayList<>();
-        int i, j;
+        ArrayList<Integer> dateList = new ArrayList<Integer>();
+        int[] dates;
+        int i;
         int option;
-        int date;
         int confirmModification;
+        int repricedCount;
+        int fromDate;
         double rate = 0.0;
         boolean askRate = true;
  
-        if (!hotel.getReservationList().isEmpty()){
-            String[] thereIsReservation = {
-                "Price cannot be modified as " + hotel.getHotelName() + " has an existing reservation/s."
-            };
-            JOptionPane.showMessageDialog(null, thereIsReservation);
-        } else {
-            for(i = 1; i < 31; i++){
-                JCheckBox checkBox = new JCheckBox(String.valueOf(i));
-                checkBoxes.add(checkBox);
-                panel.add(checkBox);
-            }
-            option = JOptionPane.showConfirmDialog(null, panel,
-                    "Select Date/s you want to modify \n", JOptionPane.OK_CANCEL_OPTION);
-            if (option == JOptionPane.OK_OPTION) {
-                Object[] message = {"Enter price rate from 0.5 (50%) to 1.5 (150%): ", priceRateField};
-                String[] priceModified = {"The " + hotel.getHotelName() + " base price for specific day/s has been successfully modified!"};
+        for(i = 1; i < 31; i++){
+            JCheckBox checkBox = new JCheckBox(String.valueOf(i));
+            checkBoxes.add(checkBox);
+            panel.add(checkBox);
+        }
+        option = JOptionPane.showConfirmDialog(null, panel,
+                "Select Date/s you want to modify \n", JOptionPane.OK_CANCEL_OPTION);
+        if (option == JOptionPane.OK_OPTION) {
+            Object[] message = {"Enter price rate from 0.5 (50%) to 1.5 (150%): ", priceRateField,
+                "Reprice reservations checking in on or after day: ", fromDateField};
  
-                do {
-                    option = JOptionPane.showConfirmDialog(null, message, "Update Price Room Feature", JOptionPane.OK_CANCEL_OPTION);
-                    rate = Double.parseDouble(priceRateField.getText());
-                    if (option == JOptionPane.OK_OPTION && (rate >= 0.5 && rate <= 1.5)) {
-                        confirmModification = JOptionPane.showConfirmDialog(null, "Do you want to confirm your configuration?", "Date Price Modified Confirmation", JOptionPane.YES_NO_OPTION);
-                        if (confirmModification == JOptionPane.YES_OPTION) {
-                            for (i = 0; i < checkBoxes.size(); i++) {
-                                if (checkBoxes.get(i).isSelected()) {
-                                    date = i + 1;
-                                    for(j = 0; j < hotel.getDateModifiedPriceList().size(); j++){
-                                        if(date == hotel.getDateModifiedPriceList().get(j)){
-                                            hotel.getDateModifiedPriceList().remove(j);
-                                            hotel.getPriceRateList().remove(j);
-                                        }
-                                    }
-                                    hotel.addDateModifiedPrice(i+1);
-                                    hotel.addPriceRate(rate);
-                                }
+            do {
+                option = JOptionPane.showConfirmDialog(null, message, "Update Price Room Feature", JOptionPane.OK_CANCEL_OPTION);
+                rate = Double.parseDouble(priceRateField.getText());
+                fromDate = Integer.parseInt(fromDateField.getText());
+                if (option == JOptionPane.OK_OPTION && (rate >= 0.5 && rate <= 1.5) && fromDate >= 1) {
+                    confirmModification = JOptionPane.showConfirmDialog(null, "Do you want to confirm your configuration?\nUnpaid reservations on the selected day/s checking in on or after day " + fromDate + " will be repriced. Paid reservations keep their price.", "Date Price Modified Confirmation", JOptionPane.YES_NO_OPTION);
+                    if (confirmModification == JOptionPane.YES_OPTION) {
+                        for (i = 0; i < checkBoxes.size(); i++) {
+                            if (checkBoxes.get(i).isSelected()) {
+                                dateList.add(i + 1);
                             }
-                            JOptionPane.showMessageDialog(null, priceModified);
                         }
-                        askRate = false;
-                    } else {
-                        Object[] invalidMessage = {"Price rate should be from 0.5 (50%) to 1.5 (150%)."};
- 
-                        JOptionPane.showMessageDialog(null, invalidMessage);
-                    }
-                    if (option != JOptionPane.OK_OPTION) {
-                        askRate = false;
+                        dates = new int[dateList.size()];
+                        for (i = 0; i < dates.length; i++) {
+                            dates[i] = dateList.get(i);
+                        }
+                        repricedCount = bookingService.updateNightRates(hotel, dates, rate, fromDate);
+                        String[] priceModified = {
+                            "The " + hotel.getHotelName() + " base price for specific day/s has been successfully modified!",
+                            repricedCount + " reservation/s were repriced."
+                        };
+                        JOptionPane.showMessageDialog(null, priceModified);
                     }
-                } while(askRate);
+                    askRate = false;
+                } else {
+                    Object[] invalidMessage = {"Price rate should be from 0.5 (50%) to 1.5 (150%), and the day should be at least 1."};
+ 
+                    JOptionPane.showMessageDialog(null, invalidMessage);
+                }
+                if (option != JOptionPane.OK_OPTION) {
+                    askRate = false;
+                }
+            } while(askRate);
+        }
+    }
+
+    /**
+     * Shows an option to the user to book many reservations at once from a file, with one request per line:
+     * guest name, check-in date, check-out date, and optionally the room type and a discount code.
+     *
+     * @param hotel The selected hotel to be modified.
+     */
+    public void showImportReservationsOption(Hotel hotel) {
+        JFileChooser fileChooser = new JFileChooser(".");
+        ArrayList<String> lineList = new ArrayList<String>();
+        ArrayList<BookingRequest> requestList;
+        ImportReport report;
+        int i;
+
+        fileChooser.setDialogTitle("Import Reservations - guest name, check-in, check-out[, room type[, discount code]]");
+        if (fileChooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            requestList = BookingService.readRequests(fileChooser.getSelectedFile());
+        } catch (IOException | IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage(), "Import Reservations Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        report = bookingService.importReservations(hotel, requestList);
+        lineList.add(report.getAcceptedList().size() + " reservation/s imported into " + hotel.getHotelName() + ".");
+        if (!report.getRejectedList().isEmpty()) {
+            lineList.add(report.getRejectedList().size() + " request/s rejected:");
+            for (i = 0; i < report.getRejectedList().size() && i < MAX_LISTED_REJECTIONS; i++) {
+                lineList.add(report.getRejectedList().get(i).getGuestName() + ": " + report.getRejectReasonList().get(i));
+            }
+            if (report.getRejectedList().size() > MAX_LISTED_REJECTIONS) {
+                lineList.add("...");
             }
         }
+        JOptionPane.showMessageDialog(null, lineList.toArray(), "Import Reservations", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Asks for a reservation column file and appends the reservations of a hotel booked since its last export.
+     *
+     * @param hotel The selected hotel whose reservations are exported.
+     */
+    public void showExportReservationsOption(Hotel hotel) {
+        JFileChooser fileChooser = new JFileChooser(".");
+        int exportedCount;
+
+        fileChooser.setDialogTitle("Export Reservations - reservation column file of " + hotel.getHotelName());
+        if (fileChooser.showSaveDialog(null) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            exportedCount = model.exportReservations(hotel, fileChooser.getSelectedFile());
+        } catch (IOException | IllegalStateException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage(), "Export Reservations Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JOptionPane.showMessageDialog(null, exportedCount + " new reservation/s of " + hotel.getHotelName() + " exported to "
+                + fileChooser.getSelectedFile().getName() + ".", "Export Reservations", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Shows an option to the user to choose how rooms are picked for bookings without a chosen room.
+     */
+    public void showAssignmentStrategyOption() {
+        String[] options = {"First Fit", "Best Fit"};
+        String current = bookingService.getAssignmentStrategy() instanceof BestFitStrategy ? options[1] : options[0];
+        int choice;
+
+        choice = JOptionPane.showOptionDialog(null,
+                new String[] {
+                    "Current room assignment: " + current,
+                    "First Fit takes the first free room of the hotel.",
+                    "Best Fit places the stay next to other stays where it can, leaving fewer short gaps between reservations."
+                },
+                "Room Assignment", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, current);
+        if (choice == 0) {
+            bookingService.setAssignmentStrategy(new FirstFitStrategy());
+        } else if (choice == 1) {
+            bookingService.setAssignmentStrategy(new BestFitStrategy());
+        }
+    }
+
+    /**
+     * Turns the occupancy-driven pricing of a hotel on or off. The tiers are read from DynamicPricing.CONFIG_FILE.
+     * Existing reservations keep their price; only new quotes use the moving rates.
+     *
+     * @param hotel The selected hotel to be modified.
+     */
+    public void showDynamicPricingOption(Hotel hotel) {
+        boolean enabled = hotel.getDynamicPricing() != null;
+        int confirmModification;
+        String question;
+
+        if (enabled) {
+            question = "Dynamic pricing is on. Do you want to turn it off and use the date prices only?";
+        } else {
+            question = "Dynamic pricing is off. Do you want the nightly rates of each room type to follow occupancy?";
+        }
+        confirmModification = JOptionPane.showConfirmDialog(null, question, "Dynamic Pricing Confirmation", JOptionPane.YES_NO_OPTION);
+        if (confirmModification != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        try {
+            hotel.setDynamicPricing(enabled ? null : DynamicPricing.load(DynamicPricing.CONFIG_FILE));
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage(), "Dynamic Pricing Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        String[] pricingChanged = {"Dynamic pricing of " + hotel.getHotelName() + " is now " + (enabled ? "off." : "on.")};
+        JOptionPane.showMessageDialog(null, pricingChanged);
     }
 
     /**
@@ -618,6 +854,149 @@ public class HotelReservationController{
         }
     }
 
+    /**
+     * Asks for dates and a type of room, then shows every hotel that has a free room
+     * for them, from the cheapest stay to the most expensive.
+     */
+    public void searchAllHotels() {
+        JTextField checkInDateField = new JTextField();
+        JTextField checkOutDateField = new JTextField();
+        JComboBox<String> roomTypeBox = new JComboBox<String>();
+        ArrayList<HotelSearchResult> resultList;
+        ArrayList<String> lineList = new ArrayList<String>();
+        RoomType roomType = null;
+        int option, checkInDate, checkOutDate;
+        boolean validInputs;
+
+        roomTypeBox.addItem("Any Room");
+        for (RoomType type : RoomType.values()) {
+            roomTypeBox.addItem(type.getDisplayName());
+        }
+
+        do {
+            Object[] message = {
+                "Check-In Date:", checkInDateField,
+                "Check-Out Date:", checkOutDateField,
+                "Type of Room:", roomTypeBox
+            };
+
+            option = JOptionPane.showConfirmDialog(null, message, "Search All Hotels", JOptionPane.OK_CANCEL_OPTION);
+            checkInDate = Integer.parseInt(checkInDateField.getText());
+            checkOutDate = Integer.parseInt(checkOutDateField.getText());
+            validInputs = true;
+
+            /* For Input Checking: */
+            if (option == JOptionPane.OK_OPTION) {
+                String[] warning = {
+                    "Invalid input/s.",
+                    "Check-in and check-out dates should be a number between 1 to 31, with the check-in date first."
+                };
+
+                if (checkInDate < 1 || checkOutDate > 31 || checkInDate >= checkOutDate) {
+                    validInputs = false;
+                }
+
+                if (!validInputs) {
+                    JOptionPane.showMessageDialog(null, warning);
+                }
+            }
+
+        } while (!validInputs && option == JOptionPane.OK_OPTION);
+
+        if (option != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        if (roomTypeBox.getSelectedIndex() > 0) {
+            roomType = RoomType.fromDisplayName((String) roomTypeBox.getSelectedItem());
+        }
+        resultList = bookingService.searchHotels(model, new BookingRequest(null, checkInDate, checkOutDate, roomType, null, null));
+
+        if (resultList.isEmpty()) {
+            JOptionPane.showMessageDialog(null, "No hotel has an available room with the check-in date: " + checkInDate + " and check-out date: " + checkOutDate);
+            return;
+        }
+        for (HotelSearchResult result : resultList) {
+            lineList.add(result.getHotelName() + " - " + result.getRoom().getRoomType().getDisplayName()
+                    + " - " + result.getTotalPrice() + " (" + result.getAvailableRoomCount() + " available)");
+        }
+        JOptionPane.showMessageDialog(null, lineList.toArray(), "Search Results", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Shows the revenue, the sold room-nights, and the average daily rate of every hotel and of the chain
+     * for a range of nights and a room type.
+     */
+    public void showRevenueReportOption() {
+        JTextField fromDateField = new JTextField();
+        JTextField toDateField = new JTextField();
+        JComboBox<String> roomTypeBox = new JComboBox<String>();
+        LinkedHashMap<HotelSummary, RevenueReport> reportMap;
+        ArrayList<String> lineList = new ArrayList<String>();
+        RevenueReport chainReport = new RevenueReport(0, 0, 0);
+        RoomType roomType = null;
+        int option, fromDate, toDate;
+        boolean validInputs;
+
+        roomTypeBox.addItem("Any Room");
+        for (RoomType type : RoomType.values()) {
+            roomTypeBox.addItem(type.getDisplayName());
+        }
+
+        do {
+            Object[] message = {
+                "First Night:", fromDateField,
+                "Last Night:", toDateField,
+                "Type of Room:", roomTypeBox
+            };
+
+            option = JOptionPane.showConfirmDialog(null, message, "Revenue Report", JOptionPane.OK_CANCEL_OPTION);
+            fromDate = Integer.parseInt(fromDateField.getText());
+            toDate = Integer.parseInt(toDateField.getText());
+            validInputs = true;
+
+            /* For Input Checking: */
+            if (option == JOptionPane.OK_OPTION) {
+                String[] warning = {
+                    "Invalid input/s.",
+                    "The nights should be a number between 1 to 31, with the first night first."
+                };
+
+                if (fromDate < 1 || toDate > 31 || fromDate > toDate) {
+                    validInputs = false;
+                }
+
+                if (!validInputs) {
+                    JOptionPane.showMessageDialog(null, warning);
+                }
+            }
+
+        } while (!validInputs && option == JOptionPane.OK_OPTION);
+
+        if (option != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        if (roomTypeBox.getSelectedIndex() > 0) {
+            roomType = RoomType.fromDisplayName((String) roomTypeBox.getSelectedItem());
+        }
+        reportMap = model.computeRevenueByHotel(fromDate, toDate + 1, roomType);
+        for (Map.Entry<HotelSummary, RevenueReport> reportEntry : reportMap.entrySet()) {
+            chainReport = chainReport.add(reportEntry.getValue());
+            lineList.add(reportEntry.getKey().getHotelName() + " - " + formatRevenueReport(reportEntry.getValue()));
+        }
+        lineList.add("All Hotels - " + formatRevenueReport(chainReport));
+        JOptionPane.showMessageDialog(null, lineList.toArray(), "Revenue Report", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Formats the figures of a revenue report on one line.
+     */
+    private String formatRevenueReport(RevenueReport report) {
+        return "Revenue: " + report.getRevenue() + ", Room-Nights: " + report.getRoomNights()
+                + ", ADR: " + Money.toAmount(Money.toCents(report.getAverageDailyRate()));
+    }
+
     /**
      * Checks the availability of the selected dates for booking.
      * 
@@ -627,31 +1006,7 @@ public class HotelReservationController{
      * @return true if the selected dates are available for booking. Otherwise, false.
      */
     public boolean checkAvailability(Hotel hotel, int checkInDate, int checkOutDate){
-        int roomIndex, reservationIndex;
-        boolean isReserved = false;
-        int availableRoomIndex = -1;
-
-        for (roomIndex = 0; (roomIndex < hotel.getRoomList().size()) && availableRoomIndex == -1; roomIndex++) {
-            for (reservationIndex = 0; reservationIndex < hotel.getReservationList().size(); reservationIndex++){
-                if(hotel.getReservationList().get(reservationIndex).getRoom().getRoomName().equals(hotel.getRoomList().get(roomIndex).getRoomName())){
-                    if (checkInDate >= hotel.getReservationList().get(reservationIndex).getCheckInDate() && checkInDate < hotel.getReservationList().get(reservationIndex).getCheckOutDate()) {
-                        isReserved = true;
-                    } else if (checkInDate <= hotel.getReservationList().get(reservationIndex).getCheckInDate() && checkOutDate > hotel.getReservationList().get(reservationIndex).getCheckInDate()) {
-                        isReserved = true;
-                    }
-                }
-            }
-
-            if(!isReserved){
-                availableRoomIndex = roomIndex;
-            }
-            isReserved = false;
-        }
-
-        if (availableRoomIndex == -1) {
-            return false;
-        } 
-        return true;
+        return hotel.findAvailableRoom(checkInDate, checkOutDate) != null;
     }
 
     /**
@@ -663,29 +1018,13 @@ public class HotelReservationController{
      * @param checkOut The check-out date.
      */
     public boolean automatedBooking(Hotel hotel, String guestName, int checkInDate, int checkOutDate){
-        int roomIndex, reservationIndex;
-        boolean isReserved = false;
-        int availableRoomIndex = -1; 
-
-        for (roomIndex = 0; (roomIndex < hotel.getRoomList().size()) && availableRoomIndex == -1; roomIndex++) {
-            for (reservationIndex = 0; reservationIndex < hotel.getReservationList().size(); reservationIndex++){
-                if(hotel.getReservationList().get(reservationIndex).getRoom().getRoomName().equals(hotel.getRoomList().get(roomIndex).getRoomName())){
-                    if (checkInDate >= hotel.getReservationList().get(reservationIndex).getCheckInDate() && checkInDate < hotel.getReservationList().get(reservationIndex).getCheckOutDate()) {
-                        isReserved = true;
-                    } else if (checkInDate <= hotel.getReservationList().get(reservationIndex).getCheckInDate() && checkOutDate > hotel.getReservationList().get(reservationIndex).getCheckInDate()) {
-                        isReserved = true;
-                    }
-                }
-            }
+        Room availableRoom = bookingService.selectRoom(hotel, new BookingRequest(guestName, checkInDate, checkOutDate));
 
-            if(!isReserved){
-                createReservation(hotel, guestName, checkInDate, checkOutDate, hotel.getRoomList().get(roomIndex));
-                availableRoomIndex = roomIndex;
-                return true;
-            }
-            isReserved = false;
+        if (availableRoom == null) {
+            return false;
         }
-        return false;
+        createReservation(hotel, guestName, checkInDate, checkOutDate, availableRoom);
+        return true;
     }
     
     /**
@@ -709,42 +1048,15 @@ public class HotelReservationController{
         JButton backButton = new JButton("Back");
         backButton.addActionListener(e -> dialog.dispose());
         
-        int roomIndex, reservationIndex, i, numAvailableRooms;
-        boolean isReserved;
+        int i, numAvailableRooms;
         boolean reserveSuccessfully[] = {false};
         String roomType = selectRoomTypeOption(hotel);
 
         ArrayList<Room> availableRoomList = new ArrayList<Room>();
-        ArrayList<Room> selectedRoomList = new ArrayList<Room>();
 
-        if (roomType == "Standard Room"){
-            selectedRoomList.addAll(hotel.getStandardRoomList());
-            dialog.setTitle("Choose an Available Standard Room");
-        }
-        else if (roomType == "Deluxe Room"){
-            selectedRoomList.addAll(hotel.getDeluxeRoomList());    
-            dialog.setTitle("Choose an Available Deluxe Room");
-        }
-        else if (roomType == "Executive Room"){
-            selectedRoomList.addAll(hotel.getExecutiveRoomList());
-            dialog.setTitle("Choose an Available Executive Room");
-        }
-
-        for (roomIndex = 0; roomIndex < selectedRoomList.size(); roomIndex++) {
-            isReserved = false;
-            for (reservationIndex = 0; reservationIndex < hotel.getReservationList().size(); reservationIndex++){
-                if(hotel.getReservationList().get(reservationIndex).getRoom().getRoomName().equals(selectedRoomList.get(roomIndex).getRoomName())){
-                    if (checkInDate >= hotel.getReservationList().get(reservationIndex).getCheckInDate() && checkInDate < hotel.getReservationList().get(reservationIndex).getCheckOutDate()) {
-                        isReserved = true;
-                    } else if (checkInDate <= hotel.getReservationList().get(reservationIndex).getCheckInDate() && checkOutDate > hotel.getReservationList().get(reservationIndex).getCheckInDate()) {
-                        isReserved = true;
-                    }
-                }
-            }
-
-            if(!isReserved){
-                availableRoomList.add(selectedRoomList.get(roomIndex));
-            }
+        if (roomType != ""){
+            availableRoomList = hotel.getAvailableRooms(RoomType.fromDisplayName(roomType), checkInDate, checkOutDate);
+            dialog.setTitle("Choose an Available " + roomType);
         }
 
         numAvailableRooms = availableRoomList.size();
@@ -842,26 +1154,24 @@ public class HotelReservationController{
      * Ask the user to input a valid discount code.
      * 
      * @param hotel The selected hotel for booking.
-     * @param reservation The reservation made by the user.
+     * @param guestName The name of the guest who books the room.
+     * @param checkInDate The date when the guest decided to check-in.
+     * @param checkOutDate The date when the guest decided to check-out.
+     * @param chosenRoom The room chosen by the guest.
+     * @return the accepted discount code, or null if the guest has no discount code.
      */
-    public void askDiscountCode(Hotel hotel, Reservation reservation){
+    public String askDiscountCode(Hotel hotel, String guestName, int checkInDate, int checkOutDate, Room chosenRoom){
         JTextField discountCodeField = new JTextField();
 
         int option; 
-        int daysOfStay = reservation.getCheckOutDate() - reservation.getCheckInDate();
-        double newPrice = 0;
-        double freeRoomPrice = reservation.getRoom().getPrice();
-        String discountCode;
-        boolean validInputs;
+        String discountCode = null;
+        boolean validInputs = false;
+        BookingQuote quote = null;
 
         Object[] message = {
             "Discount Code: ", discountCodeField
         };
 
-        String[] discountApplied = {
-            "The discount is successfully applied."
-        };
-
         option = JOptionPane.showConfirmDialog(null, "Do you have a Discount Code?", "Discount Code for Reservations", JOptionPane.YES_NO_OPTION);
         if (option == JOptionPane.YES_OPTION) {
             do {
@@ -871,59 +1181,22 @@ public class HotelReservationController{
     
                 /* For Input Checking: */
                 if (option == JOptionPane.OK_OPTION) {
-                    String[] warning = {
-                        "Invalid Discount Code."
-                    };
-                
-                    if (discountCode.equals("I_WORK_HERE")) {
-                        validInputs = true;
-                        newPrice = reservation.getTotalPrice() - (reservation.getTotalPrice() * 0.10);
-                        reservation.updateTotalPrice(newPrice);
-                        reservation.applyDiscountCode("I_WORK_HERE");
-                        discountApplied = Arrays.copyOf(discountApplied, discountApplied.length + 1);
-                        discountApplied[discountApplied.length - 1] = reservation.getGuestName() + " received 10% discount to the overall price of the reservation.";
-                    } else if (discountCode.equals("STAY4_GET1")) {
-                        if (daysOfStay >= 5){
-                            validInputs = true;
-                            for(int x = 0; x < hotel.getDateModifiedPriceList().size(); x++){
-                                if(hotel.getDateModifiedPriceList().get(x) == reservation.getCheckInDate()){
-                                    freeRoomPrice = reservation.getRoom().getPrice() * hotel.getPriceRateList().get(x);
-                                }
-                            }
-                            newPrice = reservation.getTotalPrice() - freeRoomPrice;
-                            reservation.updateTotalPrice(newPrice);
-                            reservation.applyDiscountCode("STAY4_GET1");
-                            discountApplied = Arrays.copyOf(discountApplied, discountApplied.length + 1);
-                            discountApplied[discountApplied.length - 1] = "The first day of " + reservation.getGuestName() + "'s reservation is given for free.";
-                        } else {
-                            warning = Arrays.copyOf(warning, warning.length + 1);
-                            warning[warning.length - 1] = "This code is only applicable to the guests who have a reservation with 5 or more days.";
-                        }
-                    } else if (discountCode.equals("PAYDAY")) {
-                        if ((reservation.getCheckInDate() <= 15 && 15 < reservation.getCheckOutDate()) || (reservation.getCheckInDate() <= 30 && reservation.getCheckOutDate() == 31)){
-                            validInputs = true;
-                            newPrice = reservation.getTotalPrice() - (reservation.getTotalPrice() * 0.07);
-                            reservation.updateTotalPrice(newPrice);
-                            reservation.applyDiscountCode("PAYDAY");
-                            discountApplied = Arrays.copyOf(discountApplied, discountApplied.length + 1);
-                            discountApplied[discountApplied.length - 1] = reservation.getGuestName() + " received 7% discount to the overall price of the reservation.";
-                        } else {
-                            warning = Arrays.copyOf(warning, warning.length + 1);
-                            warning[warning.length - 1] = "This code is only applicable to the guests who have a reservation that covers either day 15 or 30 (but not as a checkout).";
-                        }
-                    }
+                    quote = bookingService.quote(hotel, new BookingRequest(guestName, checkInDate, checkOutDate, null, chosenRoom, discountCode), chosenRoom);
+                    validInputs = quote.isValid();
     
                     if (!validInputs){
-                        JOptionPane.showMessageDialog(null, warning);
+                        JOptionPane.showMessageDialog(null, quote.getMessageList().toArray());
                     }
                 }
     
             } while (!validInputs && option == JOptionPane.OK_OPTION);
             
             if (option == JOptionPane.OK_OPTION && validInputs) {
-                JOptionPane.showMessageDialog(null, discountApplied);
+                JOptionPane.showMessageDialog(null, quote.getMessageList().toArray());
+                return discountCode;
             }
         }
+        return null;
     }
 
     /**
@@ -936,40 +1209,18 @@ public class HotelReservationController{
      * @param chosenRoom The room chosen by the guest.
      */
     public void createReservation(Hotel hotel, String guestName, int checkInDate, int checkOutDate, Room chosenRoom) {
-        Reservation reservation;
-        Object[] message = {
-            guestName + " successfully reserved a room.",
-            "The room name is: " + chosenRoom.getRoomName()
-        };
-        double totalPrice = 0.0;
-        int daysOfStay = 0;
-
-        reservation = new Reservation(guestName, checkInDate, checkOutDate, chosenRoom);
-        daysOfStay = checkOutDate - checkInDate;
-        totalPrice = daysOfStay * chosenRoom.getPrice();
-        reservation.updateTotalPrice(totalPrice);
-        hotel.datePriceModifier(reservation);
-
-        askDiscountCode(hotel, reservation);
-        hotel.getReservationList().add(reservation);
-        for(Room room : hotel.getRoomList()){
-            if(chosenRoom.equals(room)){
-                room.updateStatus("booked");
-            }
-        }
-        JOptionPane.showMessageDialog(null, message);
+        String discountCode = askDiscountCode(hotel, guestName, checkInDate, checkOutDate, chosenRoom);
+        BookingResult result = bookingService.book(hotel, new BookingRequest(guestName, checkInDate, checkOutDate, null, chosenRoom, discountCode));
+
+        JOptionPane.showMessageDialog(null, result.getMessageList().toArray());
     }
 
     /**
      * Updates the information about a specific hotel for display.
      */
     public void updateViewHotelInfo(Hotel hotel) {
-        int x;
-        double totalEarnings = 0.0;
-        for (x = 0; x < hotel.getReservationList().size(); x++) {
-            totalEarnings += hotel.getReservationList().get(x).getTotalPrice();
-        }
-        view.viewHotelInfo(hotel.getHotelName(), hotel.getRoomList().size(), hotel.getStandardRoomList().size(), hotel.getDeluxeRoomList().size(), hotel.getExecutiveRoomList().size(), totalEarnings);
+        HotelSnapshot snapshot = hotel.getSnapshot();
+        view.viewHotelInfo(snapshot.getHotelName(), snapshot.getRoomList().size(), hotel.getStandardRoomList().size(), hotel.getDeluxeRoomList().size(), hotel.getExecutiveRoomList().size(), Money.toAmount(hotel.getTotalEarningsCents()));
     }
 
     /*
@@ -977,9 +1228,8 @@ public class HotelReservationController{
      */
     public void updateViewNumberOfRoomsInfo(Hotel hotel) {
         JTextField dateField = new JTextField();
-        int option, date, x;
-        int availableRooms = hotel.getRoomList().size();
-        int bookedRooms = 0;
+        int option, date;
+        int availableRooms, bookedRooms;
         boolean validInputs;
 
         do {
@@ -1009,16 +1259,9 @@ public class HotelReservationController{
 
         } while (!validInputs && option == JOptionPane.OK_OPTION);
 
-        for(x = 0; x < hotel.getReservationList().size(); x++){
-            if(hotel.getReservationList().get(x).getCheckInDate() == date){
-                availableRooms--;
-                bookedRooms++;
-            } else if (hotel.getReservationList().get(x).getCheckInDate() <= date && date < hotel.getReservationList().get(x).getCheckOutDate()){
-                availableRooms--;
-                bookedRooms++;
-            }
-        }
-        
+        bookedRooms = hotel.getBookedRoomCount(date);
+        availableRooms = hotel.getRoomList().size() - bookedRooms;
+
         view.viewNumberOfRoomsInfo(date, availableRooms, bookedRooms);
     }
 
@@ -1037,6 +1280,51 @@ public class HotelReservationController{
         view.viewRoomInfo(room.getRoomName(), roomType, room.getPrice());
     }
 
+    /**
+     * Asks for the start of a guest name and shows the matching reservations of every hotel.
+     * Choosing a reservation shows its details.
+     */
+    public void showFindGuestOption() {
+        String prefix = JOptionPane.showInputDialog(null, "Guest Name (or the start of a name):", "Find Guest", JOptionPane.QUESTION_MESSAGE);
+        ArrayList<ReservationMatch> matchList;
+        JButton matchButton;
+
+        if (prefix == null) {
+            return;
+        }
+        matchList = model.findReservationsByGuest(prefix, 50);
+        if (matchList.isEmpty()) {
+            JOptionPane.showMessageDialog(null, "No reservation was found for \"" + prefix + "\".");
+            return;
+        }
+
+        JDialog dialog = new JDialog();
+        dialog.setTitle("Guests Found");
+        dialog.setModal(true);
+        dialog.setLayout(new BorderLayout());
+        dialog.setSize(500, 400);
+
+        JButton backButton = new JButton("Back");
+        backButton.addActionListener(e -> dialog.dispose());
+
+        JPanel panel = new JPanel(new GridLayout(matchList.size(), 1));
+        JPanel backPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        backPanel.add(backButton);
+
+        for (ReservationMatch match : matchList) {
+            Reservation reservation = match.getReservation();
+            matchButton = new JButton(reservation.getGuestName() + " - " + match.getHotel().getHotelName() + " - " + reservation.getRoom().getRoomName()
+                    + " (Day " + reservation.getCheckInDate() + " to " + reservation.getCheckOutDate() + ")");
+            matchButton.addActionListener(e -> updateViewReservationInfo(reservation));
+            panel.add(matchButton);
+        }
+
+        dialog.add(panel, BorderLayout.CENTER);
+        dialog.add(backPanel, BorderLayout.SOUTH);
+        dialog.setLocationRelativeTo(null);
+        dialog.setVisible(true);
+    }
+
     /*
      * Updates the reservation information for display.
      */
@@ -1056,7 +1344,10 @@ public class HotelReservationController{
      * Updates the breakdown cost of a reservation per night for display.
      */
     public void updateViewBreakdownCostInfo(Hotel hotel, Reservation reservation) {
-        view.viewBreakdownCostInfo(hotel.getDateModifiedPriceList(), hotel.getPriceRateList(), reservation.getCheckInDate(), reservation.getCheckOutDate(), reservation.getTotalPrice(), reservation.getRoom().getPrice(), reservation.getDiscountStatus());       
+        long[] nightPriceCents = reservation.getNightPriceCents();
+        long discountCents = Math.max(0, reservation.getRoomPriceCents() * nightPriceCents.length - reservation.getTotalPriceCents());
+
+        view.viewBreakdownCostInfo(nightPriceCents, reservation.getCheckInDate(), reservation.getTotalPriceCents(), discountCents, bookingService.getDiscountRegistry().getRule(reservation.getDiscountStatus()));
     }
 
     public void showAvailableHotel(String task) {
@@ -1071,17 +1362,18 @@ public class HotelReservationController{
 
         JPanel panel = new JPanel();
         JPanel backPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        panel.setLayout(new GridLayout(getHotelList().size(), 1));
+        ArrayList<HotelSummary> hotelList = getHotelSummaries();
+        panel.setLayout(new GridLayout(hotelList.size(), 1));
         backPanel.add(backButton);
 
-        if(getHotelList().isEmpty()){
+        if(hotelList.isEmpty()){
             String[] noHotel = {"There are no hotels in the system."};
             JOptionPane.showMessageDialog(null, noHotel);
         } else {
-            for (Hotel hotel : getHotelList()) {
-                JButton hotelButton = new JButton(hotel.getHotelName());
+            for (HotelSummary summary : hotelList) {
+                JButton hotelButton = new JButton(summary.getHotelName());
                 hotelButton.addActionListener(e -> {
-                    showReservation(hotel, task);
+                    showReservation(getHotel(summary), task);
                 });
                 panel.add(hotelButton);
             }
@@ -1142,7 +1434,7 @@ public class HotelReservationController{
                 if (reservation.getChosenPackage().equals("No Package") && (reservation.getCheckOutDate() - reservation.getCheckInDate()) >= 3 && task.equals("customize")) {
                     JButton reservationButton = new JButton(reservation.getRoom().getRoomName() + " reserved by " + reservation.getGuestName());
                     reservationButton.addActionListener(e -> {
-                        customizablePackages(reservation);
+                        customizablePackages(hotel, reservation);
                     });
                     panel.add(reservationButton);
                 } else if (!reservation.getChosenPackage().equals("No Package") && task.equals("view")) {
@@ -1161,7 +1453,7 @@ public class HotelReservationController{
         }
     }
 
-    public void customizablePackages(Reservation reservation) {
+    public void customizablePackages(Hotel hotel, Reservation reservation) {
         JDialog dialog = new JDialog();
         dialog.setTitle("Choose a package");
         dialog.setModal(true);
@@ -1188,11 +1480,11 @@ public class HotelReservationController{
         panel.add(spaButton);
         panel.add(tourButton);
 
-        foodButton.addActionListener(e -> choosePackage(reservation, "Choose a food package", "packagepicture/breakfast.png", "packagepicture/lunch.png", "packagepicture/dinner.png",
+        foodButton.addActionListener(e -> choosePackage(hotel, reservation, "Choose a food package", "packagepicture/breakfast.png", "packagepicture/lunch.png", "packagepicture/dinner.png",
                                                         "Breakfast Package","Lunch Package", "Dinner Package"));
-        spaButton.addActionListener(e -> choosePackage(reservation, "Choose a spa package", "packagepicture/spa1.png", "packagepicture/spa2.png", "packagepicture/spa3.png",
+        spaButton.addActionListener(e -> choosePackage(hotel, reservation, "Choose a spa package", "packagepicture/spa1.png", "packagepicture/spa2.png", "packagepicture/spa3.png",
                                                         "Foot Spa Package","Facial Package", "Massage Package"));
-        tourButton.addActionListener(e -> choosePackage(reservation, "Choose a spa package", "packagepicture/tour1.png", "packagepicture/tour2.png", "packagepicture/tour3.png",
+        tourButton.addActionListener(e -> choosePackage(hotel, reservation, "Choose a spa package", "packagepicture/tour1.png", "packagepicture/tour2.png", "packagepicture/tour3.png",
                                                         "Binondo Food Tour Package","Rizal Park Tour Package", "Intramuros Tour Package"));
         backButton.addActionListener(e -> dialog.dispose());
 
@@ -1202,7 +1494,7 @@ public class HotelReservationController{
         dialog.setVisible(true);
     }
 
-    public void choosePackage(Reservation reservation, String title, String nameImage1, String nameImage2, String nameImage3, String namePackage1, String namePackage2, String namePackage3) {
+    public void choosePackage(Hotel hotel, Reservation reservation, String title, String nameImage1, String nameImage2, String nameImage3, String namePackage1, String namePackage2, String namePackage3) {
         JDialog dialog = new JDialog();
         dialog.setTitle(title);
         dialog.setModal(true);
@@ -1237,7 +1529,7 @@ public class HotelReservationController{
             confirmModification = JOptionPane.showConfirmDialog(null, "Do you want to confirm your configuration?", "Remove Reservation Feature", JOptionPane.YES_NO_OPTION);
             if (confirmModification == JOptionPane.YES_OPTION) {
                 JOptionPane.showMessageDialog(null, packageUpdated);
-                reservation.updateChosenPackage(namePackage1);
+                hotel.updateReservationPackage(reservation, namePackage1);
             }
         });
         button2.addActionListener(e -> {
@@ -1248,7 +1540,7 @@ public class HotelReservationController{
             confirmModification = JOptionPane.showConfirmDialog(null, "Do you want to confirm your configuration?", "Remove Reservation Feature", JOptionPane.YES_NO_OPTION);
             if (confirmModification == JOptionPane.YES_OPTION) {
                 JOptionPane.showMessageDialog(null, packageUpdated);
-                reservation.updateChosenPackage(namePackage2);
+                hotel.updateReservationPackage(reservation, namePackage2);
             }
         });
         button3.addActionListener(e -> {
@@ -1259,7 +1551,7 @@ public class HotelReservationController{
             confirmModification = JOptionPane.showConfirmDialog(null, "Do you want to confirm your configuration?", "Remove Reservation Feature", JOptionPane.YES_NO_OPTION);
             if (confirmModification == JOptionPane.YES_OPTION) {
                 JOptionPane.showMessageDialog(null, packageUpdated);
-                reservation.updateChosenPackage(namePackage3);
+                hotel.updateReservationPackage(reservation, namePackage3);
             }
         });
         backButton.addActionListener(e -> dialog.dispose());
@@ -1,37 +1,690 @@
-import java.util.ArrayList;
-
-/**
- * The HotelReservationModel class acts as a data layer for the system. 
- * It fetch and store the model state in the database.
- */
-public class HotelReservationModel{
-    /** 
-     * A list to store Hotel objects. 
-     */
-    private ArrayList<Hotel> hotelList = new ArrayList<Hotel>();
-
-    /**
-     * Gets the list of hotels in the system.
-     * 
-     * @return the list of hotels
-     */
-    public ArrayList<Hotel> getHotelList() {
-        return hotelList;
-    }
-
-    /**
-     * Creates a new hotel and adds it to the hotel list.
-     *
-     * @param hotelName The name of the hotel to be added.
-     */
-    public void createHotel(String hotelName){
-        hotelList.add(new Hotel(hotelName));
-    }
-
-    /**
-     * Removes a hotel from the hotel list.
-     */
-    public void removeHotel(Hotel hotel){
-        hotelList.remove(hotel);
-    }
-}
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Function;
+import javax.management.NotificationEmitter;
+
+/**
+ * The HotelReservationModel class acts as a data layer for the system. 
+ * It fetch and store the model state in the database.
+ * Once a journal is opened, every change to the hotels is written to it and read back on the next start.
+ * Hotels are then loaded from their files the first time they are used, and the least recently used ones
+ * are unloaded when more than a set number are loaded or when the heap runs low, so the memory in use
+ * follows the hotels being worked on rather than the size of the chain. The guests of every hotel, loaded or
+ * not, are kept in one guest index of the chain, so a search by guest name only loads the hotels with a match.
+ */
+public class HotelReservationModel{
+    /**
+     * The largest number of hotels kept loaded when no other bound is set.
+     */
+    public static final int DEFAULT_MAX_LOADED_HOTELS = 64;
+
+    /**
+     * The share of a heap pool still in use after a garbage collection above which half the loaded hotels are unloaded.
+     */
+    public static final double MEMORY_PRESSURE_RATIO = 0.8;
+
+    /**
+     * The HotelEntry class holds one hotel of the model, which is either loaded or known by its summary.
+     * A loaded hotel is held strongly while it is among the most recently used ones. Once it is unloaded it
+     * is only held weakly, so code that still holds it keeps getting the same hotel, and a change made to it
+     * loads it again instead of being lost.
+     */
+    private class HotelEntry implements HotelListener {
+        private int hotelId;
+        private volatile Hotel hotel;
+        private WeakReference<Hotel> hotelReference;
+        private volatile HotelSummary summary;
+        private volatile boolean removed;
+
+        /**
+         * Constructs a new HotelEntry.
+         *
+         * @param hotelId the number the model names the hotel by
+         */
+        private HotelEntry(int hotelId) {
+            this.hotelId = hotelId;
+        }
+
+        @Override
+        public void reservationAdded(Hotel changedHotel, Reservation reservation) {
+            guestIndex.add(reservation.getGuestName(), new GuestEntry(hotelId, reservation.getReservationId()));
+        }
+
+        @Override
+        public void reservationsAdded(Hotel changedHotel, List<Reservation> reservationList) {
+            indexGuests(hotelId, reservationList);
+        }
+
+        @Override
+        public void reservationRemoved(Hotel changedHotel, Reservation reservation) {
+            long reservationId = reservation.getReservationId();
+
+            guestIndex.remove(reservation.getGuestName(), guest -> guest.hotelId == hotelId && guest.reservationId == reservationId);
+        }
+
+        @Override
+        public void changeCommitted(Hotel changedHotel) {
+            if (hotel == null && !removed) {
+                keepLoaded(this, changedHotel);
+                unloadHotels();
+            }
+        }
+    }
+
+    /**
+     * The GuestEntry class names one reservation in the guest index of the chain by its hotel and its number,
+     * so the index holds no hotel in memory.
+     */
+    private static class GuestEntry {
+        private int hotelId;
+        private long reservationId;
+
+        /**
+         * Constructs a new GuestEntry.
+         *
+         * @param hotelId the number the model names the hotel by
+         * @param reservationId the number of the reservation in its hotel
+         */
+        private GuestEntry(int hotelId, long reservationId) {
+            this.hotelId = hotelId;
+            this.reservationId = reservationId;
+        }
+    }
+
+    /** 
+     * A read-only list of the hotels, in the order they were created. It is replaced as a whole whenever
+     * a hotel is created or removed, so readers can iterate it without locks.
+     */
+    private volatile List<HotelEntry> entryList = Collections.unmodifiableList(new ArrayList<HotelEntry>());
+
+    /**
+     * The loaded hotels that are held strongly, from the least to the most recently used.
+     */
+    private LinkedHashMap<Integer, HotelEntry> loadedMap = new LinkedHashMap<Integer, HotelEntry>(16, 0.75f, true);
+    private volatile int maxLoadedHotels = DEFAULT_MAX_LOADED_HOTELS;
+    private GuestIndex<GuestEntry> guestIndex = new GuestIndex<GuestEntry>();
+    private ArrayList<MemoryPoolMXBean> memoryPoolList = new ArrayList<MemoryPoolMXBean>();
+    private volatile Exception unloadFailure;
+    private int nextHotelId = 1;
+
+    /**
+     * The journal the changes are written to, or null if the model is kept in memory only.
+     */
+    private volatile HotelJournal journal;
+
+    /**
+     * Gets the list of hotels in the system. Every hotel that is not loaded is loaded, and stays in memory
+     * for as long as the list is held, so a large chain should be listed with getHotelSummaries instead.
+     * 
+     * @return the read-only list of hotels
+     * @throws IllegalStateException if a hotel cannot be loaded
+     */
+    public List<Hotel> getHotelList() {
+        ArrayList<Hotel> hotelList = new ArrayList<Hotel>();
+
+        for (HotelEntry entry : entryList) {
+            hotelList.add(getHotel(entry));
+        }
+        return Collections.unmodifiableList(hotelList);
+    }
+
+    /**
+     * Gets the name and the counts of every hotel in the system, without loading any hotel.
+     *
+     * @return the summaries of the hotels, in the order they were created
+     */
+    public ArrayList<HotelSummary> getHotelSummaries() {
+        ArrayList<HotelSummary> summaryList = new ArrayList<HotelSummary>();
+
+        for (HotelEntry entry : entryList) {
+            summaryList.add(getSummary(entry));
+        }
+        return summaryList;
+    }
+
+    /**
+     * Gets a hotel of the system and loads it first if it is not loaded.
+     *
+     * @param summary the summary of the hotel
+     * @return the hotel, or null if it was removed
+     * @throws IllegalStateException if the hotel cannot be loaded
+     */
+    public Hotel getHotel(HotelSummary summary) {
+        for (HotelEntry entry : entryList) {
+            if (entry.hotelId == summary.getHotelId()) {
+                return getHotel(entry);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets a hotel if it is in memory, without loading it.
+     *
+     * @param hotelId the number the model names the hotel by
+     * @return the hotel, or null if it is not in memory or not in the model
+     */
+    public Hotel getLoadedHotel(int hotelId) {
+        HotelEntry entry = findEntry(hotelId);
+        Hotel hotel;
+
+        if (entry == null) {
+            return null;
+        }
+        hotel = entry.hotel;
+        if (hotel == null) {
+            synchronized (entry) {
+                hotel = entry.hotelReference == null ? null : entry.hotelReference.get();
+            }
+        }
+        return hotel;
+    }
+
+    /**
+     * Gets the number of hotels that are held loaded.
+     *
+     * @return the number of loaded hotels
+     */
+    public int getLoadedHotelCount() {
+        synchronized (loadedMap) {
+            return loadedMap.size();
+        }
+    }
+
+    /**
+     * Sets the largest number of hotels kept loaded, and unloads the least recently used ones above it.
+     * The bound only applies once a journal is open, since a hotel is loaded again from its files.
+     *
+     * @param maxLoadedHotels the largest number of loaded hotels, at least 1
+     */
+    public void setMaxLoadedHotels(int maxLoadedHotels) {
+        this.maxLoadedHotels = Math.max(1, maxLoadedHotels);
+        unloadHotels();
+    }
+
+    /**
+     * Gets the error of the last hotel that could not be unloaded. Such a hotel stays loaded.
+     *
+     * @return the error, or null if no hotel failed to unload
+     */
+    public Exception getUnloadFailure() {
+        return unloadFailure;
+    }
+
+    /**
+     * Gets the current snapshot of every hotel in the system, loading the hotels that are not loaded.
+     * Each snapshot is taken in O(1) and can be read without locks.
+     * 
+     * @return the list of hotel snapshots
+     */
+    public ArrayList<HotelSnapshot> getHotelSnapshots() {
+        ArrayList<HotelSnapshot> snapshotList = new ArrayList<HotelSnapshot>();
+
+        for (HotelEntry entry : entryList) {
+            snapshotList.add(getHotel(entry).getSnapshot());
+        }
+        return snapshotList;
+    }
+
+    /**
+     * Lists the hotels of the latest snapshot, loads the ones with journal records after it to apply them,
+     * and writes every later change to the journal. The model should not have hotels yet.
+     *
+     * @param directory the directory of the journal and the snapshots, which is created if it does not exist
+     * @throws IOException if a file cannot be read or opened
+     * @throws IllegalStateException if a snapshot or a record is invalid
+     */
+    public void openJournal(File directory) throws IOException {
+        journal = new HotelJournal(directory, this);
+        watchMemory();
+        unloadHotels();
+    }
+
+    /**
+     * Appends the reservations of a hotel that are newer than the last one in a reservation column file,
+     * where reports can scan them from disk without a Reservation object per stay. Exporting again only adds
+     * the reservations booked since, so the file holds each reservation once, as it was when it was exported.
+     * A hotel publishes its reservations in the order of their IDs, so no reservation below the last exported
+     * ID can show up later. The file should only hold the reservations of this hotel.
+     *
+     * @param hotel the hotel whose reservations are appended
+     * @param file the column file, which is created if it does not exist
+     * @return the number of reservations appended
+     * @throws IOException if the file cannot be read or written
+     * @throws IllegalStateException if the file is not a reservation column file
+     */
+    public int exportReservations(Hotel hotel, File file) throws IOException {
+        ReservationColumnFile columnFile = new ReservationColumnFile(file);
+        ArrayList<Reservation> newReservationList = new ArrayList<Reservation>();
+
+        try {
+            for (Reservation reservation : hotel.getSnapshot().getReservationList()) {
+                if (reservation.getReservationId() > columnFile.getLastReservationId()) {
+                    newReservationList.add(reservation);
+                }
+            }
+            newReservationList.sort(Comparator.comparingLong(Reservation::getReservationId));
+            columnFile.appendAll(newReservationList);
+        } finally {
+            columnFile.close();
+        }
+        return newReservationList.size();
+    }
+
+    /**
+     * Gets the journal the changes are written to.
+     *
+     * @return the journal, or null if the model is kept in memory only
+     */
+    public HotelJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Creates a new hotel and adds it to the hotel list.
+     *
+     * @param hotelName The name of the hotel to be added.
+     * @return the new hotel
+     */
+    public synchronized Hotel createHotel(String hotelName){
+        Hotel hotel = new Hotel(hotelName);
+        HotelEntry entry = new HotelEntry(nextHotelId++);
+
+        if (journal != null) {
+            journal.hotelCreated(entry.hotelId, hotel);
+        }
+        addEntry(entry, hotel);
+        return hotel;
+    }
+
+    /**
+     * Adds a hotel restored from storage, such as from a journal, under the number it was saved with.
+     * Nothing is recorded.
+     *
+     * @param hotelId the number the hotel was saved with
+     * @param hotel the restored hotel
+     */
+    public synchronized void addHotel(int hotelId, Hotel hotel) {
+        HotelEntry entry = findEntry(hotelId);
+
+        if (entry == null) {
+            nextHotelId = Math.max(nextHotelId, hotelId + 1);
+            addEntry(new HotelEntry(hotelId), hotel);
+        } else {
+            hotel.addHotelListener(entry);
+            keepLoaded(entry, hotel);
+        }
+    }
+
+    /**
+     * Adds a hotel that stays in storage until it is used, known by its name, its counts, and the guests
+     * of its reservations. Nothing is recorded.
+     *
+     * @param summary the summary of the hotel, with the number it was saved with
+     * @param guestNameList the guest names of the reservations of the hotel
+     * @param reservationIdList the numbers of the reservations, in the order of the names
+     */
+    public synchronized void addHotel(HotelSummary summary, List<String> guestNameList, List<Long> reservationIdList) {
+        ArrayList<HotelEntry> newEntryList = new ArrayList<HotelEntry>(entryList);
+        ArrayList<GuestEntry> guestList = new ArrayList<GuestEntry>(reservationIdList.size());
+        HotelEntry entry = new HotelEntry(summary.getHotelId());
+
+        for (long reservationId : reservationIdList) {
+            guestList.add(new GuestEntry(summary.getHotelId(), reservationId));
+        }
+        guestIndex.addAll(guestNameList, guestList);
+        entry.summary = summary;
+        nextHotelId = Math.max(nextHotelId, summary.getHotelId() + 1);
+        newEntryList.add(entry);
+        entryList = Collections.unmodifiableList(newEntryList);
+    }
+
+    /**
+     * Removes a hotel from the hotel list.
+     */
+    public void removeHotel(Hotel hotel){
+        for (HotelEntry entry : entryList) {
+            if (getLoadedHotel(entry.hotelId) == hotel) {
+                removeHotel(entry.hotelId);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes a hotel from the hotel list without loading it.
+     *
+     * @param hotelId the number the model names the hotel by
+     */
+    public synchronized void removeHotel(int hotelId) {
+        ArrayList<HotelEntry> newEntryList = new ArrayList<HotelEntry>(entryList);
+        HotelEntry entry = findEntry(hotelId);
+        Hotel hotel;
+
+        if (entry == null) {
+            return;
+        }
+        hotel = getLoadedHotel(hotelId);
+        if (journal != null) {
+            journal.hotelRemoved(hotelId, hotel);
+        }
+        if (hotel != null) {
+            hotel.removeHotelListener(entry);
+        }
+        entry.removed = true;
+        guestIndex.removeAll(guest -> guest.hotelId == hotelId);
+        newEntryList.remove(entry);
+        entryList = Collections.unmodifiableList(newEntryList);
+        synchronized (loadedMap) {
+            loadedMap.remove(hotelId);
+        }
+    }
+
+    /**
+     * Finds the reservations of the guests in every hotel whose name, or a word of whose name, starts with a prefix.
+     * The guest index of the chain names the matching reservations, and only their hotels are loaded.
+     *
+     * @param prefix the start of the guest name
+     * @param maxResults the largest number of reservations to return
+     * @return the matching reservations with their hotels, in name order
+     */
+    public ArrayList<ReservationMatch> findReservationsByGuest(String prefix, int maxResults) {
+        ArrayList<ReservationMatch> matchList = new ArrayList<ReservationMatch>();
+        HashMap<Integer, Hotel> hotelMap = new HashMap<Integer, Hotel>();
+        HotelEntry entry;
+        Hotel hotel;
+        Reservation reservation;
+
+        for (GuestEntry guest : guestIndex.find(prefix, maxResults)) {
+            hotel = hotelMap.get(guest.hotelId);
+            if (hotel == null) {
+                entry = findEntry(guest.hotelId);
+                if (entry == null) {
+                    continue;
+                }
+                hotel = getHotel(entry);
+                hotelMap.put(guest.hotelId, hotel);
+            }
+            reservation = hotel.getSnapshot().getReservation(guest.reservationId);
+            if (reservation != null) {
+                matchList.add(new ReservationMatch(hotel, reservation));
+            }
+        }
+        return matchList;
+    }
+
+    /**
+     * Applies a function to every hotel in parallel on the common fork-join pool. A hotel that is not loaded is
+     * read from its file for the call and is not held loaded afterwards, so a pass over the chain holds no more
+     * hotels than the pool has threads, and does not push the hotels being worked on out of memory.
+     *
+     * @param <R> the type of the results
+     * @param function the function applied to each hotel, which should not keep the hotel
+     * @return the results that are not null, in the order of the hotel list
+     * @throws IllegalStateException if a hotel cannot be loaded
+     */
+    public <R> ArrayList<R> scanHotels(Function<Hotel, R> function) {
+        ArrayList<R> resultList = scanHotels(entryList, function);
+
+        resultList.removeIf(result -> result == null);
+        return resultList;
+    }
+
+    /**
+     * Sums the revenue of the nights in a range for every hotel. The hotels are summed in parallel
+     * on the common fork-join pool, and each hotel sums its reservation columns in chunks.
+     * The hotels that are not loaded are read for the sum without being held loaded.
+     *
+     * @param fromDate the first night of the range, at least 0
+     * @param toDate the night after the range
+     * @param roomType the type of the rooms to count, or null for every type
+     * @return the revenue report of each hotel by its summary, in the order of the hotel list
+     */
+    public LinkedHashMap<HotelSummary, RevenueReport> computeRevenueByHotel(int fromDate, int toDate, RoomType roomType) {
+        LinkedHashMap<HotelSummary, RevenueReport> reportMap = new LinkedHashMap<HotelSummary, RevenueReport>();
+        List<HotelEntry> scannedEntryList = entryList;
+        ArrayList<RevenueReport> reportList = scanHotels(scannedEntryList, hotel -> hotel.computeRevenue(fromDate, toDate, roomType));
+        int i;
+
+        for (i = 0; i < scannedEntryList.size(); i++) {
+            reportMap.put(getSummary(scannedEntryList.get(i)), reportList.get(i));
+        }
+        return reportMap;
+    }
+
+    /**
+     * Sums the revenue of the nights in a range over the whole chain.
+     * The hotels that are not loaded are read for the sum without being held loaded.
+     *
+     * @param fromDate the first night of the range, at least 0
+     * @param toDate the night after the range
+     * @param roomType the type of the rooms to count, or null for every type
+     * @return the revenue report of the chain
+     */
+    public RevenueReport computeRevenue(int fromDate, int toDate, RoomType roomType) {
+        RevenueReport chainReport = new RevenueReport(0, 0, 0);
+
+        for (RevenueReport report : scanHotels(hotel -> hotel.computeRevenue(fromDate, toDate, roomType))) {
+            chainReport = chainReport.add(report);
+        }
+        return chainReport;
+    }
+
+    /**
+     * Applies a function to the hotels of a list of entries in parallel and collects every result, in the order of the list.
+     */
+    private <R> ArrayList<R> scanHotels(List<HotelEntry> scannedEntryList, Function<Hotel, R> function) {
+        ArrayList<R> resultList = new ArrayList<R>();
+
+        scannedEntryList.parallelStream()
+                .map(entry -> function.apply(loadHotel(entry)))
+                .forEachOrdered(resultList::add);
+        return resultList;
+    }
+
+    /**
+     * Gets the summary of a hotel, made from the hotel if it is held loaded.
+     */
+    private HotelSummary getSummary(HotelEntry entry) {
+        Hotel hotel = entry.hotel;
+
+        return hotel == null ? entry.summary : summarize(entry.hotelId, hotel, true);
+    }
+
+    /**
+     * Gets the hotel of an entry, loading it if it is neither held nor still in memory, and marks it as the
+     * most recently used one.
+     */
+    private Hotel getHotel(HotelEntry entry) {
+        Hotel hotel = entry.hotel;
+
+        if (hotel != null) {
+            synchronized (loadedMap) {
+                loadedMap.get(entry.hotelId);
+            }
+            return hotel;
+        }
+        hotel = loadHotel(entry);
+        keepLoaded(entry, hotel);
+        unloadHotels();
+        return hotel;
+    }
+
+    /**
+     * Gets the hotel of an entry without marking it as used: the hotel that is held or still in memory,
+     * or else the hotel read from its file, which is only held weakly until a change or a use keeps it loaded.
+     */
+    private Hotel loadHotel(HotelEntry entry) {
+        Hotel hotel = entry.hotel;
+
+        if (hotel != null) {
+            return hotel;
+        }
+        synchronized (entry) {
+            hotel = entry.hotelReference == null ? null : entry.hotelReference.get();
+            if (hotel == null) {
+                try {
+                    hotel = journal.loadHotel(entry.hotelId);
+                } catch (IOException e) {
+                    throw new IllegalStateException("The hotel " + entry.summary.getHotelName() + " cannot be loaded", e);
+                }
+                hotel.addHotelListener(entry);
+                entry.hotelReference = new WeakReference<Hotel>(hotel);
+            }
+        }
+        return hotel;
+    }
+
+    /**
+     * Adds the entry of a hotel to the end of the hotel list and holds the hotel loaded.
+     */
+    private void addEntry(HotelEntry entry, Hotel hotel) {
+        ArrayList<HotelEntry> newEntryList = new ArrayList<HotelEntry>(entryList);
+
+        hotel.runExclusively(() -> {
+            indexGuests(entry.hotelId, hotel.getSnapshot().getReservationList());
+            hotel.addHotelListener(entry);
+        });
+        keepLoaded(entry, hotel);
+        newEntryList.add(entry);
+        entryList = Collections.unmodifiableList(newEntryList);
+        unloadHotels();
+    }
+
+    /**
+     * Holds a hotel strongly as the most recently used one.
+     */
+    private void keepLoaded(HotelEntry entry, Hotel hotel) {
+        synchronized (entry) {
+            if (entry.hotelReference == null || entry.hotelReference.get() != hotel) {
+                entry.hotelReference = new WeakReference<Hotel>(hotel);
+            }
+            entry.hotel = hotel;
+        }
+        synchronized (loadedMap) {
+            loadedMap.put(entry.hotelId, entry);
+        }
+    }
+
+    /**
+     * Unloads the least recently used hotels above the bound, which is halved while the heap runs low.
+     * Nothing is unloaded while the model has no journal to load the hotels back from.
+     */
+    private void unloadHotels() {
+        ArrayList<HotelEntry> unloadList = new ArrayList<HotelEntry>();
+        Iterator<HotelEntry> iterator;
+        int maxLoaded = maxLoadedHotels;
+
+        if (journal == null) {
+            return;
+        }
+        synchronized (loadedMap) {
+            for (MemoryPoolMXBean pool : memoryPoolList) {
+                if (pool.isCollectionUsageThresholdExceeded()) {
+                    maxLoaded = Math.min(maxLoaded, Math.max(1, loadedMap.size() / 2));
+                }
+            }
+            iterator = loadedMap.values().iterator();
+            while (loadedMap.size() > maxLoaded && iterator.hasNext()) {
+                unloadList.add(iterator.next());
+                iterator.remove();
+            }
+        }
+        for (HotelEntry entry : unloadList) {
+            unload(entry);
+        }
+    }
+
+    /**
+     * Writes a hotel to its file if it changed and stops holding it strongly. The hotel stops being held
+     * before it is written, so a change made during the write loads it again. A hotel that cannot be
+     * written stays loaded.
+     */
+    private void unload(HotelEntry entry) {
+        Hotel hotel;
+
+        synchronized (entry) {
+            hotel = entry.hotel;
+            if (hotel == null) {
+                return;
+            }
+            entry.summary = summarize(entry.hotelId, hotel, false);
+            entry.hotel = null;
+        }
+        try {
+            journal.unloadHotel(entry.hotelId, hotel);
+        } catch (IOException | RuntimeException e) {
+            unloadFailure = e;
+            keepLoaded(entry, hotel);
+        }
+    }
+
+    /**
+     * Adds reservations of a hotel to the guest index of the chain.
+     */
+    private void indexGuests(int hotelId, List<Reservation> reservationList) {
+        ArrayList<String> guestNameList = new ArrayList<String>(reservationList.size());
+        ArrayList<GuestEntry> guestList = new ArrayList<GuestEntry>(reservationList.size());
+
+        for (Reservation reservation : reservationList) {
+            guestNameList.add(reservation.getGuestName());
+            guestList.add(new GuestEntry(hotelId, reservation.getReservationId()));
+        }
+        guestIndex.addAll(guestNameList, guestList);
+    }
+
+    /**
+     * Makes the summary of a hotel from its current snapshot.
+     */
+    private static HotelSummary summarize(int hotelId, Hotel hotel, boolean loaded) {
+        HotelSnapshot snapshot = hotel.getSnapshot();
+
+        return new HotelSummary(hotelId, snapshot.getHotelName(), snapshot.getRoomList().size(), snapshot.getReservationList().size(), loaded);
+    }
+
+    /**
+     * Finds the entry of a hotel by its number.
+     */
+    private HotelEntry findEntry(int hotelId) {
+        for (HotelEntry entry : entryList) {
+            if (entry.hotelId == hotelId) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Asks the heap pools to report when they are still mostly in use after a garbage collection, and unloads
+     * hotels when one does.
+     */
+    private void watchMemory() {
+        synchronized (loadedMap) {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && pool.getUsage().getMax() > 0) {
+                    if (pool.getCollectionUsageThreshold() == 0) {
+                        pool.setCollectionUsageThreshold((long) (pool.getUsage().getMax() * MEMORY_PRESSURE_RATIO));
+                    }
+                    memoryPoolList.add(pool);
+                }
+            }
+        }
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener((notification, handback) -> {
+            if (notification.getType().equals(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED)) {
+                unloadHotels();
+            }
+        }, null, null);
+    }
+}
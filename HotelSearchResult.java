@@ -0,0 +1,77 @@
+/**
+ * The HotelSearchResult class holds one hotel found by a cross-hotel search: its name, the room that
+ * would be booked there, the quote of the stay, and how many rooms of the type are still free.
+ */
+public class HotelSearchResult {
+
+    private String hotelName;
+    private BookingQuote quote;
+    private int availableRoomCount;
+
+    /**
+     * Constructs a new HotelSearchResult.
+     * 
+     * @param hotelName is the name of the hotel that has a free room.
+     * @param quote is the quote of the stay in the room that would be booked.
+     * @param availableRoomCount is the number of free rooms of the searched type.
+     */
+    public HotelSearchResult(String hotelName, BookingQuote quote, int availableRoomCount) {
+        this.hotelName = hotelName;
+        this.quote = quote;
+        this.availableRoomCount = availableRoomCount;
+    }
+
+    /**
+     * Gets the name of the hotel of the result.
+     * 
+     * @return the hotel name
+     */
+    public String getHotelName() {
+        return hotelName;
+    }
+
+    /**
+     * Gets the room that would be booked.
+     * 
+     * @return the room
+     */
+    public Room getRoom() {
+        return quote.getRoom();
+    }
+
+    /**
+     * Gets the quote of the stay.
+     * 
+     * @return the quote
+     */
+    public BookingQuote getQuote() {
+        return quote;
+    }
+
+    /**
+     * Gets the total price of the stay.
+     * 
+     * @return the total price
+     */
+    public double getTotalPrice() {
+        return quote.getTotalPrice();
+    }
+
+    /**
+     * Gets the total price of the stay in cents.
+     * 
+     * @return the total price in cents
+     */
+    public long getTotalPriceCents() {
+        return quote.getTotalPriceCents();
+    }
+
+    /**
+     * Gets the number of free rooms of the searched type.
+     * 
+     * @return the number of available rooms
+     */
+    public int getAvailableRoomCount() {
+        return availableRoomCount;
+    }
+}
@@ -0,0 +1,212 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * The HotelSnapshot class is an immutable, versioned view of a hotel's name, rooms, and reservations.
+ * The hotel installs a new snapshot after every change, so screens and reports can hold on to one
+ * snapshot and read it for as long as they like without locks and without seeing later changes.
+ */
+public class HotelSnapshot {
+
+    private String hotelName;
+    private long version;
+    private List<Room> roomList;
+    private Room[] roomIndex;
+    private Map<String, Room> roomNameIndex;
+    private PersistentList<Reservation> reservations;
+
+    /**
+     * Constructs a new HotelSnapshot.
+     * 
+     * @param hotelName the name of the hotel
+     * @param version the version number of the snapshot
+     * @param roomList the read-only list of rooms
+     * @param reservations the reservations ordered by reservation ID
+     */
+    public HotelSnapshot(String hotelName, long version, List<Room> roomList, PersistentList<Reservation> reservations) {
+        HashMap<String, Room> nameIndex = new HashMap<String, Room>();
+        int maxRoomId = -1;
+
+        for (Room room : roomList) {
+            maxRoomId = Math.max(maxRoomId, room.getRoomId());
+            nameIndex.put(room.getRoomName(), room);
+        }
+        this.hotelName = hotelName;
+        this.version = version;
+        this.roomList = roomList;
+        this.roomIndex = new Room[maxRoomId + 1];
+        this.roomNameIndex = Collections.unmodifiableMap(nameIndex);
+        this.reservations = reservations;
+        for (Room room : roomList) {
+            if (room.getRoomId() >= 0) {
+                roomIndex[room.getRoomId()] = room;
+            }
+        }
+    }
+
+    /**
+     * Constructs the next snapshot while sharing the room indexes of an earlier one.
+     */
+    private HotelSnapshot(String hotelName, long version, HotelSnapshot rooms, PersistentList<Reservation> reservations) {
+        this.hotelName = hotelName;
+        this.version = version;
+        this.roomList = rooms.roomList;
+        this.roomIndex = rooms.roomIndex;
+        this.roomNameIndex = rooms.roomNameIndex;
+        this.reservations = reservations;
+    }
+
+    /**
+     * Gets the name of the hotel.
+     * 
+     * @return the hotel name
+     */
+    public String getHotelName() {
+        return hotelName;
+    }
+
+    /**
+     * Gets the version number of the snapshot, which grows with every change to the hotel.
+     * 
+     * @return the version number
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the rooms of the hotel.
+     * 
+     * @return the read-only list of rooms
+     */
+    public List<Room> getRoomList() {
+        return roomList;
+    }
+
+    /**
+     * Finds a room by its ID.
+     * 
+     * @param roomId the ID of the room
+     * @return the room, or null if no room in the snapshot has the ID
+     */
+    public Room getRoom(int roomId) {
+        if (roomId < 0 || roomId >= roomIndex.length) {
+            return null;
+        }
+        return roomIndex[roomId];
+    }
+
+    /**
+     * Finds a room by its name.
+     * 
+     * @param roomName the name of the room
+     * @return the room, or null if no room in the snapshot has the name
+     */
+    public Room getRoom(String roomName) {
+        return roomNameIndex.get(roomName);
+    }
+
+    /**
+     * Gets the reservations of the hotel in booking order.
+     * 
+     * @return the read-only list of reservations
+     */
+    public List<Reservation> getReservationList() {
+        return reservations.asList();
+    }
+
+    /**
+     * Finds a reservation by its ID.
+     * 
+     * @param reservationId the ID of the reservation
+     * @return the reservation, or null if no reservation in the snapshot has the ID
+     */
+    public Reservation getReservation(long reservationId) {
+        return reservations.find(reservationId);
+    }
+
+    /**
+     * Checks if a reservation is part of the snapshot.
+     * 
+     * @param reservation the reservation to check
+     * @return true if the reservation is in the snapshot, false otherwise
+     */
+    public boolean containsReservation(Reservation reservation) {
+        return reservations.find(reservation.getReservationId()) == reservation;
+    }
+
+    /**
+     * Returns the next snapshot with a new hotel name.
+     * 
+     * @param newHotelName the new name of the hotel
+     * @return the new snapshot
+     */
+    public HotelSnapshot withHotelName(String newHotelName) {
+        return new HotelSnapshot(newHotelName, version + 1, this, reservations);
+    }
+
+    /**
+     * Returns the next snapshot with a copy of the given rooms.
+     * 
+     * @param newRoomList the rooms of the hotel
+     * @return the new snapshot
+     */
+    public HotelSnapshot withRoomList(List<Room> newRoomList) {
+        return new HotelSnapshot(hotelName, version + 1, Collections.unmodifiableList(new ArrayList<Room>(newRoomList)), reservations);
+    }
+
+    /**
+     * Returns the next snapshot with an added reservation.
+     * 
+     * @param reservation the reservation to add
+     * @return the new snapshot
+     */
+    public HotelSnapshot withReservation(Reservation reservation) {
+        return new HotelSnapshot(hotelName, version + 1, this, reservations.with(reservation.getReservationId(), reservation));
+    }
+
+    /**
+     * Returns the next snapshot with many added reservations. When the snapshot has no reservations
+     * yet and the new ones come in reservation ID order, as when a hotel is restored, the list is
+     * built in one pass.
+     * 
+     * @param reservationList the reservations to add
+     * @return the new snapshot
+     */
+    public HotelSnapshot withReservations(List<Reservation> reservationList) {
+        PersistentList<Reservation> newReservations = reservations;
+        long[] reservationIds;
+        int i;
+
+        if (reservations.size() == 0 && reservationList.size() > 1 && reservationList instanceof RandomAccess) {
+            reservationIds = new long[reservationList.size()];
+            for (i = 0; i < reservationIds.length; i++) {
+                reservationIds[i] = reservationList.get(i).getReservationId();
+                if (i > 0 && reservationIds[i] <= reservationIds[i - 1]) {
+                    break;
+                }
+            }
+            if (i == reservationIds.length) {
+                return new HotelSnapshot(hotelName, version + 1, this, PersistentList.fromSorted(reservationIds, reservationList));
+            }
+        }
+        for (Reservation reservation : reservationList) {
+            newReservations = newReservations.with(reservation.getReservationId(), reservation);
+        }
+        return new HotelSnapshot(hotelName, version + 1, this, newReservations);
+    }
+
+    /**
+     * Returns the next snapshot without a reservation.
+     * 
+     * @param reservation the reservation to remove
+     * @return the new snapshot
+     */
+    public HotelSnapshot withoutReservation(Reservation reservation) {
+        return new HotelSnapshot(hotelName, version + 1, this, reservations.without(reservation.getReservationId()));
+    }
+}
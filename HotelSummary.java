@@ -0,0 +1,74 @@
+/**
+ * The HotelSummary class holds the name and the counts of a hotel, which are known without loading
+ * its rooms and reservations. A summary is a copy; it does not change with the hotel.
+ */
+public class HotelSummary {
+
+    private int hotelId;
+    private String hotelName;
+    private int roomCount;
+    private int reservationCount;
+    private boolean loaded;
+
+    /**
+     * Constructs a new HotelSummary.
+     *
+     * @param hotelId the number the model names the hotel by
+     * @param hotelName the name of the hotel
+     * @param roomCount the number of rooms of the hotel
+     * @param reservationCount the number of reservations of the hotel
+     * @param loaded whether the hotel is loaded in memory
+     */
+    public HotelSummary(int hotelId, String hotelName, int roomCount, int reservationCount, boolean loaded) {
+        this.hotelId = hotelId;
+        this.hotelName = hotelName;
+        this.roomCount = roomCount;
+        this.reservationCount = reservationCount;
+        this.loaded = loaded;
+    }
+
+    /**
+     * Gets the number the model names the hotel by.
+     *
+     * @return the hotel number
+     */
+    public int getHotelId() {
+        return hotelId;
+    }
+
+    /**
+     * Gets the name of the hotel.
+     *
+     * @return the hotel name
+     */
+    public String getHotelName() {
+        return hotelName;
+    }
+
+    /**
+     * Gets the number of rooms of the hotel.
+     *
+     * @return the number of rooms
+     */
+    public int getRoomCount() {
+        return roomCount;
+    }
+
+    /**
+     * Gets the number of reservations of the hotel.
+     *
+     * @return the number of reservations
+     */
+    public int getReservationCount() {
+        return reservationCount;
+    }
+
+    /**
+     * Tells whether the hotel was loaded in memory when the summary was made.
+     *
+     * @return true if the hotel was loaded
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+}
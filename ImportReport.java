@@ -0,0 +1,59 @@
+import java.util.ArrayList;
+
+/**
+ * The ImportReport class holds the outcome of a bulk import of reservations:
+ * the reservations that were created and the requests that were rejected, with the reason for each one.
+ */
+public class ImportReport {
+
+    private ArrayList<Reservation> acceptedList = new ArrayList<Reservation>();
+    private ArrayList<BookingRequest> rejectedList = new ArrayList<BookingRequest>();
+    private ArrayList<String> rejectReasonList = new ArrayList<String>();
+
+    /**
+     * Gets the reservations created by the import.
+     * 
+     * @return the list of created reservations
+     */
+    public ArrayList<Reservation> getAcceptedList() {
+        return acceptedList;
+    }
+
+    /**
+     * Gets the requests that could not be booked.
+     * 
+     * @return the list of rejected requests
+     */
+    public ArrayList<BookingRequest> getRejectedList() {
+        return rejectedList;
+    }
+
+    /**
+     * Gets the reasons of the rejected requests, in the same order as the rejected list.
+     * 
+     * @return the list of reasons
+     */
+    public ArrayList<String> getRejectReasonList() {
+        return rejectReasonList;
+    }
+
+    /**
+     * Adds a reservation created by the import.
+     * 
+     * @param reservation the created reservation
+     */
+    public void addAccepted(Reservation reservation) {
+        acceptedList.add(reservation);
+    }
+
+    /**
+     * Adds a request that could not be booked.
+     * 
+     * @param request the rejected request
+     * @param reason the reason of the rejection
+     */
+    public void addRejected(BookingRequest request, String reason) {
+        rejectedList.add(request);
+        rejectReasonList.add(reason);
+    }
+}
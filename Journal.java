@@ -0,0 +1,395 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+/**
+ * The Journal class is an append-only log of records, one line per record with its fields separated by tabs.
+ * Writers add records to a buffer in memory and wait until a background thread has written them and forced
+ * them to disk. The thread writes everything buffered since its last write with one force, so writers that
+ * arrive while a force is running share the next one (group commit).
+ * Every record has a sequence number that keeps growing across restarts. The log is split into segment files
+ * named after the sequence number of their first record, so the segments older than a snapshot can be deleted.
+ * A last line cut short by a crash is dropped when the journal is opened again.
+ */
+public class Journal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * The RecordReader interface is given the records already in a journal when it is opened.
+     */
+    public interface RecordReader {
+        /**
+         * Called with each record, in order.
+         *
+         * @param sequence the sequence number of the record
+         * @param fields the fields of the record
+         */
+        void read(long sequence, String[] fields);
+    }
+
+    private File directory;
+    private FileChannel channel;
+    private long rollSequence = -1;
+    private Thread flusher;
+    private ByteArrayOutputStream pendingBuffer = new ByteArrayOutputStream();
+    private long appendedCount = 0;
+    private long flushedCount = 0;
+    private long forceCount = 0;
+    private IOException failure;
+    private boolean closed = false;
+    private ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Opens the journal in a directory, passes the complete records after a sequence number to a reader,
+     * and then starts accepting new records.
+     *
+     * @param directory the directory of the segment files, which is created if it does not exist
+     * @param afterSequence the sequence number of the last record the caller already has, such as the one of a snapshot
+     * @param reader the reader of the records after that sequence number
+     * @throws IOException if the files cannot be read or opened
+     */
+    public Journal(File directory, long afterSequence, RecordReader reader) throws IOException {
+        TreeMap<Long, File> segmentMap;
+        File lastSegment = null;
+        long[] lastSequence = {afterSequence};
+        long validLength = 0;
+
+        this.directory = directory;
+        directory.mkdirs();
+        segmentMap = listSegments();
+        for (Long firstSequence : segmentMap.keySet()) {
+            Long nextFirstSequence = segmentMap.higherKey(firstSequence);
+
+            lastSegment = segmentMap.get(firstSequence);
+            if (nextFirstSequence != null && nextFirstSequence - 1 <= afterSequence) {
+                continue;
+            }
+            lastSequence[0] = Math.max(lastSequence[0], firstSequence - 1);
+            validLength = read(lastSegment, firstSequence, (sequence, fields) -> {
+                lastSequence[0] = sequence;
+                if (sequence > afterSequence) {
+                    reader.read(sequence, fields);
+                }
+            });
+        }
+        appendedCount = lastSequence[0];
+        flushedCount = appendedCount;
+        if (lastSegment == null) {
+            lastSegment = segmentFile(appendedCount + 1);
+        }
+        channel = FileChannel.open(lastSegment.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+
+        flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Adds a record to the journal without waiting for it to reach the disk.
+     *
+     * @param fields the fields of the record
+     * @return the number of the record, to be passed to awaitDurable
+     */
+    public long append(String... fields) {
+        byte[] line = encode(fields).getBytes(StandardCharsets.UTF_8);
+        long recordNumber;
+
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The journal is closed");
+            }
+            pendingBuffer.write(line, 0, line.length);
+            recordNumber = ++appendedCount;
+            notifyAll();
+        }
+        lastAppended.get()[0] = recordNumber;
+        return recordNumber;
+    }
+
+    /**
+     * Waits until a record and every record before it are on disk.
+     *
+     * @param recordNumber the number returned by append
+     * @throws IllegalStateException if the journal could not be written
+     */
+    public synchronized void awaitDurable(long recordNumber) {
+        boolean interrupted = false;
+
+        while (flushedCount < recordNumber && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (flushedCount < recordNumber) {
+            throw new IllegalStateException("The journal cannot be written", failure);
+        }
+    }
+
+    /**
+     * Waits until the last record added by the calling thread is on disk.
+     */
+    public void sync() {
+        awaitDurable(lastAppended.get()[0]);
+    }
+
+    /**
+     * Gets the sequence number of the last record added to the journal.
+     *
+     * @return the last sequence number, or 0 if the journal was always empty
+     */
+    public synchronized long getLastSequence() {
+        return appendedCount;
+    }
+
+    /**
+     * Makes the records added from now on go to a new segment file, so the current segments can be
+     * deleted once a snapshot covers them.
+     */
+    public synchronized void roll() {
+        rollSequence = appendedCount + 1;
+        notifyAll();
+    }
+
+    /**
+     * Deletes the segment files whose records all have a sequence number up to the given one.
+     * The segment that is being written is never deleted.
+     *
+     * @param sequence the last sequence number that is no longer needed
+     * @return the number of deleted segments
+     */
+    public int deleteSegmentsUpTo(long sequence) {
+        TreeMap<Long, File> segmentMap = listSegments();
+        Long nextFirstSequence;
+        int deletedCount = 0;
+
+        for (Long firstSequence : segmentMap.keySet()) {
+            nextFirstSequence = segmentMap.higherKey(firstSequence);
+            if (nextFirstSequence != null && nextFirstSequence - 1 <= sequence && segmentMap.get(firstSequence).delete()) {
+                deletedCount++;
+            }
+        }
+        return deletedCount;
+    }
+
+    /**
+     * Gets the number of times the journal was forced to disk, which is less than the number of
+     * records when writers were grouped.
+     *
+     * @return the number of forces
+     */
+    public synchronized long getForceCount() {
+        return forceCount;
+    }
+
+    /**
+     * Writes the buffered records, stops the background thread, and closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Writes everything buffered since the last write and forces it to disk, until the journal is closed.
+     */
+    private void flushLoop() {
+        ByteArrayOutputStream writeBuffer = new ByteArrayOutputStream();
+        ByteArrayOutputStream swapBuffer;
+        ByteBuffer bytes;
+        long batchEnd, nextSegment;
+
+        while (true) {
+            synchronized (this) {
+                while (pendingBuffer.size() == 0 && rollSequence < 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pendingBuffer.size() == 0 && rollSequence < 0) {
+                    return;
+                }
+                swapBuffer = pendingBuffer;
+                pendingBuffer = writeBuffer;
+                writeBuffer = swapBuffer;
+                batchEnd = appendedCount;
+                nextSegment = rollSequence < 0 ? -1 : batchEnd + 1;
+                rollSequence = -1;
+            }
+            try {
+                bytes = ByteBuffer.wrap(writeBuffer.toByteArray());
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+                if (nextSegment >= 0 && channel.size() > 0) {
+                    channel.close();
+                    channel = FileChannel.open(segmentFile(nextSegment).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+            writeBuffer.reset();
+            synchronized (this) {
+                flushedCount = batchEnd;
+                forceCount++;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Gets the file of the segment whose first record has a sequence number.
+     */
+    private File segmentFile(long firstSequence) {
+        return new File(directory, SEGMENT_PREFIX + firstSequence + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Lists the segment files of the directory by the sequence number of their first record.
+     */
+    private TreeMap<Long, File> listSegments() {
+        TreeMap<Long, File> segmentMap = new TreeMap<Long, File>();
+        File[] files = directory.listFiles();
+        String name;
+
+        if (files == null) {
+            return segmentMap;
+        }
+        for (File file : files) {
+            name = file.getName();
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    segmentMap.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+            }
+        }
+        return segmentMap;
+    }
+
+    /**
+     * Reads the complete records of a segment and returns the length of the file up to the end of the last one.
+     */
+    private static long read(File file, long firstSequence, RecordReader reader) throws IOException {
+        StringBuilder line = new StringBuilder();
+        long validLength = 0, length = 0;
+        long sequence = firstSequence;
+        int character;
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            while ((character = in.read()) != -1) {
+                length += utf8Length(character);
+                if (character == '\n') {
+                    reader.read(sequence++, decode(line.toString()));
+                    line.setLength(0);
+                    validLength = length;
+                } else {
+                    line.append((char) character);
+                }
+            }
+        }
+        return validLength;
+    }
+
+    /**
+     * Gets the number of bytes a UTF-16 unit takes in UTF-8. A surrogate pair counts two bytes per unit.
+     */
+    private static int utf8Length(int character) {
+        if (character < 0x80) {
+            return 1;
+        }
+        if (character < 0x800 || Character.isSurrogate((char) character)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    /**
+     * Joins fields into one line, escaping the backslashes, tabs, and line breaks inside them.
+     */
+    private static String encode(String[] fields) {
+        StringBuilder line = new StringBuilder();
+        int i;
+
+        for (i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            for (char character : fields[i].toCharArray()) {
+                if (character == '\\') {
+                    line.append("\\\\");
+                } else if (character == '\t') {
+                    line.append("\\t");
+                } else if (character == '\n') {
+                    line.append("\\n");
+                } else if (character == '\r') {
+                    line.append("\\r");
+                } else {
+                    line.append(character);
+                }
+            }
+        }
+        return line.append('\n').toString();
+    }
+
+    /**
+     * Splits a line into its fields and undoes the escapes.
+     */
+    private static String[] decode(String line) {
+        ArrayList<String> fieldList = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        char character;
+        int i;
+
+        for (i = 0; i < line.length(); i++) {
+            character = line.charAt(i);
+            if (character == '\t') {
+                fieldList.add(field.toString());
+                field.setLength(0);
+            } else if (character == '\\' && i + 1 < line.length()) {
+                i++;
+                character = line.charAt(i);
+                field.append(character == 't' ? '\t' : character == 'n' ? '\n' : character == 'r' ? '\r' : character);
+            } else {
+                field.append(character);
+            }
+        }
+        fieldList.add(field.toString());
+        return fieldList.toArray(new String[0]);
+    }
+}
@@ -1,5 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -12,6 +14,13 @@ public class Main {
     private static HotelReservationController HRS = new HotelReservationController(model, view);
     
     public static void main(String[] args) {
+        try {
+            model.openJournal(new File(HotelJournal.DEFAULT_DIRECTORY));
+        } catch (IOException | IllegalStateException e) {
+            JOptionPane.showMessageDialog(null, "The saved hotels cannot be loaded: " + e.getMessage() + "\nChanges will not be saved.",
+                    "Journal Error", JOptionPane.ERROR_MESSAGE);
+        }
+
         JFrame frame = new JFrame("Hotel Reservation System");
         JPanel panel = new JPanel(new GridLayout(6, 1, 10, 10)); // Changed to 6 rows and 1 column
 
@@ -96,7 +105,7 @@ public class Main {
                     "Invalid Input/s."
                 };
             
-                if (!HRS.compareHotelName(hotelName, HRS.getHotelList())) {
+                if (!HRS.compareHotelName(hotelName, HRS.getHotelSummaries())) {
                     validInputs = false;
                     warning = Arrays.copyOf(warning, warning.length + 1);
                     warning[warning.length - 1] = "Hotel name '" + hotelName + "' is not unique.";
@@ -116,8 +125,7 @@ public class Main {
         } while (!validInputs && option == JOptionPane.OK_OPTION);
         
         if (option == JOptionPane.OK_OPTION) {
-            HRS.createHotel(hotelName);
-            HRS.getHotelList().get(HRS.getHotelList().size() - 1).createRooms(numStandardRooms, numDeluxeRooms, numExecutiveRooms, namingScheme);
+            HRS.createHotel(hotelName).createRooms(numStandardRooms, numDeluxeRooms, numExecutiveRooms, namingScheme);
             
             JDialog dialog = new JDialog();
             dialog.setTitle(hotelName + " - Hotel Information");
@@ -181,20 +189,25 @@ public class Main {
 
         JButton backButton = new JButton("Back");
         backButton.addActionListener(e -> dialog.dispose());
+        JButton searchButton = new JButton("Search All Hotels");
+        searchButton.addActionListener(e -> HRS.searchAllHotels());
         
         JPanel panel = new JPanel();
         JPanel backPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        panel.setLayout(new GridLayout(HRS.getHotelList().size(), 1));
+        ArrayList<HotelSummary> hotelList = HRS.getHotelSummaries();
+        panel.setLayout(new GridLayout(hotelList.size(), 1));
+        backPanel.add(searchButton);
         backPanel.add(backButton);
 
-        if(HRS.getHotelList().isEmpty()){
+        if(hotelList.isEmpty()){
             String[] noHotel = {"There are no hotels in the system."};
             JOptionPane.showMessageDialog(null, noHotel);
         } else {
-            for (Hotel hotel : HRS.getHotelList()) {
-                JButton hotelButton = new JButton(hotel.getHotelName());
+            for (HotelSummary summary : hotelList) {
+                JButton hotelButton = new JButton(summary.getHotelName() + " (" + summary.getRoomCount() + " rooms, "
+                        + summary.getReservationCount() + " reservations)");
                 hotelButton.addActionListener(e -> {
-                    showViewHotelMenu(hotel);
+                    showViewHotelMenu(HRS.getHotel(summary));
                     dialog.dispose();
                 });
                 panel.add(hotelButton);
@@ -257,11 +270,13 @@ public class Main {
         backButton.addActionListener(e -> dialog.dispose());
         backPanel.add(backButton);
 
-        if(hotel.getRoomList().isEmpty()){
+        HotelSnapshot snapshot = hotel.getSnapshot();
+
+        if(snapshot.getRoomList().isEmpty()){
             String[] noRooms = {"There are no rooms in the hotel."};
             JOptionPane.showMessageDialog(null, noRooms);
         } else {        
-            for (Room room : hotel.getRoomList()) {
+            for (Room room : snapshot.getRoomList()) {
                 JButton roomButton = new JButton(room.getRoomName());
                 roomButton.addActionListener(e -> {
                     HRS.updateViewRoomInfo(room);
@@ -288,16 +303,17 @@ public class Main {
 
         JPanel panel = new JPanel();
         JPanel backPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        panel.setLayout(new GridLayout(5, hotel.getReservationList().size()));
+        HotelSnapshot snapshot = hotel.getSnapshot();
+        panel.setLayout(new GridLayout(5, snapshot.getReservationList().size()));
         backPanel.add(backButton);
 
-        if (hotel.getReservationList().size() == 0){
+        if (snapshot.getReservationList().size() == 0){
             String[] noReservation = {
-                hotel.getHotelName() + " has no reservations yet."
+                snapshot.getHotelName() + " has no reservations yet."
             };
             JOptionPane.showMessageDialog(null, noReservation);
         } else {
-            for (Reservation reservation : hotel.getReservationList()) {
+            for (Reservation reservation : snapshot.getReservationList()) {
                 JButton reservationButton = new JButton(reservation.getRoom().getRoomName() + " reserved by " + reservation.getGuestName());
                 reservationButton.addActionListener(e -> {
                     HRS.updateViewReservationInfo(reservation);
@@ -328,17 +344,18 @@ public class Main {
         
         JPanel panel = new JPanel();
         JPanel backPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        panel.setLayout(new GridLayout(HRS.getHotelList().size(), 1));
+        ArrayList<HotelSummary> hotelList = HRS.getHotelSummaries();
+        panel.setLayout(new GridLayout(hotelList.size(), 1));
         backPanel.add(backButton);
 
-        if(HRS.getHotelList().isEmpty()){
+        if(hotelList.isEmpty()){
             String[] noHotel = {"There are no hotels in the system."};
             JOptionPane.showMessageDialog(null, noHotel);
         } else {
-            for (Hotel hotel : HRS.getHotelList()) {
-                JButton hotelButton = new JButton(hotel.getHotelName());
+            for (HotelSummary summary : hotelList) {
+                JButton hotelButton = new JButton(summary.getHotelName());
                 hotelButton.addActionListener(e -> {
-                    HRS.showManageHotelMenu(hotel);
+                    HRS.showManageHotelMenu(HRS.getHotel(summary));
                     dialog.dispose();
                 });
                 panel.add(hotelButton);
@@ -367,17 +384,18 @@ public class Main {
         
         JPanel panel = new JPanel();
         JPanel backPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        panel.setLayout(new GridLayout(HRS.getHotelList().size(), 1));
+        ArrayList<HotelSummary> hotelList = HRS.getHotelSummaries();
+        panel.setLayout(new GridLayout(hotelList.size(), 1));
         backPanel.add(backButton);
 
-        if(HRS.getHotelList().isEmpty()){
+        if(hotelList.isEmpty()){
             String[] noHotel = {"There are no hotels in the system."};
             JOptionPane.showMessageDialog(null, noHotel);
         } else {
-            for (Hotel hotel : HRS.getHotelList()) {
-                hotelButton = new JButton(hotel.getHotelName());
+            for (HotelSummary summary : hotelList) {
+                hotelButton = new JButton(summary.getHotelName());
                 hotelButton.addActionListener(e -> {
-                    HRS.askReservationDetails(hotel);
+                    HRS.askReservationDetails(HRS.getHotel(summary));
                     dialog.dispose();
                 });
                 panel.add(hotelButton);
@@ -402,7 +420,7 @@ public class Main {
         
         JPanel panel = new JPanel();
         JPanel backPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        panel.setLayout(new GridLayout(3, 1));
+        panel.setLayout(new GridLayout(6, 1));
         backPanel.add(backButton);
 
         JButton button2 = new JButton("Customizable Packages");
@@ -423,6 +441,24 @@ public class Main {
             showSendRequestDialog(selectGuest(selectHotel()));
         });
         panel.add(button1);
+        JButton button4 = new JButton("Find Guest");
+        button4.addActionListener(e -> {
+            dialog.dispose();
+            HRS.showFindGuestOption();
+        });
+        panel.add(button4);
+        JButton button5 = new JButton("Revenue Report");
+        button5.addActionListener(e -> {
+            dialog.dispose();
+            HRS.showRevenueReportOption();
+        });
+        panel.add(button5);
+        JButton button6 = new JButton("Room Assignment");
+        button6.addActionListener(e -> {
+            dialog.dispose();
+            HRS.showAssignmentStrategyOption();
+        });
+        panel.add(button6);
 
         dialog.add(panel, BorderLayout.CENTER);
         dialog.add(backPanel, BorderLayout.SOUTH);
@@ -445,17 +481,18 @@ public class Main {
         
         JPanel panel = new JPanel();
         JPanel backPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        panel.setLayout(new GridLayout(HRS.getHotelList().size(), 1));
+        ArrayList<HotelSummary> hotelList = HRS.getHotelSummaries();
+        panel.setLayout(new GridLayout(hotelList.size(), 1));
         backPanel.add(backButton);
 
-        if(HRS.getHotelList().isEmpty()){
+        if(hotelList.isEmpty()){
             String[] noHotel = {"There are no hotels in the system."};
             JOptionPane.showMessageDialog(null, noHotel);
         } else {
-            for (Hotel hotel : HRS.getHotelList()) {
-                hotelButton = new JButton(hotel.getHotelName());
+            for (HotelSummary summary : hotelList) {
+                hotelButton = new JButton(summary.getHotelName());
                 hotelButton.addActionListener(e -> {
-                    selectedHotel.add(hotel);
+                    selectedHotel.add(HRS.getHotel(summary));
                     dialog.dispose();
                 });
                 panel.add(hotelButton);
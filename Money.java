@@ -0,0 +1,93 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The Money class holds the rules for amounts of money. Every price in the booking engine is a long
+ * number of cents, and every price rate is a long number of basis points, so totals, sums, and products
+ * are exact integer math. Amounts and rates are only turned into doubles for display.
+ * The one rounding rule is: when a price is multiplied by a rate, the exact product is rounded once to the
+ * nearest cent, and a result exactly halfway between two cents is rounded away from zero.
+ */
+public final class Money {
+
+    /**
+     * The number of basis points in a rate of 1.0.
+     */
+    public static final long BASIS_POINTS = 10000;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount in currency units to cents, rounding to the nearest cent.
+     * The amount is rounded as the decimal it is written as, so 1.005 becomes 101 cents.
+     *
+     * @param amount the amount with a fractional part
+     * @return the amount in cents
+     */
+    public static long toCents(double amount) {
+        return BigDecimal.valueOf(amount).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * Converts an amount in cents to currency units for display.
+     *
+     * @param cents the amount in cents
+     * @return the amount with a fractional part
+     */
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Converts a rate to basis points, rounding to the nearest basis point.
+     * The rate is rounded as the decimal it is written as, so 1.3 becomes exactly 13000.
+     *
+     * @param rate the rate, such as 1.2 for 120% or 0.07 for 7%
+     * @return the rate in basis points
+     */
+    public static long toBasisPoints(double rate) {
+        return BigDecimal.valueOf(rate).movePointRight(4).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * Converts a rate in basis points to a rate for display.
+     *
+     * @param basisPoints the rate in basis points
+     * @return the rate, such as 1.2 for 120%
+     */
+    public static double toRate(long basisPoints) {
+        return (double) basisPoints / BASIS_POINTS;
+    }
+
+    /**
+     * Multiplies an amount by a rate and rounds the result to the nearest cent.
+     *
+     * @param cents the amount in cents
+     * @param rate the rate, such as 1.2 for 120% or 0.07 for 7%
+     * @return the product in cents
+     */
+    public static long multiply(long cents, double rate) {
+        return multiplyBasisPoints(cents, toBasisPoints(rate));
+    }
+
+    /**
+     * Multiplies an amount, such as cents or another rate in basis points, by a rate in basis points.
+     * The product is exact, and it is divided by BASIS_POINTS with one rounding, half away from zero.
+     *
+     * @param amount the amount
+     * @param basisPoints the rate in basis points, such as 12000 for 120%
+     * @return the rounded product, in the unit of the amount
+     * @throws ArithmeticException if the product does not fit in a long
+     */
+    public static long multiplyBasisPoints(long amount, long basisPoints) {
+        long product = Math.multiplyExact(amount, basisPoints);
+        long quotient = product / BASIS_POINTS;
+        long remainder = product % BASIS_POINTS;
+
+        if (Math.abs(remainder) * 2 >= BASIS_POINTS) {
+            quotient += Long.signum(product);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * The OccupancyCounter class counts the booked rooms of every night of a hotel.
+ * It is a segment tree where adding a stay updates O(log n) nodes, and reading the count of a night
+ * or the peak count over a range of nights also visits O(log n) nodes. The tree doubles its size
+ * when a stay goes past the last night it can hold.
+ */
+public class OccupancyCounter {
+
+    private int size = 64;
+    private int[] maxCount = new int[2 * size];
+    private int[] addedCount = new int[2 * size];
+
+    /**
+     * Adds a number of booked rooms to every night of a stay.
+     *
+     * @param checkInDate the first night of the stay
+     * @param checkOutDate the check-out date, which is not counted
+     * @param delta the number of rooms to add, or a negative number to remove
+     */
+    public synchronized void add(int checkInDate, int checkOutDate, int delta) {
+        while (checkOutDate > size) {
+            grow();
+        }
+        update(1, 0, size, checkInDate, checkOutDate, delta);
+    }
+
+    /**
+     * Gets the number of booked rooms of a night.
+     *
+     * @param date the night to read
+     * @return the number of booked rooms
+     */
+    public synchronized int get(int date) {
+        if (date < 0 || date >= size) {
+            return 0;
+        }
+        return query(1, 0, size, date, date + 1);
+    }
+
+    /**
+     * Gets the highest number of booked rooms over a range of nights.
+     *
+     * @param fromDate the first night of the range
+     * @param toDate the night after the range
+     * @return the peak number of booked rooms
+     */
+    public synchronized int getMax(int fromDate, int toDate) {
+        fromDate = Math.max(0, fromDate);
+        if (fromDate >= size || toDate <= fromDate) {
+            return 0;
+        }
+        return query(1, 0, size, fromDate, Math.min(size, toDate));
+    }
+
+    private void update(int node, int nodeFrom, int nodeTo, int fromDate, int toDate, int delta) {
+        int middle;
+
+        if (toDate <= nodeFrom || nodeTo <= fromDate) {
+            return;
+        }
+        if (fromDate <= nodeFrom && nodeTo <= toDate) {
+            maxCount[node] += delta;
+            addedCount[node] += delta;
+            return;
+        }
+        middle = (nodeFrom + nodeTo) / 2;
+        update(2 * node, nodeFrom, middle, fromDate, toDate, delta);
+        update(2 * node + 1, middle, nodeTo, fromDate, toDate, delta);
+        maxCount[node] = Math.max(maxCount[2 * node], maxCount[2 * node + 1]) + addedCount[node];
+    }
+
+    private int query(int node, int nodeFrom, int nodeTo, int fromDate, int toDate) {
+        int middle;
+
+        if (toDate <= nodeFrom || nodeTo <= fromDate) {
+            return Integer.MIN_VALUE;
+        }
+        if (fromDate <= nodeFrom && nodeTo <= toDate) {
+            return maxCount[node];
+        }
+        middle = (nodeFrom + nodeTo) / 2;
+        return Math.max(query(2 * node, nodeFrom, middle, fromDate, toDate), query(2 * node + 1, middle, nodeTo, fromDate, toDate)) + addedCount[node];
+    }
+
+    /**
+     * Doubles the number of nights the tree can hold. The counts of the old nights are kept
+     * by moving each old node one level down, under the new root's left child.
+     */
+    private void grow() {
+        int[] newMaxCount = new int[4 * size];
+        int[] newAddedCount = new int[4 * size];
+        int level, node, width;
+
+        for (level = 0, width = 1; width <= size; level++, width *= 2) {
+            for (node = width; node < 2 * width; node++) {
+                newMaxCount[node + width] = maxCount[node];
+                newAddedCount[node + width] = addedCount[node];
+            }
+        }
+        newMaxCount[1] = Math.max(newMaxCount[2], 0);
+        size *= 2;
+        maxCount = newMaxCount;
+        addedCount = newAddedCount;
+    }
+}
@@ -0,0 +1,297 @@
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The PersistentList class is an immutable list of values ordered by a long key.
+ * Adding or removing a value returns a new list that shares all untouched nodes with the old one,
+ * so each change costs O(log n) and every old version stays valid for the readers still using it.
+ * It is an AVL tree whose nodes also count their subtree sizes, which lets get(index) run in O(log n).
+ */
+public class PersistentList<T> implements Iterable<T> {
+
+    private static final PersistentList<Object> EMPTY = new PersistentList<Object>(null);
+
+    private Node<T> root;
+    private List<T> listView;
+
+    private PersistentList(Node<T> root) {
+        this.root = root;
+        this.listView = new ListView();
+    }
+
+    /**
+     * Gets the empty list.
+     *
+     * @return the empty list
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentList<T> empty() {
+        return (PersistentList<T>) EMPTY;
+    }
+
+    /**
+     * Builds a list from values whose keys are already in increasing order. The tree is built
+     * balanced in one pass, which costs O(n) instead of the O(n log n) of adding the values one by one.
+     *
+     * @param keys the keys in increasing order
+     * @param values the values, in the order of their keys
+     * @return the new list
+     * @throws IllegalArgumentException if the keys are not in increasing order
+     */
+    public static <T> PersistentList<T> fromSorted(long[] keys, List<T> values) {
+        int i;
+
+        for (i = 1; i < keys.length; i++) {
+            if (keys[i] <= keys[i - 1]) {
+                throw new IllegalArgumentException("The key " + keys[i] + " does not follow " + keys[i - 1]);
+            }
+        }
+        return new PersistentList<T>(build(keys, values, 0, keys.length));
+    }
+
+    /**
+     * Gets the number of values in the list.
+     *
+     * @return the size of the list
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Gets the value at a position of the list.
+     *
+     * @param index the position of the value
+     * @return the value at the position
+     */
+    public T get(int index) {
+        Node<T> node = root;
+        int leftSize;
+
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        while (true) {
+            leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Finds the value stored under a key.
+     *
+     * @param key the key of the value
+     * @return the value, or null if the key is not in the list
+     */
+    public T find(long key) {
+        Node<T> node = root;
+
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a list with a value stored under a key, replacing any value already under the key.
+     *
+     * @param key the key of the value
+     * @param value the value to store
+     * @return the new list
+     */
+    public PersistentList<T> with(long key, T value) {
+        return new PersistentList<T>(insert(root, key, value));
+    }
+
+    /**
+     * Returns a list without the value stored under a key.
+     *
+     * @param key the key of the value to remove
+     * @return the new list, or this list if the key is not in it
+     */
+    public PersistentList<T> without(long key) {
+        if (find(key) == null) {
+            return this;
+        }
+        return new PersistentList<T>(delete(root, key));
+    }
+
+    /**
+     * Gets a read-only java.util.List view of the values in key order.
+     *
+     * @return the list view
+     */
+    public List<T> asList() {
+        return listView;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new NodeIterator<T>(root);
+    }
+
+    private static <T> Node<T> build(long[] keys, List<T> values, int start, int end) {
+        int middle;
+
+        if (start >= end) {
+            return null;
+        }
+        middle = (start + end) >>> 1;
+        return new Node<T>(keys[middle], values.get(middle), build(keys, values, start, middle), build(keys, values, middle + 1, end));
+    }
+
+    private static <T> int size(Node<T> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <T> int height(Node<T> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <T> Node<T> insert(Node<T> node, long key, T value) {
+        if (node == null) {
+            return new Node<T>(key, value, null, null);
+        }
+        if (key < node.key) {
+            return balance(node.key, node.value, insert(node.left, key, value), node.right);
+        }
+        if (key > node.key) {
+            return balance(node.key, node.value, node.left, insert(node.right, key, value));
+        }
+        return new Node<T>(key, value, node.left, node.right);
+    }
+
+    private static <T> Node<T> delete(Node<T> node, long key) {
+        Node<T> first;
+
+        if (key < node.key) {
+            return balance(node.key, node.value, delete(node.left, key), node.right);
+        }
+        if (key > node.key) {
+            return balance(node.key, node.value, node.left, delete(node.right, key));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        first = node.right;
+        while (first.left != null) {
+            first = first.left;
+        }
+        return balance(first.key, first.value, node.left, delete(node.right, first.key));
+    }
+
+    private static <T> Node<T> balance(long key, T value, Node<T> left, Node<T> right) {
+        if (height(left) > height(right) + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<T>(left.key, left.value, left.left, new Node<T>(key, value, left.right, right));
+            }
+            return new Node<T>(left.right.key, left.right.value,
+                new Node<T>(left.key, left.value, left.left, left.right.left),
+                new Node<T>(key, value, left.right.right, right));
+        }
+        if (height(right) > height(left) + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<T>(right.key, right.value, new Node<T>(key, value, left, right.left), right.right);
+            }
+            return new Node<T>(right.left.key, right.left.value,
+                new Node<T>(key, value, left, right.left.left),
+                new Node<T>(right.key, right.value, right.left.right, right.right));
+        }
+        return new Node<T>(key, value, left, right);
+    }
+
+    /**
+     * A node of the tree, which never changes after it is built.
+     */
+    private static class Node<T> {
+        private long key;
+        private T value;
+        private Node<T> left;
+        private Node<T> right;
+        private int height;
+        private int size;
+
+        private Node(long key, T value, Node<T> left, Node<T> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    /**
+     * Walks the values of a tree in key order.
+     */
+    private static class NodeIterator<T> implements Iterator<T> {
+        private ArrayDeque<Node<T>> stack = new ArrayDeque<Node<T>>();
+
+        private NodeIterator(Node<T> root) {
+            pushLeft(root);
+        }
+
+        private void pushLeft(Node<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            Node<T> node;
+
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            node = stack.pop();
+            pushLeft(node.right);
+            return node.value;
+        }
+    }
+
+    /**
+     * A read-only java.util.List over the values of this version.
+     */
+    private class ListView extends AbstractList<T> {
+        @Override
+        public T get(int index) {
+            return PersistentList.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return PersistentList.this.size();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return PersistentList.this.iterator();
+        }
+    }
+}
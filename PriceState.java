@@ -0,0 +1,118 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The PriceState class is an immutable set of the prices of a hotel at one price version: the rate calendar
+ * of every room type and the price per night of every room. The hotel publishes a new state through one
+ * volatile field after every price change, so a quote that reads the state once gets a price version together
+ * with the prices of exactly that version, however the prices change while it is computed.
+ */
+public class PriceState {
+
+    private long version;
+    private RateCalendar[] rateCalendars;
+    private long[] roomPriceCents;
+
+    /**
+     * Constructs a new PriceState. The arrays are kept and must not be changed afterwards.
+     *
+     * @param version the price version
+     * @param rateCalendars the rate calendar of each room type, indexed by the ordinal of the type
+     * @param roomPriceCents the price per night of each room in cents, indexed by room ID
+     */
+    public PriceState(long version, RateCalendar[] rateCalendars, long[] roomPriceCents) {
+        this.version = version;
+        this.rateCalendars = rateCalendars;
+        this.roomPriceCents = roomPriceCents;
+    }
+
+    /**
+     * Gets the price version of the prices.
+     *
+     * @return the price version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the rate calendar of a room type.
+     *
+     * @param roomType the type of the rooms
+     * @return the rate calendar of the type
+     */
+    public RateCalendar getRateCalendar(RoomType roomType) {
+        return rateCalendars[roomType.ordinal()];
+    }
+
+    /**
+     * Gets the price per night of a room. A room that is not in the hotel has its own current price.
+     *
+     * @param room the room
+     * @return the room price in cents
+     */
+    public long getRoomPriceCents(Room room) {
+        int roomId = room.getRoomId();
+
+        if (roomId < 0 || roomId >= roomPriceCents.length) {
+            return room.getPriceCents();
+        }
+        return roomPriceCents[roomId];
+    }
+
+    /**
+     * Calculates the price of a stay in a room with the rates of its type. The rates of the stay are summed
+     * with one subtraction of running sums, and the product is rounded once by Money.multiplyBasisPoints.
+     *
+     * @param room the room of the stay
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @return the price of the stay in cents
+     */
+    public long computeStayPriceCents(Room room, int checkInDate, int checkOutDate) {
+        return Money.multiplyBasisPoints(getRoomPriceCents(room), getRateCalendar(room.getRoomType()).getRateSumBasisPoints(checkInDate, checkOutDate));
+    }
+
+    /**
+     * Calculates the price of one night in a room with the rate of its type.
+     *
+     * @param room the room
+     * @param date the night
+     * @return the price of the night in cents
+     */
+    public long computeNightPriceCents(Room room, int date) {
+        return Money.multiplyBasisPoints(getRoomPriceCents(room), getRateCalendar(room.getRoomType()).getRateBasisPoints(date));
+    }
+
+    /**
+     * Returns a state with new rate calendars under a price version.
+     *
+     * @param newVersion the price version of the new state
+     * @param newRateCalendars the rate calendar of each room type
+     * @return the new state
+     */
+    public PriceState withRateCalendars(long newVersion, RateCalendar[] newRateCalendars) {
+        return new PriceState(newVersion, newRateCalendars, roomPriceCents);
+    }
+
+    /**
+     * Returns a state with the current prices of the rooms under a price version.
+     *
+     * @param newVersion the price version of the new state
+     * @param roomList the rooms of the hotel
+     * @return the new state
+     */
+    public PriceState withRoomPrices(long newVersion, List<Room> roomList) {
+        long[] newRoomPriceCents;
+        int maxRoomId = -1;
+
+        for (Room room : roomList) {
+            maxRoomId = Math.max(maxRoomId, room.getRoomId());
+        }
+        newRoomPriceCents = Arrays.copyOf(roomPriceCents, Math.max(roomPriceCents.length, maxRoomId + 1));
+        for (Room room : roomList) {
+            newRoomPriceCents[room.getRoomId()] = room.getPriceCents();
+        }
+        return new PriceState(newVersion, rateCalendars, newRoomPriceCents);
+    }
+}
@@ -0,0 +1,249 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The QuoteCache class remembers the prices of recent quotes, so a stay that is priced again
+ * does not go through the rate calendar and the discount rule a second time.
+ * Entries are keyed by the instance number of the hotel, room type, room price, dates, discount code, and the price version of the hotel.
+ * Any change to the rates or the room prices of a hotel raises its price version, so old entries can never be
+ * returned again and simply age out. The cache holds a fixed number of entries and drops the least recently used one.
+ * The entries are split over stripes by the hash of their key, each with its own lock and its own share of the
+ * capacity, so quotes on different threads rarely wait for each other; the least recently used entry is dropped
+ * per stripe.
+ */
+public class QuoteCache {
+
+    /**
+     * The number of entries kept when no capacity is given.
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private static final int STRIPES = 32;
+
+    private ArrayList<LinkedHashMap<QuoteKey, long[]>> stripes = new ArrayList<LinkedHashMap<QuoteKey, long[]>>(STRIPES);
+    private AtomicLong hitCount = new AtomicLong();
+    private AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Constructs a new QuoteCache with the default capacity.
+     */
+    public QuoteCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new QuoteCache.
+     *
+     * @param capacity the largest number of entries to keep
+     */
+    public QuoteCache(int capacity) {
+        int stripeCapacity = Math.max(1, (capacity + STRIPES - 1) / STRIPES);
+        int i;
+
+        for (i = 0; i < STRIPES; i++) {
+            stripes.add(new LinkedHashMap<QuoteKey, long[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<QuoteKey, long[]> eldest) {
+                    return size() > stripeCapacity;
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the cached prices of a stay.
+     *
+     * @param key the key of the stay
+     * @return the base price and the total price of the stay in cents, or null if they are not cached
+     */
+    public long[] get(QuoteKey key) {
+        LinkedHashMap<QuoteKey, long[]> entryMap = getStripe(key);
+        long[] prices;
+
+        synchronized (entryMap) {
+            prices = entryMap.get(key);
+        }
+        if (prices == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return prices;
+    }
+
+    /**
+     * Stores the prices of a stay. The key must be the one used for the lookup,
+     * so the prices are filed under the price version they were computed from.
+     *
+     * @param key the key of the stay
+     * @param basePriceCents the price of the stay without the discount, in cents
+     * @param totalPriceCents the price of the stay with the discount, in cents
+     */
+    public void put(QuoteKey key, long basePriceCents, long totalPriceCents) {
+        LinkedHashMap<QuoteKey, long[]> entryMap = getStripe(key);
+
+        synchronized (entryMap) {
+            entryMap.put(key, new long[] {basePriceCents, totalPriceCents});
+        }
+    }
+
+    /**
+     * Removes every entry, for example when the discount codes change. The counters are kept.
+     */
+    public void clear() {
+        for (LinkedHashMap<QuoteKey, long[]> entryMap : stripes) {
+            synchronized (entryMap) {
+                entryMap.clear();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of entries in the cache.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        int size = 0;
+
+        for (LinkedHashMap<QuoteKey, long[]> entryMap : stripes) {
+            synchronized (entryMap) {
+                size += entryMap.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of lookups that found an entry.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of lookups that found no entry.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the share of lookups that found an entry.
+     *
+     * @return the hit ratio from 0.0 to 1.0, or 0.0 if there were no lookups
+     */
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+
+        if (total == 0) {
+            return 0.0;
+        }
+        return (double) hits / total;
+    }
+
+    /**
+     * Sets the hit and miss counters back to zero.
+     */
+    public void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+    }
+
+    /**
+     * Gets the stripe that holds a key. The hash is spread so keys that differ only in their low bits
+     * still fall in different stripes.
+     */
+    private LinkedHashMap<QuoteKey, long[]> getStripe(QuoteKey key) {
+        int hash = key.hashCode();
+
+        return stripes.get(((hash ^ (hash >>> 16)) & 0x7fffffff) % STRIPES);
+    }
+
+    /**
+     * The key of a cached quote. The hotel is named by its instance number, so the key does not keep an
+     * unloaded hotel in memory. The price version and the room price come from the price state the prices
+     * are computed from, so they always describe the cached prices.
+     */
+    public static class QuoteKey {
+        private long hotelInstanceId;
+        private RoomType roomType;
+        private long roomPriceCents;
+        private long priceVersion;
+        private int checkInDate;
+        private int checkOutDate;
+        private String discountCode;
+
+        /**
+         * Constructs the key of a stay. The price version and the room price are read from the given
+         * price state, which must be the state the prices of the stay are computed from.
+         *
+         * @param hotel the hotel of the room
+         * @param priceState the prices of the hotel the stay is priced with
+         * @param room the room of the stay
+         * @param checkInDate the check-in date
+         * @param checkOutDate the check-out date
+         * @param discountCode the applied discount code, or null for none
+         */
+        public QuoteKey(Hotel hotel, PriceState priceState, Room room, int checkInDate, int checkOutDate, String discountCode) {
+            this.hotelInstanceId = hotel.getInstanceId();
+            this.roomType = room.getRoomType();
+            this.roomPriceCents = priceState.getRoomPriceCents(room);
+            this.priceVersion = priceState.getVersion();
+            this.checkInDate = checkInDate;
+            this.checkOutDate = checkOutDate;
+            this.discountCode = discountCode;
+        }
+
+        /**
+         * Gets the price of the room per night that the key was made for.
+         *
+         * @return the room price in cents
+         */
+        public long getRoomPriceCents() {
+            return roomPriceCents;
+        }
+
+        /**
+         * Gets the price version of the hotel when the key was made.
+         *
+         * @return the price version
+         */
+        public long getPriceVersion() {
+            return priceVersion;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            QuoteKey key;
+
+            if (!(other instanceof QuoteKey)) {
+                return false;
+            }
+            key = (QuoteKey) other;
+            return hotelInstanceId == key.hotelInstanceId && roomType == key.roomType && roomPriceCents == key.roomPriceCents
+                    && priceVersion == key.priceVersion && checkInDate == key.checkInDate && checkOutDate == key.checkOutDate
+                    && (discountCode == null ? key.discountCode == null : discountCode.equals(key.discountCode));
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Long.hashCode(hotelInstanceId);
+
+            hash = 31 * hash + roomType.hashCode();
+            hash = 31 * hash + Long.hashCode(roomPriceCents);
+            hash = 31 * hash + Long.hashCode(priceVersion);
+            hash = 31 * hash + checkInDate;
+            hash = 31 * hash + checkOutDate;
+            hash = 31 * hash + (discountCode == null ? 0 : discountCode.hashCode());
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+import java.util.Arrays;
+
+/**
+ * The RateCalendar class is an immutable table of the price rate of every night of a hotel.
+ * Rates are kept as whole basis points, so a rate such as 1.3 is exact and sums of rates never drift.
+ * Next to the rates it keeps their running sums, so the sum of the rates of any stay is one subtraction,
+ * and the price of a stay is that sum times the room price, rounded once, whatever the length of the stay.
+ * Nights outside the table have a rate of 1.0. Changing a rate returns a new calendar.
+ */
+public class RateCalendar {
+
+    private long[] rates;
+    private long[] rateSums;
+
+    /**
+     * Constructs a new RateCalendar where every night has a rate of 1.0.
+     */
+    public RateCalendar() {
+        this(new long[0]);
+    }
+
+    /**
+     * Constructs a RateCalendar from the rates of the nights and builds the running sums.
+     */
+    private RateCalendar(long[] rates) {
+        this(rates, new long[rates.length + 1], 0);
+    }
+
+    /**
+     * Constructs a RateCalendar whose running sums are already correct up to a night and builds the rest.
+     */
+    private RateCalendar(long[] rates, long[] rateSums, int fromNight) {
+        int night;
+
+        this.rates = rates;
+        this.rateSums = rateSums;
+        for (night = fromNight; night < rates.length; night++) {
+            rateSums[night + 1] = rateSums[night] + rates[night];
+        }
+    }
+
+    /**
+     * Gets the price rate of a night.
+     *
+     * @param date the night to check
+     * @return the price rate of the night
+     */
+    public double getRate(int date) {
+        return Money.toRate(getRateBasisPoints(date));
+    }
+
+    /**
+     * Gets the price rate of a night in basis points.
+     *
+     * @param date the night to check
+     * @return the price rate of the night, where 10000 is a rate of 1.0
+     */
+    public long getRateBasisPoints(int date) {
+        if (date >= 0 && date < rates.length) {
+            return rates[date];
+        }
+        return Money.BASIS_POINTS;
+    }
+
+    /**
+     * Gets the sum of the rates of the nights from the check-in date up to the night before the check-out date.
+     *
+     * @param checkInDate the check-in date
+     * @param checkOutDate the check-out date
+     * @return the sum of the rates of the stay in basis points
+     */
+    public long getRateSumBasisPoints(int checkInDate, int checkOutDate) {
+        int from = Math.min(Math.max(checkInDate, 0), rates.length);
+        int to = Math.min(Math.max(checkOutDate, 0), rates.length);
+        long rateSum;
+
+        if (checkOutDate <= checkInDate) {
+            return 0;
+        }
+        rateSum = rateSums[to] - rateSums[from];
+        rateSum += Math.max(0, Math.min(checkOutDate, 0) - checkInDate) * Money.BASIS_POINTS;
+        rateSum += Math.max(0, checkOutDate - Math.max(checkInDate, rates.length)) * Money.BASIS_POINTS;
+        return rateSum;
+    }
+
+    /**
+     * Gets the number of nights in the table. Every later night has a rate of 1.0.
+     *
+     * @return the number of nights
+     */
+    public int size() {
+        return rates.length;
+    }
+
+    /**
+     * Gets the rates for display, where index n holds the rate of night n.
+     *
+     * @return the price rates by night
+     */
+    public double[] toArray() {
+        double[] rateArray = new double[rates.length];
+        int night;
+
+        for (night = 0; night < rates.length; night++) {
+            rateArray[night] = Money.toRate(rates[night]);
+        }
+        return rateArray;
+    }
+
+    /**
+     * Gets a copy of the rates in basis points, where index n holds the rate of night n.
+     *
+     * @return the price rates by night in basis points
+     */
+    public long[] toBasisPointArray() {
+        return rates.clone();
+    }
+
+    /**
+     * Returns a calendar with a new rate for one night.
+     *
+     * @param date the night to modify
+     * @param rate the new price rate of the night
+     * @return the new calendar
+     */
+    public RateCalendar withRate(int date, double rate) {
+        return withRates(new int[] {date}, rate);
+    }
+
+    /**
+     * Returns a calendar with the same new rate for several nights. The running sums are rebuilt once.
+     *
+     * @param dates the nights to modify
+     * @param rate the new price rate of the nights, rounded to a basis point
+     * @return the new calendar
+     */
+    public RateCalendar withRates(int[] dates, double rate) {
+        long rateBasisPoints = Money.toBasisPoints(rate);
+        long[] newRates;
+        int lastDate = rates.length - 1;
+
+        for (int date : dates) {
+            lastDate = Math.max(lastDate, date);
+        }
+        newRates = Arrays.copyOf(rates, lastDate + 1);
+        Arrays.fill(newRates, rates.length, newRates.length, Money.BASIS_POINTS);
+        for (int date : dates) {
+            newRates[date] = rateBasisPoints;
+        }
+        return new RateCalendar(newRates);
+    }
+
+    /**
+     * Returns a calendar with new rates for a run of nights. The running sums before the first night
+     * are kept, and only the sums from that night on are rebuilt.
+     *
+     * @param fromDate the first night to modify
+     * @param newRates the new price rates in basis points, where index n holds the rate of night fromDate + n
+     * @return the new calendar
+     */
+    public RateCalendar withRateRange(int fromDate, long[] newRates) {
+        int length = Math.max(rates.length, fromDate + newRates.length);
+        long[] patchedRates = Arrays.copyOf(rates, length);
+        long[] patchedSums = Arrays.copyOf(rateSums, length + 1);
+
+        Arrays.fill(patchedRates, rates.length, length, Money.BASIS_POINTS);
+        System.arraycopy(newRates, 0, patchedRates, fromDate, newRates.length);
+        return new RateCalendar(patchedRates, patchedSums, Math.min(fromDate, rates.length));
+    }
+
+    /**
+     * Returns a calendar where the rate of every night is multiplied by a factor and rounded to a basis point.
+     * Nights past the end of the factors keep their rate.
+     *
+     * @param factors the factors in basis points, where index n holds the factor of night n
+     * @return the new calendar
+     */
+    public RateCalendar withFactors(long[] factors) {
+        long[] newRates = new long[Math.max(rates.length, factors.length)];
+        int night;
+
+        for (night = 0; night < newRates.length; night++) {
+            newRates[night] = night < factors.length ? Money.multiplyBasisPoints(getRateBasisPoints(night), factors[night]) : rates[night];
+        }
+        return new RateCalendar(newRates);
+    }
+}
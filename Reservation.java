@@ -2,14 +2,22 @@
  * The Reservation class represents a hotel room reservation.
  * This class contains information about the guest, check-in and check-out dates, 
  * the room, the total price, and a discount status with no discount as default.
+ * The check-in and check-out dates are day numbers counted from the first day of the
+ * hotel's calendar, so a stay may continue past the end of a month or a year.
  */
 public class Reservation {
 
+    private long reservationId;
     private String guestName;
     private int checkInDate;
     private int checkOutDate;
+    private int roomId;
     private Room room;
-    private double totalPrice = 0;
+    private volatile long totalPriceCents = 0;
+    private long roomPriceCents;
+    private long priceVersion;
+    private volatile long[] nightRates;
+    private volatile boolean paid = false;
     private String discountStatus = "No Discount";
     private String chosenPackage = "No Package";
 
@@ -26,6 +34,34 @@ public class Reservation {
         this.checkInDate = checkInDate;
         this.checkOutDate = checkOutDate;
         this.room = room;
+        this.roomId = room.getRoomId();
+    }
+
+    /**
+     * Gets the ID given to the reservation by its hotel, which also orders the reservations by booking time.
+     * 
+     * @return the reservation ID
+     */
+    public long getReservationId() {
+        return reservationId;
+    }
+
+    /**
+     * Assigns the ID of the reservation. This is done by the hotel when the reservation is added.
+     *
+     * @param reservationId is the ID of the reservation.
+     */
+    public void assignReservationId(long reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    /**
+     * Gets the ID of the room reserved.
+     * 
+     * @return the room ID
+     */
+    public int getRoomId() {
+        return roomId;
     }
 
     /**
@@ -70,7 +106,16 @@ public class Reservation {
      * @return the total price of the reservation
      */
     public double getTotalPrice() {
-        return totalPrice;
+        return Money.toAmount(totalPriceCents);
+    }
+
+    /**
+     * Gets the total price of the reservation in cents.
+     * 
+     * @return the total price of the reservation in cents
+     */
+    public long getTotalPriceCents() {
+        return totalPriceCents;
     }
 
     /**
@@ -92,7 +137,134 @@ public class Reservation {
      * @param newTotalPrice is the new total price to set.
      */
     public void updateTotalPrice(double newTotalPrice) {
-        this.totalPrice = Math.round(newTotalPrice * 100.0) / 100.0;
+        this.totalPriceCents = Money.toCents(newTotalPrice);
+    }
+
+    /**
+     * Updates the total price of the reservation in cents.
+     *
+     * @param newTotalPriceCents is the new total price to set, in cents.
+     */
+    public void updateTotalPriceCents(long newTotalPriceCents) {
+        this.totalPriceCents = newTotalPriceCents;
+    }
+
+    /**
+     * Updates the price of the reservation together with the prices it was computed from.
+     *
+     * @param newTotalPriceCents is the new total price to set, in cents.
+     * @param roomPriceCents is the price per night of the room that was used, in cents.
+     * @param priceVersion is the price version of the hotel that was used.
+     */
+    public void updatePricing(long newTotalPriceCents, long roomPriceCents, long priceVersion) {
+        updatePricing(newTotalPriceCents, roomPriceCents, priceVersion, null);
+    }
+
+    /**
+     * Updates the price of the reservation together with the prices and the nightly rates it was computed from.
+     * When the rates are null, the hotel fills them in from its price version when the reservation is added.
+     *
+     * @param newTotalPriceCents is the new total price to set, in cents.
+     * @param roomPriceCents is the price per night of the room that was used, in cents.
+     * @param priceVersion is the price version of the hotel that was used.
+     * @param nightRates is the rate of every night of the stay in basis points, starting with the check-in night, or null.
+     */
+    public void updatePricing(long newTotalPriceCents, long roomPriceCents, long priceVersion, long[] nightRates) {
+        this.roomPriceCents = roomPriceCents;
+        this.priceVersion = priceVersion;
+        this.nightRates = nightRates;
+        this.totalPriceCents = newTotalPriceCents;
+    }
+
+    /**
+     * Sets the nightly rates the price of the reservation was computed from.
+     *
+     * @param nightRates is the rate of every night of the stay in basis points, starting with the check-in night.
+     */
+    public void updateNightRates(long[] nightRates) {
+        this.nightRates = nightRates;
+    }
+
+    /**
+     * Checks if the nightly rates the price was computed from are known.
+     *
+     * @return true if the reservation has its nightly rates
+     */
+    public boolean hasNightRates() {
+        return nightRates != null;
+    }
+
+    /**
+     * Gets the rate of a night of the stay that the total price was computed from. The rates are kept
+     * with the reservation, so its breakdown matches its price after the rates of the hotel change.
+     *
+     * @param date is the night to check.
+     * @return the rate of the night in basis points, or Money.BASIS_POINTS for a night outside the stay or unknown rates.
+     */
+    public long getNightRateBasisPoints(int date) {
+        long[] rates = nightRates;
+
+        if (rates == null || date < checkInDate || date - checkInDate >= rates.length) {
+            return Money.BASIS_POINTS;
+        }
+        return rates[date - checkInDate];
+    }
+
+    /**
+     * Gets the price per night of the room that the total price was computed from.
+     *
+     * @return the contracted room price in cents
+     */
+    public long getRoomPriceCents() {
+        return roomPriceCents;
+    }
+
+    /**
+     * Gets the price version of the hotel that the total price was computed from.
+     *
+     * @return the price version
+     */
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    /**
+     * Gets the price of each night of the stay before discounts, from the contracted room price and nightly rates.
+     * Each night is the price of the stay up to the end of that night, rounded once, minus the price up to its
+     * start, so the nights add up exactly to the base price of the stay.
+     *
+     * @return the price of each night in cents, where index 0 is the check-in night
+     */
+    public long[] getNightPriceCents() {
+        long[] nightPriceCents = new long[Math.max(0, checkOutDate - checkInDate)];
+        long rateSum = 0;
+        long previousCents = 0;
+        long cents;
+        int night;
+
+        for (night = 0; night < nightPriceCents.length; night++) {
+            rateSum += getNightRateBasisPoints(checkInDate + night);
+            cents = Money.multiplyBasisPoints(roomPriceCents, rateSum);
+            nightPriceCents[night] = cents - previousCents;
+            previousCents = cents;
+        }
+        return nightPriceCents;
+    }
+
+    /**
+     * Checks if the reservation has been paid. Paid reservations keep their price when prices change.
+     *
+     * @return true if the reservation is paid, false otherwise
+     */
+    public boolean isPaid() {
+        return paid;
+    }
+
+    /**
+     * Marks the reservation as paid.
+     */
+    public void markPaid() {
+        this.paid = true;
     }
 
     /**
@@ -0,0 +1,616 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * The ReservationColumnFile class keeps reservations on disk in columns, so reports over years of
+ * reservations scan the file instead of holding a Reservation object per stay on the heap.
+ * The file is a header followed by chunks of two kinds. A dictionary chunk adds guest names, rooms,
+ * discounts, and packages, which the rows name by number. A block chunk holds up to BLOCK_ROWS rows
+ * with each column stored contiguously: reservation number, guest, room, check-in, check-out, total cents,
+ * discount, package. Blocks are memory-mapped, so a scan reads the columns straight from the page cache in order
+ * and an append writes one value into each column of the last block.
+ * An append forces its rows and dictionary entries to disk before it raises the row count of their blocks, so a
+ * crash never leaves a counted row whose columns were not written; rows whose count was not written yet are lost.
+ * A chunk cut short by a crash is dropped when the file is opened again.
+ */
+public class ReservationColumnFile {
+
+    /**
+     * The number of rows a block holds.
+     */
+    public static final int BLOCK_ROWS = 1 << 16;
+
+    private static final int MAGIC = 0x48524346;
+    private static final int FORMAT_VERSION = 2;
+    private static final int FILE_HEADER_SIZE = 16;
+    private static final int CHUNK_HEADER_SIZE = 16;
+    private static final int DICTIONARY_CHUNK = 1;
+    private static final int BLOCK_CHUNK = 2;
+    private static final int ROW_COUNT_OFFSET = 8;
+    private static final int BLOCK_SIZE = CHUNK_HEADER_SIZE + BLOCK_ROWS * (6 * Integer.BYTES + 2 * Long.BYTES);
+
+    private static final byte GUEST_ENTRY = 0;
+    private static final byte ROOM_ENTRY = 1;
+    private static final byte DISCOUNT_ENTRY = 2;
+    private static final byte PACKAGE_ENTRY = 3;
+
+    private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private ArrayList<Block> blockList = new ArrayList<Block>();
+    private ArrayList<ArrayList<String>> dictionaries = new ArrayList<ArrayList<String>>();
+    private ArrayList<HashMap<String, Integer>> dictionaryIds = new ArrayList<HashMap<String, Integer>>();
+    private ArrayList<RoomType> roomTypeList = new ArrayList<RoomType>();
+    private int[] roomTypeOrdinals = new int[16];
+    private long size = 0;
+    private long lastReservationId = 0;
+
+    /**
+     * Opens a column file, or creates it if it does not exist.
+     *
+     * @param file the column file
+     * @throws IOException if the file cannot be read or opened
+     * @throws IllegalStateException if the file is not a column file
+     */
+    public ReservationColumnFile(File file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        Block block;
+        long position, fileSize;
+        int chunkType, chunkLength, row;
+
+        for (byte kind = GUEST_ENTRY; kind <= PACKAGE_ENTRY; kind++) {
+            dictionaries.add(new ArrayList<String>());
+            dictionaryIds.add(new HashMap<String, Integer>());
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        fileSize = channel.size();
+        if (fileSize < FILE_HEADER_SIZE) {
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(BLOCK_ROWS).putInt(0).flip();
+            channel.truncate(0);
+            writeFully(header, 0);
+            return;
+        }
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC) {
+            throw new IllegalStateException(file + " is not a reservation column file");
+        }
+        if (header.getInt(4) != FORMAT_VERSION || header.getInt(8) != BLOCK_ROWS) {
+            throw new IllegalStateException("Unsupported reservation column format in " + file);
+        }
+
+        position = FILE_HEADER_SIZE;
+        while (position + CHUNK_HEADER_SIZE <= fileSize) {
+            header.clear();
+            readFully(header, position);
+            chunkType = header.getInt(0);
+            chunkLength = header.getInt(4);
+            if (chunkLength < CHUNK_HEADER_SIZE || position + chunkLength > fileSize
+                    || (chunkType != DICTIONARY_CHUNK && chunkType != BLOCK_CHUNK)) {
+                break;
+            }
+            if (chunkType == DICTIONARY_CHUNK) {
+                readDictionary(position, chunkLength);
+            } else {
+                block = new Block(channel.map(FileChannel.MapMode.READ_WRITE, position, BLOCK_SIZE));
+                blockList.add(block);
+                size += block.getRowCount();
+                for (row = 0; row < block.getRowCount(); row++) {
+                    lastReservationId = Math.max(lastReservationId, block.reservationIds.get(row));
+                }
+            }
+            position += chunkLength;
+        }
+        channel.truncate(position);
+    }
+
+    /**
+     * Appends a reservation as one row.
+     *
+     * @param reservation the reservation to append
+     * @throws IOException if the file cannot be written
+     */
+    public void append(Reservation reservation) throws IOException {
+        appendAll(List.of(reservation));
+    }
+
+    /**
+     * Appends reservations as rows. The new guest names, rooms, discounts, and packages of all of them
+     * are written in one dictionary chunk before the rows. The rows are on disk when this returns,
+     * though their count may not be yet.
+     *
+     * @param reservationList the reservations to append
+     * @throws IOException if the file cannot be written
+     */
+    public void appendAll(List<Reservation> reservationList) throws IOException {
+        ArrayList<byte[]> entryList = new ArrayList<byte[]>();
+        ArrayList<Block> changedBlockList = new ArrayList<Block>();
+        ArrayList<Integer> rowCountList = new ArrayList<Integer>();
+        int[][] rowIds = new int[reservationList.size()][4];
+        Reservation reservation;
+        Block block;
+        int i, row;
+
+        lock.writeLock().lock();
+        try {
+            for (i = 0; i < reservationList.size(); i++) {
+                reservation = reservationList.get(i);
+                rowIds[i][GUEST_ENTRY] = lookUp(GUEST_ENTRY, reservation.getGuestName(), null, entryList);
+                rowIds[i][ROOM_ENTRY] = lookUp(ROOM_ENTRY, reservation.getRoom().getRoomName(), reservation.getRoom().getRoomType(), entryList);
+                rowIds[i][DISCOUNT_ENTRY] = lookUp(DISCOUNT_ENTRY, reservation.getDiscountStatus(), null, entryList);
+                rowIds[i][PACKAGE_ENTRY] = lookUp(PACKAGE_ENTRY, reservation.getChosenPackage(), null, entryList);
+            }
+            if (!entryList.isEmpty()) {
+                writeDictionary(entryList);
+                channel.force(false);
+            }
+            block = blockList.isEmpty() ? null : blockList.get(blockList.size() - 1);
+            row = block == null ? BLOCK_ROWS : block.getRowCount();
+            for (i = 0; i < reservationList.size(); i++) {
+                reservation = reservationList.get(i);
+                if (row == BLOCK_ROWS) {
+                    block = addBlock();
+                    row = 0;
+                }
+                if (changedBlockList.isEmpty() || changedBlockList.get(changedBlockList.size() - 1) != block) {
+                    changedBlockList.add(block);
+                    rowCountList.add(row);
+                }
+                block.reservationIds.put(row, reservation.getReservationId());
+                block.guestIds.put(row, rowIds[i][GUEST_ENTRY]);
+                block.roomIds.put(row, rowIds[i][ROOM_ENTRY]);
+                block.checkInDates.put(row, reservation.getCheckInDate());
+                block.checkOutDates.put(row, reservation.getCheckOutDate());
+                block.totalCents.put(row, reservation.getTotalPriceCents());
+                block.discountIds.put(row, rowIds[i][DISCOUNT_ENTRY]);
+                block.packageIds.put(row, rowIds[i][PACKAGE_ENTRY]);
+                row++;
+                rowCountList.set(rowCountList.size() - 1, row);
+                lastReservationId = Math.max(lastReservationId, reservation.getReservationId());
+            }
+            for (Block changedBlock : changedBlockList) {
+                changedBlock.buffer.force();
+            }
+            for (i = 0; i < changedBlockList.size(); i++) {
+                changedBlockList.get(i).setRowCount(rowCountList.get(i));
+            }
+            size += reservationList.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of rows in the file.
+     *
+     * @return the number of rows
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the highest reservation number of the rows, so an export can append only the newer reservations.
+     *
+     * @return the highest reservation number, or 0 if the file has no rows
+     */
+    public long getLastReservationId() {
+        lock.readLock().lock();
+        try {
+            return lastReservationId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the reservation number of a row.
+     *
+     * @param row the number of the row
+     * @return the reservation number
+     */
+    public long getReservationId(long row) {
+        lock.readLock().lock();
+        try {
+            return getBlock(row).reservationIds.get((int) (row % BLOCK_ROWS));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the guest name of a row.
+     *
+     * @param row the number of the row
+     * @return the guest name
+     */
+    public String getGuestName(long row) {
+        return getEntry(GUEST_ENTRY, row, block -> block.guestIds);
+    }
+
+    /**
+     * Gets the room name of a row.
+     *
+     * @param row the number of the row
+     * @return the room name
+     */
+    public String getRoomName(long row) {
+        return getEntry(ROOM_ENTRY, row, block -> block.roomIds);
+    }
+
+    /**
+     * Gets the discount of a row.
+     *
+     * @param row the number of the row
+     * @return the discount status
+     */
+    public String getDiscountStatus(long row) {
+        return getEntry(DISCOUNT_ENTRY, row, block -> block.discountIds);
+    }
+
+    /**
+     * Gets the package of a row.
+     *
+     * @param row the number of the row
+     * @return the name of the package
+     */
+    public String getChosenPackage(long row) {
+        return getEntry(PACKAGE_ENTRY, row, block -> block.packageIds);
+    }
+
+    /**
+     * Gets the check-in date of a row.
+     *
+     * @param row the number of the row
+     * @return the check-in date
+     */
+    public int getCheckInDate(long row) {
+        lock.readLock().lock();
+        try {
+            return getBlock(row).checkInDates.get((int) (row % BLOCK_ROWS));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the check-out date of a row.
+     *
+     * @param row the number of the row
+     * @return the check-out date
+     */
+    public int getCheckOutDate(long row) {
+        lock.readLock().lock();
+        try {
+            return getBlock(row).checkOutDates.get((int) (row % BLOCK_ROWS));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the total price of a row.
+     *
+     * @param row the number of the row
+     * @return the total price in cents
+     */
+    public long getTotalPriceCents(long row) {
+        lock.readLock().lock();
+        try {
+            return getBlock(row).totalCents.get((int) (row % BLOCK_ROWS));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sums the revenue and the sold room-nights of the nights in a range over every row, reading the
+     * mapped columns in order. The price of a stay is spread over its nights as in RevenueReport;
+     * every stay is taken to last at least one night.
+     *
+     * @param fromDate the first night of the range, at least 0
+     * @param toDate the night after the range
+     * @param roomType the type of the rooms to count, or null for every type
+     * @return the revenue report of the range
+     */
+    public RevenueReport computeRevenue(int fromDate, int toDate, RoomType roomType) {
+        int roomTypeMask = roomType == null ? -1 : 1 << roomType.ordinal();
+        RevenueReport report = new RevenueReport(0, 0, 0);
+
+        lock.readLock().lock();
+        try {
+            for (Block block : blockList) {
+                report = report.add(computeRevenue(block, fromDate, toDate, roomTypeMask));
+            }
+            return report;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the occupancy bitmap of every room from the rows, where bit n is set when night n is booked.
+     * The bitmaps cover the nights Hotel.getNightMask covers.
+     *
+     * @return the bitmaps indexed by room number, in the order the rooms were first written
+     */
+    public long[] computeOccupiedNights() {
+        long[] occupiedNights;
+        int rowCount, i;
+
+        lock.readLock().lock();
+        try {
+            occupiedNights = new long[roomTypeList.size()];
+            for (Block block : blockList) {
+                rowCount = block.getRowCount();
+                for (i = 0; i < rowCount; i++) {
+                    occupiedNights[block.roomIds.get(i)] |= Hotel.getNightMask(block.checkInDates.get(i), block.checkOutDates.get(i));
+                }
+            }
+            return occupiedNights;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the names of the rooms the rows name, in the order the rooms were first written.
+     *
+     * @return the room names indexed by room number
+     */
+    public List<String> getRoomNames() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<String>(dictionaries.get(ROOM_ENTRY));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the rows and the dictionaries to disk.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void sync() throws IOException {
+        lock.readLock().lock();
+        try {
+            for (Block block : blockList) {
+                block.buffer.force();
+            }
+            channel.force(false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the file to disk and closes it.
+     *
+     * @throws IOException if the file cannot be written or closed
+     */
+    public void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    /**
+     * Sums the revenue of the rows of a block. Every step is plain arithmetic on the same row of each column:
+     * a night count that is 0 for filtered-out rows replaces the branches.
+     */
+    private RevenueReport computeRevenue(Block block, int fromDate, int toDate, int roomTypeMask) {
+        long revenueCents = 0, roomNights = 0, reservationCount = 0;
+        long nightlyCents, totalCents;
+        int checkIn, checkOut, from, to, match, nights, stayNights, firstNight, i;
+        int rowCount = block.getRowCount();
+
+        for (i = 0; i < rowCount; i++) {
+            checkIn = block.checkInDates.get(i);
+            checkOut = block.checkOutDates.get(i);
+            totalCents = block.totalCents.get(i);
+            match = (roomTypeMask >>> roomTypeOrdinals[block.roomIds.get(i)]) & 1;
+            stayNights = Math.max(checkOut - checkIn, 1);
+            nightlyCents = totalCents / stayNights;
+            from = Math.max(checkIn, fromDate);
+            to = Math.min(checkOut, toDate);
+            nights = Math.max(to - from, 0) * match;
+            firstNight = ((((checkIn - fromDate) | (toDate - 1 - checkIn)) >>> 31) ^ 1) * match;
+            revenueCents += nightlyCents * nights + (totalCents - nightlyCents * stayNights) * firstNight;
+            roomNights += nights;
+            reservationCount += (-nights) >>> 31;
+        }
+        return new RevenueReport(revenueCents, roomNights, reservationCount);
+    }
+
+    /**
+     * Gets the dictionary entry a column of a row names.
+     */
+    private String getEntry(byte kind, long row, Function<Block, IntBuffer> column) {
+        lock.readLock().lock();
+        try {
+            return dictionaries.get(kind).get(column.apply(getBlock(row)).get((int) (row % BLOCK_ROWS)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the block of a row. The caller must hold a lock.
+     */
+    private Block getBlock(long row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+        return blockList.get((int) (row / BLOCK_ROWS));
+    }
+
+    /**
+     * Gets the number of a dictionary entry, adding it to the pending entries if it is new.
+     * The caller must hold the write lock.
+     */
+    private int lookUp(byte kind, String value, RoomType roomType, ArrayList<byte[]> entryList) {
+        Integer entryId = dictionaryIds.get(kind).get(value);
+        byte[] text;
+        ByteBuffer entry;
+
+        if (entryId != null) {
+            return entryId;
+        }
+        text = value.getBytes(StandardCharsets.UTF_8);
+        entry = ByteBuffer.allocate(2 + Integer.BYTES + text.length).order(ByteOrder.LITTLE_ENDIAN);
+        entry.put(kind).put((byte) (roomType == null ? 0 : roomType.ordinal())).putInt(text.length).put(text);
+        entryList.add(entry.array());
+        return addEntry(kind, value, roomType);
+    }
+
+    /**
+     * Adds an entry to a dictionary in memory and returns its number.
+     */
+    private int addEntry(byte kind, String value, RoomType roomType) {
+        int entryId = dictionaries.get(kind).size();
+
+        dictionaries.get(kind).add(value);
+        dictionaryIds.get(kind).put(value, entryId);
+        if (kind == ROOM_ENTRY) {
+            roomTypeList.add(roomType);
+            if (entryId == roomTypeOrdinals.length) {
+                roomTypeOrdinals = Arrays.copyOf(roomTypeOrdinals, entryId * 2);
+            }
+            roomTypeOrdinals[entryId] = roomType.ordinal();
+        }
+        return entryId;
+    }
+
+    /**
+     * Writes a dictionary chunk at the end of the file. The caller must hold the write lock.
+     */
+    private void writeDictionary(ArrayList<byte[]> entryList) throws IOException {
+        ByteBuffer chunk;
+        int length = CHUNK_HEADER_SIZE;
+
+        for (byte[] entry : entryList) {
+            length += entry.length;
+        }
+        chunk = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        chunk.putInt(DICTIONARY_CHUNK).putInt(length).putInt(entryList.size()).putInt(0);
+        for (byte[] entry : entryList) {
+            chunk.put(entry);
+        }
+        chunk.flip();
+        writeFully(chunk, channel.size());
+    }
+
+    /**
+     * Reads the entries of a dictionary chunk into the dictionaries.
+     */
+    private void readDictionary(long position, int length) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] text;
+        byte kind, roomType;
+        int entryCount, i;
+
+        readFully(chunk, position);
+        chunk.flip();
+        chunk.position(8);
+        entryCount = chunk.getInt();
+        chunk.getInt();
+        for (i = 0; i < entryCount; i++) {
+            kind = chunk.get();
+            roomType = chunk.get();
+            text = new byte[chunk.getInt()];
+            chunk.get(text);
+            addEntry(kind, new String(text, StandardCharsets.UTF_8), kind == ROOM_ENTRY ? RoomType.values()[roomType] : null);
+        }
+    }
+
+    /**
+     * Adds an empty block at the end of the file and maps it. The caller must hold the write lock.
+     */
+    private Block addBlock() throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, channel.size(), BLOCK_SIZE);
+        Block block;
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, BLOCK_CHUNK);
+        buffer.putInt(4, BLOCK_SIZE);
+        block = new Block(buffer);
+        blockList.add(block);
+        return block;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the reservation column file");
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * A mapped block of rows with a view of each of its columns.
+     */
+    private static class Block {
+        private MappedByteBuffer buffer;
+        private LongBuffer reservationIds;
+        private IntBuffer guestIds;
+        private IntBuffer roomIds;
+        private IntBuffer checkInDates;
+        private IntBuffer checkOutDates;
+        private LongBuffer totalCents;
+        private IntBuffer discountIds;
+        private IntBuffer packageIds;
+
+        private Block(MappedByteBuffer buffer) {
+            int offset = CHUNK_HEADER_SIZE;
+
+            this.buffer = buffer;
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            reservationIds = buffer.slice(offset, BLOCK_ROWS * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            offset += BLOCK_ROWS * Long.BYTES;
+            guestIds = buffer.slice(offset, BLOCK_ROWS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            offset += BLOCK_ROWS * Integer.BYTES;
+            roomIds = buffer.slice(offset, BLOCK_ROWS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            offset += BLOCK_ROWS * Integer.BYTES;
+            checkInDates = buffer.slice(offset, BLOCK_ROWS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            offset += BLOCK_ROWS * Integer.BYTES;
+            checkOutDates = buffer.slice(offset, BLOCK_ROWS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            offset += BLOCK_ROWS * Integer.BYTES;
+            totalCents = buffer.slice(offset, BLOCK_ROWS * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            offset += BLOCK_ROWS * Long.BYTES;
+            discountIds = buffer.slice(offset, BLOCK_ROWS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            offset += BLOCK_ROWS * Integer.BYTES;
+            packageIds = buffer.slice(offset, BLOCK_ROWS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+
+        private int getRowCount() {
+            return buffer.getInt(ROW_COUNT_OFFSET);
+        }
+
+        private void setRowCount(int rowCount) {
+            buffer.putInt(ROW_COUNT_OFFSET, rowCount);
+        }
+    }
+}
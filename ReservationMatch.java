@@ -0,0 +1,37 @@
+/**
+ * The ReservationMatch class holds a reservation found by a guest search together with its hotel.
+ */
+public class ReservationMatch {
+
+    private Hotel hotel;
+    private Reservation reservation;
+
+    /**
+     * Constructs a new ReservationMatch.
+     * 
+     * @param hotel is the hotel of the reservation.
+     * @param reservation is the reservation found.
+     */
+    public ReservationMatch(Hotel hotel, Reservation reservation) {
+        this.hotel = hotel;
+        this.reservation = reservation;
+    }
+
+    /**
+     * Gets the hotel of the reservation.
+     * 
+     * @return the hotel
+     */
+    public Hotel getHotel() {
+        return hotel;
+    }
+
+    /**
+     * Gets the reservation found.
+     * 
+     * @return the reservation
+     */
+    public Reservation getReservation() {
+        return reservation;
+    }
+}
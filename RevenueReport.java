@@ -0,0 +1,83 @@
+/**
+ * The RevenueReport class holds the revenue and the sold room-nights of some reservations
+ * over a range of nights. The price of a stay is spread evenly over its nights, and the cents
+ * that do not divide evenly are counted on the check-in night, so a range covering the whole stay
+ * gets exactly the price of the reservation.
+ */
+public class RevenueReport {
+
+    private long revenueCents;
+    private long roomNights;
+    private long reservationCount;
+
+    /**
+     * Constructs a new RevenueReport.
+     *
+     * @param revenueCents the revenue of the nights in the range, in cents
+     * @param roomNights the number of room-nights sold in the range
+     * @param reservationCount the number of reservations with at least one night in the range
+     */
+    public RevenueReport(long revenueCents, long roomNights, long reservationCount) {
+        this.revenueCents = revenueCents;
+        this.roomNights = roomNights;
+        this.reservationCount = reservationCount;
+    }
+
+    /**
+     * Gets the revenue of the nights in the range.
+     *
+     * @return the revenue in cents
+     */
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    /**
+     * Gets the revenue of the nights in the range.
+     *
+     * @return the revenue
+     */
+    public double getRevenue() {
+        return Money.toAmount(revenueCents);
+    }
+
+    /**
+     * Gets the number of room-nights sold in the range.
+     *
+     * @return the sold room-nights
+     */
+    public long getRoomNights() {
+        return roomNights;
+    }
+
+    /**
+     * Gets the number of reservations with at least one night in the range.
+     *
+     * @return the number of reservations
+     */
+    public long getReservationCount() {
+        return reservationCount;
+    }
+
+    /**
+     * Gets the average daily rate, which is the revenue divided by the sold room-nights.
+     *
+     * @return the average daily rate, or 0 if no room-night was sold
+     */
+    public double getAverageDailyRate() {
+        if (roomNights == 0) {
+            return 0;
+        }
+        return Money.toAmount(revenueCents) / roomNights;
+    }
+
+    /**
+     * Adds two reports, such as the reports of two hotels or of two parts of the same reservations.
+     *
+     * @param other the report to add
+     * @return the combined report
+     */
+    public RevenueReport add(RevenueReport other) {
+        return new RevenueReport(revenueCents + other.revenueCents, roomNights + other.roomNights, reservationCount + other.reservationCount);
+    }
+}
@@ -1,12 +1,21 @@
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
 /**
  * This abstract class represents a room with a name, a default price of 1,299.0, and a status.
+ * Prices are kept as whole cents. The price is volatile, because a hotel changes it under its commit lock
+ * while quotes read it without any lock.
  * 
  */
 public abstract class Room {
 
+    private int roomId = -1;
     private String roomName;
-    protected double price = 1299.0;
+    protected volatile long priceCents = 129900;
     private String status = "available";
+    private volatile long occupiedNights = 0;
+    private ConcurrentSkipListMap<Integer, Reservation> stayMap = new ConcurrentSkipListMap<Integer, Reservation>();
 
     /**
      * This constructs a new Room object with the specified room name.
@@ -17,6 +26,25 @@ public abstract class Room {
         this.roomName = roomName;
     }
 
+    /**
+     * Gets the ID given to the room by its hotel. Room IDs are small integers counted from 0
+     * and are never reused within a hotel, so they can index arrays.
+     *
+     * @return the ID of the room, or -1 if the room is not in a hotel.
+     */
+    public int getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * Assigns the ID of the room. This is done by the hotel when the room is added.
+     *
+     * @param roomId is the ID of the room.
+     */
+    public void assignRoomId(int roomId) {
+        this.roomId = roomId;
+    }
+
     /**
      * Gets the name of the room.
      *
@@ -27,9 +55,23 @@ public abstract class Room {
     }
 
     /**
-     * An abstract method for getting the price of a room.
+     * An abstract method for getting the price of a room per night in cents.
      */
-    abstract public double getPrice();
+    abstract public long getPriceCents();
+
+    /**
+     * Gets the price of the room per night for display.
+     *
+     * @return the price of the room.
+     */
+    public double getPrice() {
+        return Money.toAmount(getPriceCents());
+    }
+
+    /**
+     * An abstract method for getting the type of a room.
+     */
+    abstract public RoomType getRoomType();
 
     /**
      * Gets the current status of the room.
@@ -46,7 +88,170 @@ public abstract class Room {
      * @param price is the new price to set.
      */
     public void updatePrice(double price) {
-        this.price = price;
+        this.priceCents = Money.toCents(price);
+    }
+
+    /**
+     * Gets the base price of the room per night in cents, before the extra amount of its type.
+     *
+     * @return the base price in cents.
+     */
+    public long getBasePriceCents() {
+        return priceCents;
+    }
+
+    /**
+     * Updates the base price of the room in cents.
+     *
+     * @param priceCents is the new base price in cents.
+     */
+    public void updatePriceCents(long priceCents) {
+        this.priceCents = priceCents;
+    }
+
+    /**
+     * Gets the occupancy bitmap of the room, where bit n is set when night n is booked.
+     *
+     * @return the occupancy bitmap of the room.
+     */
+    public long getOccupiedNights() {
+        return occupiedNights;
+    }
+
+    /**
+     * Checks if none of the given nights are booked in the room.
+     *
+     * @param nightMask is the bitmap of the nights to check.
+     * @return true if all of the nights are free, false otherwise.
+     */
+    public boolean isAvailable(long nightMask) {
+        return (occupiedNights & nightMask) == 0;
+    }
+
+    /**
+     * Marks the given nights as booked.
+     *
+     * @param nightMask is the bitmap of the nights to book.
+     */
+    public void occupyNights(long nightMask) {
+        occupiedNights |= nightMask;
+    }
+
+    /**
+     * Marks the given nights as free.
+     *
+     * @param nightMask is the bitmap of the nights to free.
+     */
+    public void vacateNights(long nightMask) {
+        occupiedNights &= ~nightMask;
+    }
+
+    /**
+     * Checks if no reservation of the room overlaps the given dates.
+     * The stays of a room never overlap, so only the last stay starting before the check-out date can collide.
+     *
+     * @param checkInDate is the check-in day number.
+     * @param checkOutDate is the check-out day number.
+     * @return true if the room is free for the whole stay, false otherwise.
+     */
+    public boolean isAvailable(int checkInDate, int checkOutDate) {
+        Map.Entry<Integer, Reservation> previousStay = stayMap.lowerEntry(checkOutDate);
+        return previousStay == null || previousStay.getValue().getCheckOutDate() <= checkInDate;
+    }
+
+    /**
+     * Gets the reservations of the room that overlap the given dates.
+     *
+     * @param checkInDate is the check-in day number.
+     * @param checkOutDate is the check-out day number.
+     * @return the overlapping reservations ordered by check-in date.
+     */
+    public Collection<Reservation> getOverlappingReservations(int checkInDate, int checkOutDate) {
+        Map.Entry<Integer, Reservation> firstStay = stayMap.lowerEntry(checkInDate);
+        int fromDate = checkInDate;
+
+        if (firstStay != null && firstStay.getValue().getCheckOutDate() > checkInDate) {
+            fromDate = firstStay.getKey();
+        }
+        return stayMap.subMap(fromDate, true, checkOutDate, false).values();
+    }
+
+    /**
+     * Gets every reservation of the room ordered by check-in date.
+     *
+     * @return the reservations of the room.
+     */
+    public Collection<Reservation> getReservations() {
+        return stayMap.values();
+    }
+
+    /**
+     * Gets the reservations of the room that check in on or after a date, in check-in order.
+     *
+     * @param fromDate the earliest check-in date
+     * @return the read-only view of the reservations
+     */
+    public Collection<Reservation> getReservationsFrom(int fromDate) {
+        return stayMap.tailMap(fromDate, true).values();
+    }
+
+    /**
+     * Gets the check-out date of the last stay in the room.
+     *
+     * @return the last check-out date, or 0 if the room has no reservation.
+     */
+    public int getLastCheckOutDate() {
+        Map.Entry<Integer, Reservation> lastStay = stayMap.lastEntry();
+        return lastStay == null ? 0 : lastStay.getValue().getCheckOutDate();
+    }
+
+    /**
+     * Gets the check-out date of the last stay that starts before a date.
+     *
+     * @param date is the day number to look before.
+     * @return the check-out date of the previous stay, or -1 if there is none.
+     */
+    public int getPreviousCheckOutDate(int date) {
+        Map.Entry<Integer, Reservation> previousStay = stayMap.lowerEntry(date);
+        return previousStay == null ? -1 : previousStay.getValue().getCheckOutDate();
+    }
+
+    /**
+     * Gets the check-in date of the first stay that starts on or after a date.
+     *
+     * @param date is the day number to look from.
+     * @return the check-in date of the next stay, or -1 if there is none.
+     */
+    public int getNextCheckInDate(int date) {
+        Integer nextCheckInDate = stayMap.ceilingKey(date);
+        return nextCheckInDate == null ? -1 : nextCheckInDate;
+    }
+
+    /**
+     * Checks if the room has at least one reservation.
+     *
+     * @return true if the room is reserved on any date, false otherwise.
+     */
+    public boolean hasReservations() {
+        return !stayMap.isEmpty();
+    }
+
+    /**
+     * Adds a reservation to the stays of the room.
+     *
+     * @param reservation is the reservation of the room.
+     */
+    public void addStay(Reservation reservation) {
+        stayMap.put(reservation.getCheckInDate(), reservation);
+    }
+
+    /**
+     * Removes a reservation from the stays of the room.
+     *
+     * @param reservation is the reservation to remove.
+     */
+    public void removeStay(Reservation reservation) {
+        stayMap.remove(reservation.getCheckInDate(), reservation);
     }
 
     /**
@@ -0,0 +1,15 @@
+/**
+ * The RoomAssignmentStrategy interface decides which free room an automated booking gets.
+ */
+public interface RoomAssignmentStrategy {
+    /**
+     * Picks a room that is free for the given dates.
+     *
+     * @param hotel The hotel where the room is booked.
+     * @param roomType The requested type of room, or null for any type.
+     * @param checkInDate The check-in date.
+     * @param checkOutDate The check-out date.
+     * @return the picked room, or null if no room is free.
+     */
+    Room selectRoom(Hotel hotel, RoomType roomType, int checkInDate, int checkOutDate);
+}
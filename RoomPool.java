@@ -0,0 +1,299 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToLongFunction;
+
+/**
+ * The RoomPool class keeps a group of rooms together with a per-night index of which rooms are free.
+ * For every night, each room in the pool owns one bit, so finding a room that is free for a whole stay
+ * only needs a few word-wide AND operations per 64 rooms instead of checking each room one by one.
+ * The bits are updated with compare-and-set, so bookings of different rooms never block each other.
+ * Adding or removing rooms must not run at the same time as bookings; the hotel makes sure of that.
+ */
+public class RoomPool {
+    /**
+     * The number of nights tracked by the occupancy bitmaps.
+     */
+    public static final int NIGHTS = 64;
+
+    private volatile Slots slots = new Slots(new Room[64], 0, null);
+    private int[] slotOfRoom = new int[0];
+
+    /**
+     * Gets the rooms in the pool in the order they were added.
+     *
+     * @return the read-only list of rooms
+     */
+    public List<Room> getRoomList() {
+        return slots.roomList;
+    }
+
+    /**
+     * Checks if a room belongs to the pool.
+     *
+     * @param room the room to check
+     * @return true if the room is in the pool, false otherwise
+     */
+    public boolean containsRoom(Room room) {
+        return getSlot(room) >= 0;
+    }
+
+    /**
+     * Adds a room at the end of the pool.
+     *
+     * @param room the room to be added
+     */
+    public void addRoom(Room room) {
+        Slots oldSlots = slots;
+        Slots newSlots;
+        int slot = oldSlots.size;
+        int night, word;
+
+        if (slot < oldSlots.rooms.length) {
+            newSlots = new Slots(oldSlots.rooms, slot + 1, oldSlots.freeRooms);
+        } else {
+            newSlots = new Slots(Arrays.copyOf(oldSlots.rooms, Math.max(64, slot * 2)), slot + 1, null);
+            for (night = 0; night < NIGHTS; night++) {
+                for (word = 0; word < oldSlots.freeRooms[night].length(); word++) {
+                    newSlots.freeRooms[night].set(word, oldSlots.freeRooms[night].get(word));
+                }
+            }
+        }
+        newSlots.rooms[slot] = room;
+        setSlot(room, slot);
+        setFree(newSlots, slot, ~room.getOccupiedNights());
+        slots = newSlots;
+    }
+
+    /**
+     * Removes a room from the pool while keeping the order of the remaining rooms.
+     *
+     * @param room the room to be removed
+     */
+    public void removeRoom(Room room) {
+        ArrayList<Room> remainingRooms = new ArrayList<Room>(slots.roomList);
+        Slots newSlots;
+        int slot;
+
+        remainingRooms.remove(room);
+        newSlots = new Slots(Arrays.copyOf(remainingRooms.toArray(new Room[0]), Math.max(64, remainingRooms.size())), remainingRooms.size(), null);
+        setSlot(room, -1);
+        for (slot = 0; slot < newSlots.size; slot++) {
+            setSlot(newSlots.rooms[slot], slot);
+            setFree(newSlots, slot, ~newSlots.rooms[slot].getOccupiedNights());
+        }
+        slots = newSlots;
+    }
+
+    /**
+     * Marks the given nights of a room as booked.
+     *
+     * @param room the booked room
+     * @param nightMask the bitmap of the booked nights
+     */
+    public void occupyNights(Room room, long nightMask) {
+        int slot = getSlot(room);
+        if (slot >= 0) {
+            setBooked(slots, slot, nightMask);
+        }
+    }
+
+    /**
+     * Marks the given nights of a room as free.
+     *
+     * @param room the freed room
+     * @param nightMask the bitmap of the freed nights
+     */
+    public void vacateNights(Room room, long nightMask) {
+        int slot = getSlot(room);
+        if (slot >= 0) {
+            setFree(slots, slot, nightMask);
+        }
+    }
+
+    /**
+     * Finds the first room in the pool that is free for all of the given nights.
+     *
+     * @param nightMask the bitmap of the nights of the stay
+     * @return the first available room, or null if there is none
+     */
+    public Room findAvailableRoom(long nightMask) {
+        Slots currentSlots = slots;
+        int word;
+        long freeWord;
+
+        for (word = 0; word < currentSlots.words; word++) {
+            freeWord = getFreeWord(currentSlots, word, nightMask);
+            if (freeWord != 0) {
+                return currentSlots.rooms[word * 64 + Long.numberOfTrailingZeros(freeWord)];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the room with the lowest cost among the rooms in the pool that are free for all of the given nights.
+     * The free rooms are scored as they are found, without building a list of them, and the search stops
+     * at the first room with a cost of 0. Ties go to the room found first.
+     *
+     * @param nightMask the bitmap of the nights of the stay
+     * @param costFunction the cost of a free room, or a negative number to skip the room
+     * @return the free room with the lowest cost, or null if there is none
+     */
+    public Room findBestRoom(long nightMask, ToLongFunction<Room> costFunction) {
+        Slots currentSlots = slots;
+        Room bestRoom = null;
+        Room room;
+        long bestCost = Long.MAX_VALUE;
+        long freeWord, cost;
+        int word;
+
+        for (word = 0; word < currentSlots.words; word++) {
+            freeWord = getFreeWord(currentSlots, word, nightMask);
+            while (freeWord != 0) {
+                room = currentSlots.rooms[word * 64 + Long.numberOfTrailingZeros(freeWord)];
+                cost = costFunction.applyAsLong(room);
+                if (cost == 0) {
+                    return room;
+                }
+                if (cost > 0 && cost < bestCost) {
+                    bestCost = cost;
+                    bestRoom = room;
+                }
+                freeWord &= freeWord - 1;
+            }
+        }
+        return bestRoom;
+    }
+
+    /**
+     * Gets every room in the pool that is free for all of the given nights.
+     *
+     * @param nightMask the bitmap of the nights of the stay
+     * @return the list of available rooms in pool order
+     */
+    public ArrayList<Room> getAvailableRooms(long nightMask) {
+        ArrayList<Room> availableRoomList = new ArrayList<Room>();
+        Slots currentSlots = slots;
+        int word;
+        long freeWord;
+
+        for (word = 0; word < currentSlots.words; word++) {
+            freeWord = getFreeWord(currentSlots, word, nightMask);
+            while (freeWord != 0) {
+                availableRoomList.add(currentSlots.rooms[word * 64 + Long.numberOfTrailingZeros(freeWord)]);
+                freeWord &= freeWord - 1;
+            }
+        }
+        return availableRoomList;
+    }
+
+    /**
+     * Gets the slot of a room from its room ID.
+     *
+     * @return the slot of the room, or -1 if the room is not in the pool
+     */
+    private int getSlot(Room room) {
+        Slots currentSlots = slots;
+        int roomId = room.getRoomId();
+        int slot;
+
+        if (roomId < 0 || roomId >= slotOfRoom.length) {
+            return -1;
+        }
+        slot = slotOfRoom[roomId] - 1;
+        if (slot < 0 || slot >= currentSlots.size || currentSlots.rooms[slot] != room) {
+            return -1;
+        }
+        return slot;
+    }
+
+    /**
+     * Records the slot of a room under its room ID. The table stores slot + 1 so that 0 means no slot.
+     */
+    private void setSlot(Room room, int slot) {
+        int roomId = room.getRoomId();
+
+        if (roomId >= slotOfRoom.length) {
+            slotOfRoom = Arrays.copyOf(slotOfRoom, Math.max(64, Math.max(roomId + 1, slotOfRoom.length * 2)));
+        }
+        slotOfRoom[roomId] = slot + 1;
+    }
+
+    /**
+     * Combines the free bits of 64 rooms across every night of a stay.
+     */
+    private static long getFreeWord(Slots currentSlots, int word, long nightMask) {
+        long freeWord = -1L;
+        long nights = nightMask;
+
+        while (nights != 0 && freeWord != 0) {
+            freeWord &= currentSlots.freeRooms[Long.numberOfTrailingZeros(nights)].get(word);
+            nights &= nights - 1;
+        }
+        if (word == currentSlots.words - 1 && currentSlots.size % 64 != 0) {
+            freeWord &= (1L << (currentSlots.size % 64)) - 1;
+        }
+        return freeWord;
+    }
+
+    private static void setFree(Slots currentSlots, int slot, long nightMask) {
+        long bit = 1L << (slot % 64);
+        long nights = nightMask;
+        long oldWord;
+        AtomicLongArray freeWords;
+
+        while (nights != 0) {
+            freeWords = currentSlots.freeRooms[Long.numberOfTrailingZeros(nights)];
+            do {
+                oldWord = freeWords.get(slot / 64);
+            } while (!freeWords.compareAndSet(slot / 64, oldWord, oldWord | bit));
+            nights &= nights - 1;
+        }
+    }
+
+    private static void setBooked(Slots currentSlots, int slot, long nightMask) {
+        long bit = 1L << (slot % 64);
+        long nights = nightMask;
+        long oldWord;
+        AtomicLongArray freeWords;
+
+        while (nights != 0) {
+            freeWords = currentSlots.freeRooms[Long.numberOfTrailingZeros(nights)];
+            do {
+                oldWord = freeWords.get(slot / 64);
+            } while (!freeWords.compareAndSet(slot / 64, oldWord, oldWord & ~bit));
+            nights &= nights - 1;
+        }
+    }
+
+    /**
+     * Holds the rooms of the pool together with their free bits. The arrays have spare capacity and are
+     * shared by the next Slots until they are full, while the size tells readers how many rooms are valid.
+     */
+    private static class Slots {
+        private Room[] rooms;
+        private int size;
+        private int words;
+        private List<Room> roomList;
+        private AtomicLongArray[] freeRooms;
+
+        private Slots(Room[] rooms, int size, AtomicLongArray[] freeRooms) {
+            int night;
+
+            this.rooms = rooms;
+            this.size = size;
+            this.words = (size + 63) / 64;
+            this.roomList = Collections.unmodifiableList(Arrays.asList(rooms).subList(0, size));
+            this.freeRooms = freeRooms;
+            if (freeRooms == null) {
+                this.freeRooms = new AtomicLongArray[NIGHTS];
+                for (night = 0; night < NIGHTS; night++) {
+                    this.freeRooms[night] = new AtomicLongArray((rooms.length + 63) / 64);
+                }
+            }
+        }
+    }
+}
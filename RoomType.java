@@ -0,0 +1,61 @@
+/**
+ * This enum represents the types of rooms that a hotel can offer.
+ * 
+ */
+public enum RoomType {
+    STANDARD("Standard Room"),
+    DELUXE("Deluxe Room"),
+    EXECUTIVE("Executive Room");
+
+    private String displayName;
+
+    /**
+     * This constructs a room type with the name shown to the user.
+     *
+     * @param displayName has the name of the room type.
+     */
+    RoomType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Gets the name of the room type shown to the user.
+     *
+     * @return the name of the room type.
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Creates a room of this type.
+     *
+     * @param roomName has the name of the new room.
+     * @return the new room.
+     */
+    public Room createRoom(String roomName) {
+        switch (this) {
+            case DELUXE:
+                return new DeluxeRoom(roomName);
+            case EXECUTIVE:
+                return new ExecutiveRoom(roomName);
+            default:
+                return new StandardRoom(roomName);
+        }
+    }
+
+    /**
+     * Finds the room type with the given display name.
+     *
+     * @param displayName is the name of the room type shown to the user.
+     * @return the matching room type, or null if there is none.
+     */
+    public static RoomType fromDisplayName(String displayName) {
+        for (RoomType roomType : values()) {
+            if (roomType.displayName.equals(displayName)) {
+                return roomType;
+            }
+        }
+        return null;
+    }
+}
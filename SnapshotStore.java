@@ -0,0 +1,395 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * The SnapshotStore class writes the state of each hotel to a compact binary file and reads it back, so
+ * starting the system does not replay every change ever made, and a hotel can be unloaded from memory and
+ * loaded again later. A hotel file is named after the hotel and the last journal record its state includes,
+ * and is never changed once written; it starts with the name and the counts of the hotel, so the hotel can be
+ * listed without reading the rest. The header is followed by the guest name and the number of each reservation,
+ * which the model reads into its guest index of the chain when the system starts, so a search by guest name only
+ * loads the hotels that have a match. A manifest, replaced in one step, lists the file of every hotel as of one
+ * journal record, so a snapshot cut short by a crash is never read. Files written after the manifest, such as
+ * those of hotels unloaded since, include more records and are read instead.
+ * Each hotel is frozen on its own for as long as it takes to copy a few references, and records the last
+ * journal record its state includes; the hotel is written to disk after it is unlocked.
+ * After the header, a hotel file holds the hotel as HotelCodec encodes it.
+ */
+public class SnapshotStore {
+
+    private static final String HOTEL_DIRECTORY = "hotels";
+    private static final String HOTEL_PREFIX = "hotel-";
+    private static final String HOTEL_SUFFIX = ".bin";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String MANIFEST_FILE = "MANIFEST";
+    private static final int MAGIC = 0x48525353;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The StoredHotel class describes a hotel file: the hotel, the last journal record its state includes,
+     * and the name and the counts of the hotel, which are read without the rooms and reservations.
+     */
+    public static class StoredHotel {
+        private int hotelId;
+        private long sequence;
+        private File file;
+        private String hotelName;
+        private int roomCount;
+        private int reservationCount;
+
+        /**
+         * Constructs a new StoredHotel.
+         *
+         * @param hotelId the number the journal names the hotel by
+         * @param sequence the last journal record the state of the hotel includes
+         * @param file the file of the hotel
+         * @param hotelName the name of the hotel
+         * @param roomCount the number of rooms
+         * @param reservationCount the number of reservations
+         */
+        public StoredHotel(int hotelId, long sequence, File file, String hotelName, int roomCount, int reservationCount) {
+            this.hotelId = hotelId;
+            this.sequence = sequence;
+            this.file = file;
+            this.hotelName = hotelName;
+            this.roomCount = roomCount;
+            this.reservationCount = reservationCount;
+        }
+
+        /**
+         * Gets the number the journal names the hotel by.
+         *
+         * @return the hotel number
+         */
+        public int getHotelId() {
+            return hotelId;
+        }
+
+        /**
+         * Gets the last journal record the state of the hotel includes.
+         *
+         * @return the sequence number of the record
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Gets the file of the hotel.
+         *
+         * @return the file
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Gets the name and the counts of the hotel as of the file.
+         *
+         * @return the summary of the hotel, which is not loaded
+         */
+        public HotelSummary getSummary() {
+            return new HotelSummary(hotelId, hotelName, roomCount, reservationCount, false);
+        }
+    }
+
+    private File directory;
+    private File hotelDirectory;
+
+    /**
+     * Constructs a SnapshotStore that keeps its files in a directory.
+     *
+     * @param directory the directory of the snapshots, which is created if it does not exist
+     */
+    public SnapshotStore(File directory) {
+        this.directory = directory;
+        this.hotelDirectory = new File(directory, HOTEL_DIRECTORY);
+        hotelDirectory.mkdirs();
+    }
+
+    /**
+     * Finds the file of every hotel of the latest manifest.
+     * The newest file of each hotel is taken, which includes at least the records the manifest counts on.
+     * Files left half written by a crash are deleted, so this should be called before any hotel is written.
+     *
+     * @param hotelList the list the files of the hotels are added to, in the order the hotels were created
+     * @return the last journal record the manifest covers, or 0 if there is no manifest
+     * @throws IOException if a file cannot be read
+     * @throws IllegalStateException if the manifest or a hotel file is invalid or missing
+     */
+    public long load(List<StoredHotel> hotelList) throws IOException {
+        File manifestFile = new File(directory, MANIFEST_FILE);
+        Properties manifest = new Properties();
+        HashMap<Integer, TreeMap<Long, File>> fileMap;
+        StoredHotel storedHotel;
+        File[] files = hotelDirectory.listFiles();
+        long startSequence;
+        int hotelId;
+
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(TEMPORARY_SUFFIX)) {
+                    file.delete();
+                }
+            }
+        }
+        if (!manifestFile.isFile()) {
+            return 0;
+        }
+        try (FileInputStream in = new FileInputStream(manifestFile)) {
+            manifest.load(in);
+        }
+        fileMap = listHotelFiles();
+        try {
+            if (Integer.parseInt(manifest.getProperty("format", "0")) != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported snapshot format " + manifest.getProperty("format"));
+            }
+            startSequence = Long.parseLong(manifest.getProperty("sequence"));
+            for (String hotelIdText : manifest.getProperty("hotels", "").split(",")) {
+                if (hotelIdText.isEmpty()) {
+                    continue;
+                }
+                hotelId = Integer.parseInt(hotelIdText);
+                storedHotel = fileMap.containsKey(hotelId) ? readHeader(fileMap.get(hotelId).lastEntry().getValue()) : null;
+                if (storedHotel == null || storedHotel.getSequence() < Long.parseLong(manifest.getProperty("hotel." + hotelId + ".sequence"))) {
+                    throw new IllegalStateException("The file of hotel " + hotelId + " in " + hotelDirectory + " is missing");
+                }
+                hotelList.add(storedHotel);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid snapshot manifest in " + directory, e);
+        }
+        return startSequence;
+    }
+
+    /**
+     * Finds the newest file of a hotel, such as one created after the manifest and unloaded since.
+     *
+     * @param hotelId the number the journal names the hotel by
+     * @return the newest file of the hotel, or null if it has none
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if the file is invalid
+     */
+    public StoredHotel findHotel(int hotelId) throws IOException {
+        TreeMap<Long, File> sequenceMap = listHotelFiles().get(hotelId);
+
+        return sequenceMap == null ? null : readHeader(sequenceMap.lastEntry().getValue());
+    }
+
+    /**
+     * Writes the state of a hotel to a new file and forces it to disk. The file only appears once it is complete.
+     *
+     * @param hotelId the number the journal names the hotel by
+     * @param state the state of the hotel
+     * @return the written file
+     * @throws IOException if the file cannot be written
+     */
+    public StoredHotel writeHotel(int hotelId, HotelCodec.HotelState state) throws IOException {
+        File file = hotelFile(hotelId, state.getSequence());
+        File temporaryFile = File.createTempFile(HOTEL_PREFIX, TEMPORARY_SUFFIX, hotelDirectory);
+
+        try {
+            writeHotel(temporaryFile, hotelId, state);
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temporaryFile.delete();
+        }
+        return new StoredHotel(hotelId, state.getSequence(), file, state.getSnapshot().getHotelName(),
+                state.getSnapshot().getRoomList().size(), state.getSnapshot().getReservationList().size());
+    }
+
+    /**
+     * Writes a manifest that lists the files of the hotels, then deletes the hotel files no longer needed:
+     * the older files of every hotel and the files of removed hotels.
+     *
+     * @param startSequence the last journal record of the hotel list
+     * @param hotelList the files of the hotels, in the order the hotels were created
+     * @param removedHotelIds the numbers of the hotels removed before the manifest, whose files can go
+     * @throws IOException if the manifest cannot be written
+     */
+    public void writeManifest(long startSequence, List<StoredHotel> hotelList, Collection<Integer> removedHotelIds) throws IOException {
+        File manifestFile = new File(directory, MANIFEST_FILE);
+        File temporaryFile = new File(directory, MANIFEST_FILE + TEMPORARY_SUFFIX);
+        HashSet<File> listedFileSet = new HashSet<File>();
+        Properties manifest = new Properties();
+        StringBuilder hotelIds = new StringBuilder();
+
+        for (StoredHotel storedHotel : hotelList) {
+            if (hotelIds.length() > 0) {
+                hotelIds.append(',');
+            }
+            hotelIds.append(storedHotel.hotelId);
+            manifest.setProperty("hotel." + storedHotel.hotelId + ".name", storedHotel.hotelName);
+            manifest.setProperty("hotel." + storedHotel.hotelId + ".sequence", String.valueOf(storedHotel.sequence));
+            listedFileSet.add(storedHotel.file);
+        }
+        manifest.setProperty("format", String.valueOf(FORMAT_VERSION));
+        manifest.setProperty("sequence", String.valueOf(startSequence));
+        manifest.setProperty("hotels", hotelIds.toString());
+        try (FileOutputStream out = new FileOutputStream(temporaryFile)) {
+            manifest.store(out, "Hotel snapshot");
+            out.getFD().sync();
+        }
+        Files.move(temporaryFile.toPath(), manifestFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+        for (Map.Entry<Integer, TreeMap<Long, File>> entry : listHotelFiles().entrySet()) {
+            for (File file : entry.getValue().values()) {
+                if (!listedFileSet.contains(file)
+                        && (file != entry.getValue().lastEntry().getValue() || removedHotelIds.contains(entry.getKey()))) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a hotel back from its file.
+     *
+     * @param storedHotel the file of the hotel
+     * @return the restored hotel, which has no listeners yet
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if the file holds invalid data
+     */
+    public Hotel readHotel(StoredHotel storedHotel) throws IOException {
+        byte[] body;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storedHotel.file), BUFFER_SIZE))) {
+            readHeader(storedHotel.file, in);
+            in.skipNBytes(in.readInt());
+            body = in.readAllBytes();
+        } catch (EOFException e) {
+            throw new IllegalStateException("The hotel snapshot " + storedHotel.file + " is cut short", e);
+        }
+        return HotelCodec.decodeHotel(body);
+    }
+
+    /**
+     * Reads the guest name and the number of each reservation of a hotel file, without the rest of the hotel.
+     *
+     * @param storedHotel the file of the hotel
+     * @param guestNameList the list the guest names are added to
+     * @param reservationIdList the list the reservation numbers are added to, in the order of the names
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if the file holds invalid data
+     */
+    public void readGuests(StoredHotel storedHotel, List<String> guestNameList, List<Long> reservationIdList) throws IOException {
+        int i;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storedHotel.file), BUFFER_SIZE))) {
+            readHeader(storedHotel.file, in);
+            in.readInt();
+            for (i = 0; i < storedHotel.reservationCount; i++) {
+                reservationIdList.add(in.readLong());
+                guestNameList.add(in.readUTF());
+            }
+        } catch (EOFException e) {
+            throw new IllegalStateException("The hotel snapshot " + storedHotel.file + " is cut short", e);
+        }
+    }
+
+    /**
+     * Writes the state of a hotel to a file and forces it to disk: the header, the length of the guest list
+     * and the guest list, then the hotel as HotelCodec encodes it.
+     */
+    private static void writeHotel(File file, int hotelId, HotelCodec.HotelState state) throws IOException {
+        ByteArrayOutputStream guestBytes = new ByteArrayOutputStream();
+        DataOutputStream guestOut = new DataOutputStream(guestBytes);
+        byte[] body = HotelCodec.encodeHotel(state);
+
+        for (Reservation reservation : state.getSnapshot().getReservationList()) {
+            guestOut.writeLong(reservation.getReservationId());
+            guestOut.writeUTF(reservation.getGuestName());
+        }
+
+        try (FileOutputStream fileOut = new FileOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(hotelId);
+            out.writeLong(state.getSequence());
+            out.writeUTF(state.getSnapshot().getHotelName());
+            out.writeInt(state.getSnapshot().getRoomList().size());
+            out.writeInt(state.getSnapshot().getReservationList().size());
+            out.writeInt(guestBytes.size());
+            guestBytes.writeTo(out);
+            out.write(body);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+    }
+
+    /**
+     * Reads the number, the sequence number, the name, and the counts at the start of a hotel file.
+     */
+    private static StoredHotel readHeader(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 512))) {
+            return readHeader(file, in);
+        } catch (EOFException e) {
+            throw new IllegalStateException("The hotel snapshot " + file + " is cut short", e);
+        }
+    }
+
+    /**
+     * Reads the header of a hotel file from a stream, leaving the stream at the length of the guest list.
+     */
+    private static StoredHotel readHeader(File file, DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IllegalStateException(file + " is not a hotel snapshot of a supported format");
+        }
+        return new StoredHotel(in.readInt(), in.readLong(), file, in.readUTF(), in.readInt(), in.readInt());
+    }
+
+    /**
+     * Gets the file of a hotel whose state includes the journal records up to a sequence number.
+     */
+    private File hotelFile(int hotelId, long sequence) {
+        return new File(hotelDirectory, HOTEL_PREFIX + hotelId + "-" + sequence + HOTEL_SUFFIX);
+    }
+
+    /**
+     * Lists the hotel files by hotel and then by the last journal record they include.
+     */
+    private HashMap<Integer, TreeMap<Long, File>> listHotelFiles() {
+        HashMap<Integer, TreeMap<Long, File>> fileMap = new HashMap<Integer, TreeMap<Long, File>>();
+        File[] files = hotelDirectory.listFiles();
+        String name;
+        int separator;
+
+        if (files == null) {
+            return fileMap;
+        }
+        for (File file : files) {
+            name = file.getName();
+            if (!name.startsWith(HOTEL_PREFIX) || !name.endsWith(HOTEL_SUFFIX)) {
+                continue;
+            }
+            name = name.substring(HOTEL_PREFIX.length(), name.length() - HOTEL_SUFFIX.length());
+            separator = name.indexOf('-');
+            try {
+                fileMap.computeIfAbsent(Integer.parseInt(name.substring(0, Math.max(separator, 0))), k -> new TreeMap<Long, File>())
+                        .put(Long.parseLong(name.substring(separator + 1)), file);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+        }
+        return fileMap;
+    }
+}